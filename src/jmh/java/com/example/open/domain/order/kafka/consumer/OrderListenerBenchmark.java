@@ -0,0 +1,212 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import com.example.open.domain.order.kafka.dto.OrderRequest;
+import com.example.open.domain.order.kafka.eventsourcing.InMemoryEventBroadcaster;
+import com.example.open.domain.order.kafka.eventsourcing.InMemoryEventStore;
+import com.example.open.domain.order.kafka.eventsourcing.OverflowPolicy;
+import com.example.open.domain.order.kafka.eventsourcing.ProgressEventService;
+import com.example.open.domain.order.kafka.eventsourcing.SubscriptionOptions;
+import com.example.open.domain.order.kafka.handler.RetryTopicRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 주문 리스너 처리량: 레코드 단위(OrderConsumerV2) vs 배치(OrderBatchConsumerV2)
+ *
+ * 실제 리스너 메서드를 컨테이너 대신 호출 (브로커 없이 poll 루프만 흉내)
+ * - 생산 스레드가 ordersPerSec 속도로 파티션별 대기열에 레코드 적재 (키 = userId, 100명)
+ * - 파티션마다 리스너 스레드 1개 (컨테이너 concurrency = 파티션 수)
+ *   최대 maxPollRecords 건씩 꺼내 single 은 레코드마다, batch 는 목록 한 번으로 호출
+ * - 단계 처리 시간(stepMillis), Event Store 저장/SSE 구독자 전달, OffsetCommitManager 커밋(MockConsumer) 포함
+ *
+ * 연산 1회 = 주문 orders 건이 모두 끝날 때까지 시간
+ * 목표 속도를 따라가면 orders / ordersPerSec (10k 건 / 10k orders/s = 1초) 에 가깝고, 넘는 만큼이 적체
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=OrderListener
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class OrderListenerBenchmark {
+
+    private static final String TOPIC = "order-events-v2";
+    private static final int USERS = 100;
+
+    @Param({"10000"})
+    int orders;
+
+    @Param({"10000"})
+    int ordersPerSec;
+
+    @Param({"3"})
+    int partitions;
+
+    @Param({"5"})
+    long stepMillis;
+
+    @Param({"500"})
+    int maxPollRecords;
+
+    @Param({"64"})
+    int batchWorkerThreads;
+
+    private InMemoryEventBroadcaster broadcaster;
+    private RetryTopicRouter retryTopicRouter;
+    private OrderConsumerV2 singleConsumer;
+    private OrderBatchConsumerV2 batchConsumer;
+    private List<String> messages;
+    private String runId;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        broadcaster = new InMemoryEventBroadcaster(objectMapper, 256, 2, OverflowPolicy.CONFLATE);
+        ProgressEventService service = new ProgressEventService(new InMemoryEventStore(), broadcaster, meterRegistry);
+        OffsetCommitManager commitManager = new OffsetCommitManager(100, 1000, 10_000, meterRegistry);
+        // 실패 주문이 없으므로 재시도/DLT 전송 경로는 사용하지 않음
+        retryTopicRouter = new RetryTopicRouter(null, null, null, meterRegistry, List.of(), 10_000, 1);
+
+        singleConsumer = new OrderConsumerV2(service, objectMapper, commitManager, retryTopicRouter, stepMillis);
+        batchConsumer = new OrderBatchConsumerV2(service, objectMapper, commitManager, retryTopicRouter,
+                batchWorkerThreads, stepMillis);
+
+        runId = UUID.randomUUID().toString();
+        messages = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            messages.add(objectMapper.writeValueAsString(new OrderRequest(
+                    runId + "-" + i, userId(i), "ORDER-" + i, "벤치마크 상품", 1)));
+        }
+        for (int u = 0; u < USERS; u++) {
+            service.subscribePayload(userId(u), payload -> { }, SubscriptionOptions.defaults());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        batchConsumer.close();
+        retryTopicRouter.close();
+        broadcaster.close();
+    }
+
+    @Benchmark
+    public void single() throws Exception {
+        run(false);
+    }
+
+    @Benchmark
+    public void batch() throws Exception {
+        run(true);
+    }
+
+    private void run(boolean batched) throws Exception {
+        List<LinkedBlockingQueue<ConsumerRecord<String, String>>> queues = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            queues.add(new LinkedBlockingQueue<>());
+        }
+
+        ExecutorService listeners = Executors.newFixedThreadPool(partitions);
+        try {
+            List<Future<?>> futures = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int partition = p;
+                int expected = countFor(partition);
+                futures.add(listeners.submit(() -> listen(queues.get(partition), partition, expected, batched)));
+            }
+            produce(queues);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            listeners.shutdownNow();
+        }
+    }
+
+    /**
+     * ordersPerSec 속도로 적재 (1ms 단위로 밀린 만큼 한 번에)
+     */
+    private void produce(List<LinkedBlockingQueue<ConsumerRecord<String, String>>> queues) {
+        long[] offsets = new long[partitions];
+        long start = System.nanoTime();
+        int sent = 0;
+        while (sent < orders) {
+            long due = Math.min(orders, (System.nanoTime() - start) * ordersPerSec / 1_000_000_000L + 1);
+            for (; sent < due; sent++) {
+                int partition = partitionOf(sent);
+                queues.get(partition).add(new ConsumerRecord<>(TOPIC, partition, offsets[partition]++,
+                        userId(sent), messages.get(sent)));
+            }
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    /**
+     * 파티션 하나의 리스너 스레드 (poll → 리스너 호출 반복)
+     */
+    private void listen(LinkedBlockingQueue<ConsumerRecord<String, String>> queue, int partition, int expected,
+                        boolean batched) {
+        MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(new TopicPartition(TOPIC, partition)));
+        List<ConsumerRecord<String, String>> polled = new ArrayList<>(maxPollRecords);
+        int processed = 0;
+        while (processed < expected) {
+            try {
+                ConsumerRecord<String, String> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                polled.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(polled, maxPollRecords - 1);
+            if (batched) {
+                batchConsumer.processOrders(polled, consumer);
+            } else {
+                for (ConsumerRecord<String, String> record : polled) {
+                    singleConsumer.processOrder(record, consumer);
+                }
+            }
+            processed += polled.size();
+            polled.clear();
+        }
+    }
+
+    private int countFor(int partition) {
+        int count = 0;
+        for (int i = 0; i < orders; i++) {
+            if (partitionOf(i) == partition) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int partitionOf(int order) {
+        return (order % USERS) % partitions;
+    }
+
+    private String userId(int i) {
+        return runId + "-user-" + (i % USERS);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 히스토리 조회가 InMemoryEventStore append 를 얼마나 늦추는지 측정
+ *
+ * - writeOnly: 쓰기 스레드 4개가 작업 하나씩 맡아 append (OrderConsumerV2 스레드 역할)
+ * - withReaders: 같은 쓰기 + 조회 스레드 4개가 전체 히스토리 / 최근 구간(getEventsAfter) 반복 조회 (SSE 재접속 역할)
+ * - 두 그룹의 append 처리량 차이가 조회-쓰기 경합 비용
+ *
+ * 반복(iteration)마다 새 저장소 사용 (작업당 이벤트가 계속 늘어 조회 비용이 달라지지 않도록)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=EventStoreContention
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EventStoreContentionBenchmark {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int TOTAL_STEPS = 1_000_000;
+
+    @State(Scope.Group)
+    public static class Store {
+        InMemoryEventStore store;
+        String[] taskIds;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            store = new InMemoryEventStore();
+            String runId = UUID.randomUUID().toString();
+            taskIds = new String[WRITERS];
+            for (int w = 0; w < WRITERS; w++) {
+                taskIds[w] = runId + "-" + w;
+                store.append(ProgressEvent.started(taskIds[w], "bench-user", TOTAL_STEPS));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+        String taskId;
+        int step;
+
+        @Setup(Level.Iteration)
+        public void setUp(Store store, ThreadParams threadParams) {
+            taskId = store.taskIds[threadParams.getSubgroupThreadIndex() % WRITERS];
+            step = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("writeOnly")
+    @GroupThreads(WRITERS)
+    public ProgressEvent writeOnly(Store store, Writer writer) {
+        return append(store, writer);
+    }
+
+    @Benchmark
+    @Group("withReaders")
+    @GroupThreads(WRITERS)
+    public ProgressEvent withReadersAppend(Store store, Writer writer) {
+        return append(store, writer);
+    }
+
+    @Benchmark
+    @Group("withReaders")
+    @GroupThreads(READERS)
+    public void withReadersRead(Store store, Blackhole blackhole) {
+        for (String taskId : store.taskIds) {
+            List<ProgressEvent> history = store.store.getEventsByTaskId(taskId);
+            long last = history.isEmpty() ? 0 : history.get(history.size() - 1).sequence();
+            blackhole.consume(store.store.getEventsAfter(taskId, Math.max(0, last - 50)));
+        }
+    }
+
+    private static ProgressEvent append(Store store, Writer writer) {
+        int step = ++writer.step % TOTAL_STEPS + 1;
+        return store.store.append(ProgressEvent.progress(writer.taskId, "bench-user", step, TOTAL_STEPS, "벤치마크"));
+    }
+}
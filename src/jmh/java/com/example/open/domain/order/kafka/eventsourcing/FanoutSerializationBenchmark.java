@@ -0,0 +1,66 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 팬아웃 1회(이벤트 1건 → 구독자 N명)당 할당량/소요 시간
+ *
+ * - perSubscriber: 구독자마다 writeValueAsString (기존 방식)
+ * - shared: 발행 시 ProgressEventPayload 1회 생성 후 JSON 공유
+ *
+ * 두 방식 모두 SSE 이벤트 프레임 구성(SseEmitter.event().build())까지 포함
+ * 할당량은 gc 프로파일러의 gc.alloc.rate.norm (연산 = 팬아웃 1회)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=FanoutSerialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FanoutSerializationBenchmark {
+
+    @Param({"10", "100"})
+    int subscribers;
+
+    private ObjectMapper objectMapper;
+    private ProgressEvent[] samples;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        samples = new ProgressEvent[1024];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = ProgressEvent.progress("bench-task-" + (i % 16), "bench-user", i % 100 + 1, 100, "단계 처리");
+        }
+    }
+
+    @Benchmark
+    public void perSubscriber(Blackhole blackhole) throws JsonProcessingException {
+        ProgressEvent event = nextSample();
+        for (int s = 0; s < subscribers; s++) {
+            String json = objectMapper.writeValueAsString(event);
+            blackhole.consume(SseEmitter.event().name("progress").data(json).build());
+        }
+    }
+
+    @Benchmark
+    public void shared(Blackhole blackhole) {
+        ProgressEventPayload payload = ProgressEventPayload.encode(nextSample(), objectMapper);
+        for (int s = 0; s < subscribers; s++) {
+            blackhole.consume(SseEmitter.event().name("progress").data(payload.json()).build());
+        }
+    }
+
+    private ProgressEvent nextSample() {
+        ProgressEvent event = samples[next];
+        next = (next + 1) & (samples.length - 1);
+        return event;
+    }
+}
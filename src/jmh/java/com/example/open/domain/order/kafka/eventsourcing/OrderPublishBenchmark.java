@@ -0,0 +1,105 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 발행 경로 처리량 (벤치마크 전용 InMemoryEventStore + InMemoryEventBroadcaster)
+ *
+ * - single: 주문마다 STARTED → PROGRESS×3 → COMPLETED 를 건별 publish (OrderConsumerV2)
+ * - batch: batchSize 주문씩 단계별로 모아 publishBatch (OrderBatchConsumerV2)
+ * - 사용자 100명에 주문을 나누고, 그중 subscribers 명은 SSE 구독 중인 것으로 가정
+ * - 연산 1회 = 주문 orders 건, 단계별 처리 시간은 제외 → 발행 경로만 비교
+ *   (10k orders/s 목표면 연산 1회가 1초보다 충분히 짧아야 함)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=OrderPublish
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OrderPublishBenchmark {
+
+    private static final int USERS = 100;
+
+    @Param({"10000"})
+    int orders;
+
+    @Param({"500"})
+    int batchSize;
+
+    @Param({"100"})
+    int subscribers;
+
+    private InMemoryEventBroadcaster broadcaster;
+    private ProgressEventService service;
+    private String runId;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        broadcaster = new InMemoryEventBroadcaster(objectMapper, 256, 2, OverflowPolicy.CONFLATE);
+        service = new ProgressEventService(new InMemoryEventStore(), broadcaster, new SimpleMeterRegistry());
+        runId = UUID.randomUUID().toString();
+        for (int u = 0; u < Math.min(subscribers, USERS); u++) {
+            service.subscribePayload(userId(u), payload -> { }, SubscriptionOptions.defaults());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        broadcaster.close();
+    }
+
+    @Benchmark
+    public void single() {
+        for (int i = 0; i < orders; i++) {
+            String taskId = runId + "-" + i;
+            String userId = userId(i);
+            service.publishStarted(taskId, userId, 4);
+            service.publishProgress(taskId, userId, 1, 4, "주문 검증");
+            service.publishProgress(taskId, userId, 2, 4, "재고 확인");
+            service.publishProgress(taskId, userId, 3, 4, "결제 처리");
+            service.publishCompleted(taskId, userId, 4);
+        }
+    }
+
+    @Benchmark
+    public void batch() {
+        for (int from = 0; from < orders; from += batchSize) {
+            publishOrderBatch(from, Math.min(orders, from + batchSize));
+        }
+    }
+
+    private void publishOrderBatch(int from, int to) {
+        List<ProgressEvent> events = new ArrayList<>((to - from) * 2);
+        for (int i = from; i < to; i++) {
+            events.add(ProgressEvent.started(runId + "-" + i, userId(i), 4));
+            events.add(ProgressEvent.progress(runId + "-" + i, userId(i), 1, 4, "주문 검증"));
+        }
+        service.publishBatch(events);
+        String[] stepNames = {"재고 확인", "결제 처리"};
+        for (int step = 2; step <= 3; step++) {
+            events = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                events.add(ProgressEvent.progress(runId + "-" + i, userId(i), step, 4, stepNames[step - 2]));
+            }
+            service.publishBatch(events);
+        }
+        events = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            events.add(ProgressEvent.completed(runId + "-" + i, userId(i), 4));
+        }
+        service.publishBatch(events);
+    }
+
+    private String userId(int i) {
+        return runId + "-user-" + (i % USERS);
+    }
+}
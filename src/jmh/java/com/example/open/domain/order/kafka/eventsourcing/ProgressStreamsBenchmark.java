@@ -0,0 +1,233 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.example.open.common.sse.SseHeartbeatScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRegistration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 부하를 서블릿(SseEmitter, Tomcat) / 리액티브(Netty) 스트림에 차례로 적용
+ *
+ * 두 서버를 벤치마크 프로세스 안에 띄우고 같은 ProgressEventService 로 발행
+ * - connections 개의 SSE 연결 수립 (HttpClient 비동기, 클라이언트 스레드 없음)
+ * - 사용자 1명에게 started + progress(events) + completed 발행 → 모든 연결이 completed 를 받을 때까지 시간
+ *   (느린 연결은 CONFLATE 로 진행률이 합쳐지므로 수신 건수는 발행 건수보다 적을 수 있음)
+ * - 연결 유지 비용(스레드 수 / 힙 증가분)은 반복마다 표준 출력으로 기록
+ *
+ * 큰 연결 수는 ulimit -n 확인 후 실행: ./gradlew jmh -PjmhIncludes=ProgressStreams
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ProgressStreamsBenchmark {
+
+    private static final Duration STREAM_TIMEOUT = Duration.ofSeconds(60);
+
+    @Param({"1000"})
+    int connections;
+
+    @Param({"100"})
+    int events;
+
+    private SseHeartbeatScheduler heartbeatScheduler;
+    private InMemoryEventBroadcaster broadcaster;
+    private ProgressEventService progressEventService;
+    private AnnotationConfigWebApplicationContext servletContext;
+    private WebServer servletServer;
+    private ReactiveProgressServer reactiveServer;
+    private HttpClient httpClient;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        heartbeatScheduler = new SseHeartbeatScheduler(15_000, 500, 2);
+        broadcaster = new InMemoryEventBroadcaster(objectMapper, 256, 2, OverflowPolicy.CONFLATE);
+        progressEventService = new ProgressEventService(new InMemoryEventStore(), broadcaster, meterRegistry);
+
+        ProgressSSEManager sseManager = new ProgressSSEManager(progressEventService, objectMapper, heartbeatScheduler, meterRegistry);
+        servletContext = new AnnotationConfigWebApplicationContext();
+        servletContext.register(ServletConfig.class);
+        servletContext.registerBean(ProgressSSEManager.class, () -> sseManager);
+        servletServer = new TomcatServletWebServerFactory(0).getWebServer(context -> {
+            ServletRegistration.Dynamic dispatcher = context.addServlet("dispatcher", new DispatcherServlet(servletContext));
+            dispatcher.setAsyncSupported(true);
+            dispatcher.setLoadOnStartup(1);
+            dispatcher.addMapping("/");
+        });
+        servletServer.start();
+
+        reactiveServer = new ReactiveProgressServer(
+                new ReactiveProgressStream(progressEventService, objectMapper, 256, 15_000), 0);
+        httpClient = HttpClient.newBuilder().connectTimeout(STREAM_TIMEOUT).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        reactiveServer.close();
+        servletServer.stop();
+        servletContext.close();
+        broadcaster.close();
+        heartbeatScheduler.close();
+    }
+
+    @Benchmark
+    public long servlet() throws InterruptedException {
+        return runStreams("servlet", servletServer.getPort());
+    }
+
+    @Benchmark
+    public long reactive() throws InterruptedException {
+        return runStreams("reactive", reactiveServer.getPort());
+    }
+
+    private long runStreams(String name, int port) throws InterruptedException {
+        String userId = "bench-stream-" + UUID.randomUUID();
+        String taskId = UUID.randomUUID().toString();
+        URI uri = URI.create("http://localhost:" + port + "/api/v2/progress/subscribe?userId=" + userId);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        CountDownLatch connected = new CountDownLatch(connections);
+        CountDownLatch completed = new CountDownLatch(connections);
+        List<StreamClient> clients = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                StreamClient client = new StreamClient(connected, completed);
+                clients.add(client);
+                httpClient.sendAsync(HttpRequest.newBuilder(uri).GET().build(),
+                        HttpResponse.BodyHandlers.fromLineSubscriber(client));
+            }
+            if (!connected.await(STREAM_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(name + ": 연결 " + connected.getCount() + "개 수립 실패");
+            }
+
+            System.gc();
+            int threadDelta = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+            long heapDelta = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+            System.out.printf("%n[%s] connections=%d, threadDelta=%d, heapBytesPerConnection=%d%n",
+                    name, connections, threadDelta, heapDelta / connections);
+
+            progressEventService.publishStarted(taskId, userId, events);
+            for (int step = 1; step <= events; step++) {
+                progressEventService.publishProgress(taskId, userId, step, events, "벤치마크");
+            }
+            progressEventService.publishCompleted(taskId, userId, events);
+            if (!completed.await(STREAM_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException(name + ": completed 미수신 연결 " + completed.getCount() + "개");
+            }
+
+            long received = 0;
+            for (StreamClient client : clients) {
+                received += client.received;
+            }
+            return received;
+        } finally {
+            clients.forEach(StreamClient::close);
+        }
+    }
+
+    /**
+     * 서블릿 쪽 최소 구성 (애플리케이션의 /subscribe 와 같은 경로/동작)
+     */
+    @Configuration
+    @EnableWebMvc
+    static class ServletConfig {
+
+        @RestController
+        static class SubscribeController {
+
+            private final ProgressSSEManager sseManager;
+
+            SubscribeController(ProgressSSEManager sseManager) {
+                this.sseManager = sseManager;
+            }
+
+            @GetMapping("/api/v2/progress/subscribe")
+            SseEmitter subscribe(@RequestParam String userId) {
+                return sseManager.createConnection(userId, null);
+            }
+        }
+    }
+
+    /**
+     * 이벤트 라인만 세는 SSE 클라이언트 (completed 수신 시 latch 감소)
+     */
+    private static final class StreamClient implements Flow.Subscriber<String> {
+
+        private final CountDownLatch connected;
+        private final CountDownLatch completed;
+        private volatile Flow.Subscription subscription;
+        private volatile long received;
+
+        StreamClient(CountDownLatch connected, CountDownLatch completed) {
+            this.connected = connected;
+            this.completed = completed;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            // 응답 헤더 수신 후 호출 → 연결 수립
+            this.subscription = subscription;
+            connected.countDown();
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (!line.startsWith("data:")) {
+                return;
+            }
+            received++;
+            if (line.contains("\"COMPLETED\"")) {
+                completed.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void close() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.open.common.sse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 하트비트 + 끊긴 연결 정리 (모든 SseEmitter 공용)
+ *
+ * 문제:
+ * - 클라이언트가 사라져도 다음 send 가 실패할 때까지 서버는 모름
+ * - 프록시 뒤의 유휴 연결은 SSE_TIMEOUT(1시간)까지 메모리와 구독을 붙잡음
+ *
+ * 해시 타이밍 휠:
+ * - 연결마다 타이머를 두지 않고, tick 단위 슬롯 배열 하나에 연결을 등록
+ * - 스케줄러 스레드 하나가 tick 마다 현재 슬롯만 꺼내 처리 (등록/재등록 O(1))
+ * - 지연은 항상 interval 이하이고 휠 크기가 그보다 크므로 회전 수(rounds) 관리 불필요
+ *
+ * 처리:
+ * - 슬롯에서 꺼낸 연결 중 interval 동안 전송이 없던 연결에만 주석(: hb) 하트비트 전송
+ * - 최근에 이벤트를 보낸 연결은 남은 시간만큼 뒤 슬롯으로 재등록 (하트비트 생략)
+ * - 하트비트는 BATCH_SIZE 단위로 전송 스레드에 넘김 (느린 소켓이 휠을 막지 않도록)
+ * - 전송 실패 시 즉시 onDead 콜백 호출 후 emitter 종료 (구독 해제 등 정리)
+ */
+@Component
+public class SseHeartbeatScheduler implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SseHeartbeatScheduler.class);
+
+    private static final int BATCH_SIZE = 256;
+    private static final String HEARTBEAT_COMMENT = "hb";
+
+    // 히스토그램 구간 상한 (밀리초)
+    private static final long[] AGE_BUCKETS = {60_000L, 300_000L, 900_000L, 3_600_000L};
+    private static final long[] IDLE_BUCKETS = {5_000L, 15_000L, 30_000L, 60_000L};
+
+    private final long intervalMillis;
+    private final long tickMillis;
+
+    private final List<Queue<Connection>> wheel;
+    private final int mask;
+    private volatile long currentTick;
+
+    // 등록된 전체 연결 (통계용)
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong heartbeatCount = new AtomicLong();
+    private final AtomicLong reapedCount = new AtomicLong();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "sse-heartbeat-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService sender;
+
+    public SseHeartbeatScheduler(
+            @Value("${sse.heartbeat.interval-millis:15000}") long intervalMillis,
+            @Value("${sse.heartbeat.tick-millis:500}") long tickMillis,
+            @Value("${sse.heartbeat.sender-threads:2}") int senderThreads) {
+        this.intervalMillis = intervalMillis;
+        this.tickMillis = tickMillis;
+
+        // interval 을 덮는 2의 거듭제곱 크기 (슬롯 = tick & mask)
+        int slots = Integer.highestOneBit((int) (intervalMillis / tickMillis) + 1) << 1;
+        List<Queue<Connection>> slotQueues = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            slotQueues.add(new ConcurrentLinkedQueue<>());
+        }
+        this.wheel = List.copyOf(slotQueues);
+        this.mask = slots - 1;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, r -> {
+            Thread thread = new Thread(r, "sse-heartbeat-sender-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tickQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 연결 등록
+     *
+     * @param name   로그/식별용 이름 (emitterId 등)
+     * @param onDead 하트비트 전송 실패 시 호출 (구독 해제, 맵 정리)
+     * @return 이벤트 전송 시 touch, 연결 종료 시 cancel 호출
+     */
+    public Connection register(String name, SseEmitter emitter, Runnable onDead) {
+        Connection connection = new Connection(name, emitter, onDead, System.currentTimeMillis());
+        connections.add(connection);
+        schedule(connection, intervalMillis);
+        return connection;
+    }
+
+    private void schedule(Connection connection, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        wheel.get((int) ((currentTick + ticks) & mask)).add(connection);
+    }
+
+    // ==================== 휠 처리 ====================
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (Exception e) {
+            log.error("[SseHeartbeat] tick 처리 실패", e);
+        }
+    }
+
+    private void tick() {
+        long tick = currentTick + 1;
+        currentTick = tick;
+        Queue<Connection> slot = wheel.get((int) (tick & mask));
+
+        long now = System.currentTimeMillis();
+        List<Connection> due = new ArrayList<>();
+        Connection connection;
+        while ((connection = slot.poll()) != null) {
+            if (connection.cancelled) {
+                continue;
+            }
+            long idle = now - connection.lastActivityMillis;
+            if (idle + tickMillis / 2 >= intervalMillis) {
+                due.add(connection);
+            } else {
+                // 그 사이 이벤트가 전송됨 → 남은 시간 뒤에 다시 확인
+                schedule(connection, intervalMillis - idle);
+            }
+        }
+
+        for (int from = 0; from < due.size(); from += BATCH_SIZE) {
+            List<Connection> batch = due.subList(from, Math.min(from + BATCH_SIZE, due.size()));
+            try {
+                sender.execute(() -> sendHeartbeats(batch));
+            } catch (RejectedExecutionException e) {
+                // 종료 중
+                return;
+            }
+        }
+    }
+
+    private void sendHeartbeats(List<Connection> batch) {
+        for (Connection connection : batch) {
+            if (connection.cancelled) {
+                continue;
+            }
+            try {
+                connection.emitter.send(SseEmitter.event().comment(HEARTBEAT_COMMENT));
+                connection.touch();
+                heartbeatCount.incrementAndGet();
+                schedule(connection, intervalMillis);
+            } catch (Exception e) {
+                reap(connection, e);
+            }
+        }
+    }
+
+    /**
+     * 끊긴 연결 정리 (소유자 콜백 → emitter 종료)
+     */
+    private void reap(Connection connection, Exception cause) {
+        if (!connection.cancel()) {
+            return;
+        }
+        reapedCount.incrementAndGet();
+        log.info("[SseHeartbeat] 끊긴 연결 정리: {}, age={}ms, cause={}",
+                connection.name, System.currentTimeMillis() - connection.createdAtMillis, cause.toString());
+        try {
+            connection.onDead.run();
+        } catch (Exception e) {
+            log.warn("[SseHeartbeat] 정리 콜백 실패: {}", connection.name, e);
+        }
+        try {
+            connection.emitter.completeWithError(cause);
+        } catch (Exception ignored) {
+            // 이미 종료된 emitter
+        }
+    }
+
+    // ==================== 통계 ====================
+
+    /**
+     * 누적 하트비트 전송 수 (메트릭 수집용, 분포 계산 없음)
+     */
+    public long getHeartbeatCount() {
+        return heartbeatCount.get();
+    }
+
+    /**
+     * 누적 정리(전송 실패) 연결 수 (메트릭 수집용)
+     */
+    public long getReapedCount() {
+        return reapedCount.get();
+    }
+
+    /**
+     * 연결 나이/유휴 시간 분포 + 누적 지표 (모니터링용)
+     */
+    public HeartbeatStats getStats() {
+        long now = System.currentTimeMillis();
+        long[] age = new long[AGE_BUCKETS.length + 1];
+        long[] idle = new long[IDLE_BUCKETS.length + 1];
+        for (Connection connection : connections) {
+            age[bucketOf(AGE_BUCKETS, now - connection.createdAtMillis)]++;
+            idle[bucketOf(IDLE_BUCKETS, now - connection.lastActivityMillis)]++;
+        }
+        return new HeartbeatStats(
+                connections.size(),
+                heartbeatCount.get(),
+                reapedCount.get(),
+                histogram(AGE_BUCKETS, age),
+                histogram(IDLE_BUCKETS, idle)
+        );
+    }
+
+    private static int bucketOf(long[] bounds, long value) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (value < bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length;
+    }
+
+    private static Map<String, Long> histogram(long[] bounds, long[] counts) {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i++) {
+            histogram.put("<" + (bounds[i] / 1000) + "s", counts[i]);
+        }
+        histogram.put(">=" + (bounds[bounds.length - 1] / 1000) + "s", counts[bounds.length]);
+        return histogram;
+    }
+
+    /**
+     * 하트비트 통계
+     *
+     * @param ageHistogram  연결 생성 후 경과 시간 분포
+     * @param idleHistogram 마지막 전송 후 경과 시간 분포
+     */
+    public record HeartbeatStats(
+            int connections,
+            long heartbeatsSent,
+            long reaped,
+            Map<String, Long> ageHistogram,
+            Map<String, Long> idleHistogram
+    ) {}
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        sender.shutdownNow();
+    }
+
+    /**
+     * 휠에 등록된 연결
+     */
+    public final class Connection {
+
+        private final String name;
+        private final SseEmitter emitter;
+        private final Runnable onDead;
+        private final long createdAtMillis;
+        private volatile long lastActivityMillis;
+        private volatile boolean cancelled;
+
+        private Connection(String name, SseEmitter emitter, Runnable onDead, long createdAtMillis) {
+            this.name = name;
+            this.emitter = emitter;
+            this.onDead = onDead;
+            this.createdAtMillis = createdAtMillis;
+            this.lastActivityMillis = createdAtMillis;
+        }
+
+        /**
+         * 이벤트 전송 시 호출 (다음 하트비트를 미룸)
+         */
+        public void touch() {
+            lastActivityMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * 연결 종료 시 호출 (슬롯 항목은 다음 tick 에 버려짐)
+         *
+         * @return 처음 취소한 경우 true
+         */
+        public boolean cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return false;
+                }
+                cancelled = true;
+            }
+            connections.remove(this);
+            return true;
+        }
+    }
+}
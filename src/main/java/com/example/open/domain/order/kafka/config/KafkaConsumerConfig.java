@@ -1,5 +1,7 @@
 package com.example.open.domain.order.kafka.config;
 
+import com.example.open.domain.order.kafka.consumer.OffsetCommitManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,15 +11,17 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 /**
  * 기본 Kafka Consumer 설정
  *
  * 에러 핸들러가 적용된 Consumer Factory 제공
- * - 자동 재시도 (3회, 지수 백오프)
+ * - 실패 시 재시도 토픽 전송 (retry-1s → retry-10s → retry-1m, 원본 파티션 대기 없음)
  * - DLT 전송
  * - 로깅 및 알람
  */
@@ -34,7 +38,8 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        // 자동 커밋은 처리 완료와 무관하게 주기적으로 커밋 → 컨테이너/OffsetCommitManager 가 처리 후 커밋
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
@@ -42,9 +47,10 @@ public class KafkaConsumerConfig {
      * 에러 핸들러가 적용된 Listener Factory
      *
      * 이 Factory를 사용하는 @KafkaListener는 자동으로:
-     * - 3회 재시도 (1초 → 2초 → 4초)
-     * - 실패 시 DLT 전송
+     * - 실패 시 재시도 토픽 전송 (order.retry.topics 토픽만, 그 외는 바로 DLT)
+     * - 최종 실패 시 DLT 전송
      * - 로깅 및 알람 발생
+     * - 오프셋은 컨테이너가 poll 1회분 처리 후 커밋 (AckMode.BATCH)
      */
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
@@ -59,4 +65,108 @@ public class KafkaConsumerConfig {
 
         return factory;
     }
+
+    /**
+     * 주문 컨슈머 오프셋 커밋 관리 (order / batch Listener Factory 공유)
+     */
+    @Bean
+    public OffsetCommitManager orderCommitManager(
+            MeterRegistry meterRegistry,
+            @Value("${order.commit.batch-size:100}") int batchSize,
+            @Value("${order.commit.interval-millis:1000}") long intervalMillis,
+            @Value("${order.commit.revoke-wait-millis:10000}") long revokeWaitMillis) {
+        return new OffsetCommitManager(batchSize, intervalMillis, revokeWaitMillis, meterRegistry);
+    }
+
+    /**
+     * 주문 컨슈머용 Listener Factory (OrderConsumer, OrderConsumerV2)
+     *
+     * 처리 완료 전에 커밋되면 안 되므로
+     * - AckMode.MANUAL (컨테이너는 커밋하지 않음)
+     * - 커밋은 OffsetCommitManager 가 연속 완료 구간만, 건수/시간 주기로 비동기 (리스너 호출/유휴 이벤트 시)
+     * - 리밸런스/종료 시 진행 중 레코드를 기다린 후 동기 커밋
+     * 리스너는 실패 레코드를 직접 RetryTopicRouter 로 넘긴 후 완료 표시 (에러 핸들러가 복구한 레코드는 커밋 추적 밖)
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> orderListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory,
+            CommonErrorHandler kafkaErrorHandler,
+            OffsetCommitManager orderCommitManager,
+            @Value("${order.commit.interval-millis:1000}") long intervalMillis) {
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(kafkaErrorHandler);
+        applyManualCommit(factory.getContainerProperties(), orderCommitManager, intervalMillis);
+
+        return factory;
+    }
+
+    /**
+     * 재시도 토픽 Listener Factory (order-events-retry-1s 등)
+     *
+     * 리스너가 처리 가능 시각까지 기다린 후 처리 (RetryTopicRouter.awaitDue)
+     * → poll 1회분 대기 시간이 max.poll.interval.ms 를 넘지 않도록 max.poll.records 를 작게
+     * 커밋은 orderListenerContainerFactory 와 같은 OffsetCommitManager
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> orderRetryListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory,
+            CommonErrorHandler kafkaErrorHandler,
+            OffsetCommitManager orderCommitManager,
+            @Value("${order.commit.interval-millis:1000}") long intervalMillis,
+            @Value("${order.retry.max-poll-records:50}") int maxPollRecords) {
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(kafkaErrorHandler);
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        applyManualCommit(factory.getContainerProperties(), orderCommitManager, intervalMillis);
+
+        return factory;
+    }
+
+    /**
+     * 배치 Listener Factory (poll 1회분을 List<ConsumerRecord> 로 전달)
+     *
+     * 커밋은 orderListenerContainerFactory 와 같은 OffsetCommitManager (배치 처리 후 완료 표시)
+     * max.poll.records 로 배치 크기 상한 지정
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory,
+            CommonErrorHandler kafkaErrorHandler,
+            OffsetCommitManager orderCommitManager,
+            @Value("${order.commit.interval-millis:1000}") long intervalMillis,
+            @Value("${order.v2.batch-listener.max-poll-records:500}") int maxPollRecords) {
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+
+        factory.setConsumerFactory(consumerFactory);
+        factory.setCommonErrorHandler(kafkaErrorHandler);
+        factory.setBatchListener(true);
+
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(overrides);
+        applyManualCommit(factory.getContainerProperties(), orderCommitManager, intervalMillis);
+
+        return factory;
+    }
+
+    private static void applyManualCommit(ContainerProperties containerProperties,
+                                          OffsetCommitManager commitManager, long intervalMillis) {
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setConsumerRebalanceListener(commitManager);
+        // 새 레코드가 없는 동안에도 완료분을 커밋하도록 유휴 이벤트 발생
+        containerProperties.setIdleEventInterval(intervalMillis);
+    }
 }
@@ -1,23 +1,30 @@
 package com.example.open.domain.order.kafka.config;
 
-import com.example.open.domain.order.kafka.handler.KafkaFailureAlertService;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
+import com.example.open.domain.order.kafka.handler.RetryTier;
+import com.example.open.domain.order.kafka.handler.RetryTopicRouter;
+import org.apache.kafka.clients.admin.NewTopic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.CommonErrorHandler;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
-import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Kafka Consumer 에러 처리 설정
  *
- * 재시도 전략:
- * - 최대 3회 재시도
- * - 지수 백오프: 1초 → 2초 → 4초
+ * 재시도 전략 (비차단):
+ * - 제자리 재시도(백오프 대기) 없음 → 실패 레코드가 원본 파티션을 막지 않음
+ * - 실패 즉시 재시도 토픽으로 전송: retry-1s → retry-10s → retry-1m (RetryTopicRouter)
  * - 최종 실패 시: DLT 전송 + 로깅 + 알람
  */
 @Configuration
@@ -25,17 +32,11 @@ public class KafkaErrorHandlerConfig {
 
     private static final Logger log = LoggerFactory.getLogger(KafkaErrorHandlerConfig.class);
 
-    private final KafkaFailureAlertService alertService;
-
-    public KafkaErrorHandlerConfig(KafkaFailureAlertService alertService) {
-        this.alertService = alertService;
-    }
-
     /**
      * Dead Letter Topic Recoverer
      *
      * 최종 실패한 메시지를 원본토픽-dlt로 전송
-     * 예: order-events → order-events-dlt
+     * 예: order-events → order-events-dlt (order-events-retry-1m 레코드도 order-events-dlt)
      */
     @Bean
     public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(
@@ -44,70 +45,48 @@ public class KafkaErrorHandlerConfig {
         return new DeadLetterPublishingRecoverer(kafkaTemplate,
                 (record, exception) -> {
                     // DLT 토픽명: 원본토픽-dlt
-                    String dltTopic = record.topic() + "-dlt";
+                    String originalTopic = RetryTopicRouter.originalTopic(record);
+                    String dltTopic = originalTopic + "-dlt";
+                    // 재시도 토픽 레코드는 파티션 수가 다를 수 있으므로 키로 파티션 결정 (-1)
+                    int partition = originalTopic.equals(record.topic()) ? record.partition() : -1;
 
                     log.error("[DLT] 메시지를 Dead Letter Topic으로 전송: topic={}, partition={}, offset={}, dlt={}",
                             record.topic(), record.partition(), record.offset(), dltTopic);
 
-                    return new org.apache.kafka.common.TopicPartition(dltTopic, record.partition());
+                    return new org.apache.kafka.common.TopicPartition(dltTopic, partition);
                 });
     }
 
     /**
      * 기본 에러 핸들러
      *
-     * 재시도 + DLT + 로깅/알람 통합 처리
+     * 리스너가 던진 예외는 제자리 재시도 없이 바로 RetryTopicRouter 로 전달 (재시도 토픽 또는 DLT + 알람)
+     * 전송 자체가 실패하면 recover 가 예외를 던지고, 에러 핸들러가 같은 레코드로 다시 seek 하여 재처리
      */
     @Bean
-    public CommonErrorHandler kafkaErrorHandler(
-            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer) {
-
-        // 지수 백오프 설정: 1초 시작, 2배씩 증가, 최대 3회
-        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(3);
-        backOff.setInitialInterval(1000L);  // 첫 재시도: 1초 후
-        backOff.setMultiplier(2.0);         // 2배씩 증가
-        backOff.setMaxInterval(10000L);     // 최대 대기: 10초
-
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(
-                (consumerRecord, exception) -> {
-                    // DLT 전송
-                    deadLetterPublishingRecoverer.accept(consumerRecord, exception);
-
-                    // 로깅 및 알람 처리
-                    handleFinalFailure(consumerRecord, exception);
-                },
-                backOff
+    public CommonErrorHandler kafkaErrorHandler(RetryTopicRouter retryTopicRouter) {
+        return new DefaultErrorHandler(
+                retryTopicRouter::recover,
+                new FixedBackOff(0L, 0L)
         );
-
-        // 재시도 로깅
-        errorHandler.setRetryListeners((record, ex, deliveryAttempt) -> {
-            log.warn("[Kafka Retry] 재시도 #{}: topic={}, partition={}, offset={}, error={}",
-                    deliveryAttempt,
-                    record.topic(),
-                    record.partition(),
-                    record.offset(),
-                    ex.getMessage());
-        });
-
-        return errorHandler;
     }
 
     /**
-     * 최종 실패 처리: 로깅 + 알람
+     * 재시도 단계 토픽 생성 (order.retry.topics 토픽마다 retry-1s / retry-10s / retry-1m)
      */
-    private void handleFinalFailure(ConsumerRecord<?, ?> record, Exception exception) {
-        // 상세 로깅
-        log.error("[Kafka Final Failure] 메시지 처리 최종 실패!");
-        log.error("  Topic     : {}", record.topic());
-        log.error("  Partition : {}", record.partition());
-        log.error("  Offset    : {}", record.offset());
-        log.error("  Key       : {}", record.key());
-        log.error("  Value     : {}", record.value());
-        log.error("  Timestamp : {}", record.timestamp());
-        log.error("  Exception : {}", exception.getClass().getSimpleName());
-        log.error("  Message   : {}", exception.getMessage());
-
-        // 알람 서비스 호출
-        alertService.sendAlert(record, exception);
+    @Bean
+    public KafkaAdmin.NewTopics retryTopics(
+            @Value("${order.retry.topics:order-events,order-events-v2}") List<String> topics,
+            @Value("${order.retry.partitions:3}") int partitions) {
+        List<NewTopic> retryTopics = new ArrayList<>();
+        for (String topic : topics) {
+            for (RetryTier tier : RetryTier.values()) {
+                retryTopics.add(TopicBuilder.name(tier.topicFor(topic))
+                        .partitions(partitions)
+                        .replicas(1)
+                        .build());
+            }
+        }
+        return new KafkaAdmin.NewTopics(retryTopics.toArray(NewTopic[]::new));
     }
 }
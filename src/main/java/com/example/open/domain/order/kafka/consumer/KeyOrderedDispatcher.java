@@ -0,0 +1,157 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 키 순서 보장 병렬 실행기
+ *
+ * 같은 파티션 안에서도 키가 다르면 동시에, 키가 같으면 도착 순서대로 하나씩 실행
+ * (order-events 는 userId 키 → 사용자별 주문 순서는 유지하면서 파티션 수 이상으로 병렬 처리)
+ *
+ * - 작업은 CompletionStage 를 반환 (단계별 스레드로 넘어가는 비동기 처리 가능), 완료 시점이 곧 작업 종료
+ * - 키별 대기열: 실행 중인 작업이 있는 키의 작업은 대기열에 쌓았다가 앞 작업이 끝나면 이어서 제출
+ *   (한 키가 워커를 독점하지 않도록 작업 하나마다 다시 제출)
+ * - 키가 null 이면 순서 제약 없이 바로 제출
+ * - maxInFlight: 제출 후 끝나지 않은 작업 수 상한, 초과 시 dispatch 호출 스레드(리스너)가 대기
+ *   → 처리보다 빠르게 poll 해서 메모리에 무한히 쌓이지 않음
+ */
+public class KeyOrderedDispatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedDispatcher.class);
+
+    private final ExecutorService workers;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    // 키 -> 실행 중인 작업 뒤에 대기 중인 작업 (키가 있으면 실행 중인 작업 존재)
+    private final Map<String, Deque<Supplier<? extends CompletionStage<?>>>> pendingByKey = new HashMap<>();
+
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    public KeyOrderedDispatcher(String name, int threads, int maxInFlight) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * 작업 제출 (같은 키는 앞 작업의 CompletionStage 가 끝난 뒤 제출 순서대로 실행)
+     *
+     * 작업이 던지거나 실패로 끝난 예외는 로그만 남김 → 실패 처리는 작업 안에서
+     *
+     * @throws InterruptedException maxInFlight 대기 중 인터럽트
+     */
+    public void dispatch(String key, Supplier<? extends CompletionStage<?>> task) throws InterruptedException {
+        inFlight.acquire();
+        if (key == null) {
+            workers.execute(() -> run(null, task));
+            return;
+        }
+        synchronized (pendingByKey) {
+            Deque<Supplier<? extends CompletionStage<?>>> pending = pendingByKey.get(key);
+            if (pending != null) {
+                pending.addLast(task);
+                return;
+            }
+            pendingByKey.put(key, new ArrayDeque<>());
+        }
+        workers.execute(() -> run(key, task));
+    }
+
+    private void run(String key, Supplier<? extends CompletionStage<?>> task) {
+        CompletionStage<?> stage;
+        try {
+            stage = task.get();
+        } catch (Throwable t) {
+            stage = CompletableFuture.failedFuture(t);
+        }
+        stage.whenComplete((result, failure) -> finish(key, failure));
+    }
+
+    private void finish(String key, Throwable failure) {
+        if (failure == null) {
+            completedCount.incrementAndGet();
+        } else {
+            failedCount.incrementAndGet();
+            log.error("[KeyOrderedDispatcher] 작업 실패: key={}", key, failure);
+        }
+        if (key != null) {
+            runNext(key);
+        }
+        // 다음 작업 제출까지 끝낸 후 반환 → close 가 permit 을 모두 얻으면 대기열도 비어 있음
+        inFlight.release();
+    }
+
+    private void runNext(String key) {
+        Supplier<? extends CompletionStage<?>> next;
+        synchronized (pendingByKey) {
+            Deque<Supplier<? extends CompletionStage<?>>> pending = pendingByKey.get(key);
+            next = pending.pollFirst();
+            if (next == null) {
+                pendingByKey.remove(key);
+            }
+        }
+        if (next != null) {
+            workers.execute(() -> run(key, next));
+        }
+    }
+
+    /**
+     * 실행 통계 (모니터링용)
+     */
+    public DispatcherStats getStats() {
+        int activeKeys;
+        synchronized (pendingByKey) {
+            activeKeys = pendingByKey.size();
+        }
+        return new DispatcherStats(maxInFlight - inFlight.availablePermits(), activeKeys,
+                completedCount.get(), failedCount.get());
+    }
+
+    public record DispatcherStats(
+            int inFlight,
+            int activeKeys,
+            long completed,
+            long failed
+    ) {}
+
+    /**
+     * 실행/대기 중인 작업이 끝나길 잠시 기다린 후 종료 (리스너 컨테이너가 먼저 멈춘 뒤 호출)
+     */
+    @Override
+    public void close() {
+        try {
+            // 대기열 작업은 앞 작업이 끝날 때 제출되므로 executor 를 닫기 전에 permit 이 모두 돌아오길 기다림
+            if (inFlight.tryAcquire(maxInFlight, 30, TimeUnit.SECONDS)) {
+                inFlight.release(maxInFlight);
+            } else {
+                log.warn("[KeyOrderedDispatcher] 종료 대기 초과: 미완료 {}건", maxInFlight - inFlight.availablePermits());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdownNow();
+    }
+}
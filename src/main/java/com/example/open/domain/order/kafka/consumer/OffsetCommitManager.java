@@ -0,0 +1,392 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ConsumerStoppingEvent;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 주문 컨슈머 오프셋 커밋 관리 (enable.auto.commit=false, AckMode.MANUAL 컨테이너용)
+ *
+ * 파티션별로 처리 완료 오프셋을 추적하고, 앞 오프셋이 모두 끝난 구간(연속 완료 구간)까지만 커밋
+ * 예: 10, 11, 12 등록 → 12, 10 완료 → 11 커밋(다음에 읽을 오프셋) → 11 완료 → 13 커밋
+ * → 처리 전에 커밋되는 레코드가 없음 (at-least-once)
+ *
+ * 커밋 주기: 레코드마다 커밋하지 않고 파티션별로
+ * - 마지막 커밋 이후 완료 batchSize 건 이상 또는 intervalMillis 경과 시 비동기 커밋 (maybeCommit)
+ * - 새 레코드가 없는 동안에는 유휴 이벤트(idleEventInterval)에서 같은 조건으로 커밋
+ * - 파티션 회수(리밸런스) / 컨슈머 종료 시 진행 중인 레코드를 잠시 기다린 후 동기 커밋
+ *   (기다려도 끝나지 않은 레코드는 다음 소유자가 다시 처리)
+ *
+ * 다시 전달 (Ticket.redeliver): 처리도 실패 라우팅(재시도 토픽/DLT)도 못 한 레코드
+ * - 그 오프셋 앞까지만 커밋하고, 다음 maybeCommit 에서 그 오프셋으로 seek → 같은 레코드를 다시 poll
+ *   (DefaultErrorHandler 가 recoverer 실패 시 다시 seek 하는 것과 같은 동작, 뒤 레코드도 다시 처리될 수 있음)
+ * - 다시 전달된 레코드는 register 에서 같은 티켓을 받아 처리 결과를 반영
+ * - seek 으로 함께 다시 poll 된 레코드 중 이미 완료했거나 처리 중인 레코드는 register 가 빈 값 → 건너뜀
+ *   (같은 주문이 다시 실행되거나 동시에 두 번 실행되지 않음)
+ *
+ * 스레드:
+ * - register / maybeCommit / 리밸런스·컨테이너 이벤트: 컨슈머 스레드 (KafkaConsumer 는 스레드 안전하지 않음)
+ * - Ticket.complete / redeliver: 처리 스레드 (리스너 스레드 또는 워커)
+ *
+ * 여러 컨테이너가 공유해도 됨 (파티션 단위 상태, 커밋은 호출한 컨슈머가 소유한 파티션만)
+ *
+ * 메트릭: order.commit.async / order.commit.sync / order.commit.failures / order.commit.redeliveries
+ */
+public class OffsetCommitManager implements ConsumerAwareRebalanceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(OffsetCommitManager.class);
+
+    private final int batchSize;
+    private final long intervalMillis;
+    private final long revokeWaitMillis;
+    private final Map<TopicPartition, PartitionState> partitions = new ConcurrentHashMap<>();
+
+    private final Counter asyncCommits;
+    private final Counter syncCommits;
+    private final Counter commitFailures;
+    private final Counter redeliveries;
+
+    public OffsetCommitManager(int batchSize, long intervalMillis, long revokeWaitMillis, MeterRegistry meterRegistry) {
+        this.batchSize = Math.max(1, batchSize);
+        this.intervalMillis = intervalMillis;
+        this.revokeWaitMillis = revokeWaitMillis;
+        this.asyncCommits = Counter.builder("order.commit.async")
+                .description("주문 컨슈머 비동기 오프셋 커밋 수")
+                .register(meterRegistry);
+        this.syncCommits = Counter.builder("order.commit.sync")
+                .description("주문 컨슈머 동기 오프셋 커밋 수 (파티션 회수/종료)")
+                .register(meterRegistry);
+        this.commitFailures = Counter.builder("order.commit.failures")
+                .description("주문 컨슈머 오프셋 커밋 실패 수")
+                .register(meterRegistry);
+        this.redeliveries = Counter.builder("order.commit.redeliveries")
+                .description("처리/라우팅 실패로 다시 전달받도록 seek 한 횟수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 레코드 등록 (poll 순서대로 호출)
+     *
+     * seek 으로 다시 전달된 레코드는 다시 전달 요청(redeliver)된 티켓만 다시 처리 대기로 돌려줌
+     * 이미 완료했거나(커밋 구간을 지난 오프셋 포함) 처리 중인 티켓이면 빈 값 → 호출자는 처리하지 않음
+     *
+     * @return 처리 완료 시 complete() 를 호출할 티켓, 처리할 필요가 없으면 빈 값
+     */
+    public Optional<Ticket> register(ConsumerRecord<?, ?> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        PartitionState state = partitions.computeIfAbsent(partition, key -> new PartitionState());
+        synchronized (state) {
+            if (record.offset() <= state.lastRegisteredOffset) {
+                Ticket registered = state.find(record.offset());
+                if (registered == null || registered.state != Ticket.REDELIVER) {
+                    return Optional.empty();
+                }
+                registered.state = Ticket.PENDING;
+                return Optional.of(registered);
+            }
+            Ticket ticket = new Ticket(state, record.offset());
+            state.inFlight.addLast(ticket);
+            state.lastRegisteredOffset = record.offset();
+            return Optional.of(ticket);
+        }
+    }
+
+    /**
+     * 커밋 주기(완료 건수/경과 시간)가 된 파티션의 연속 완료 구간을 비동기 커밋
+     *
+     * 리스너 호출마다 불러도 됨 (주기가 안 된 파티션은 건너뜀)
+     */
+    public void maybeCommit(Consumer<?, ?> consumer) {
+        seekRedeliveries(consumer);
+        Map<TopicPartition, OffsetAndMetadata> offsets = collect(consumer.assignment(), false);
+        if (offsets.isEmpty()) {
+            return;
+        }
+        asyncCommits.increment();
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                // 다음 커밋이 더 큰 오프셋을 포함하므로 재시도하지 않음
+                commitFailures.increment();
+                log.warn("[OffsetCommitManager] 비동기 커밋 실패: {}", committed, exception);
+            }
+        });
+        log.debug("[OffsetCommitManager] 커밋 요청: {}", offsets);
+    }
+
+    /**
+     * 다시 전달 요청된 가장 앞 오프셋으로 seek (컨슈머 스레드)
+     */
+    private void seekRedeliveries(Consumer<?, ?> consumer) {
+        for (TopicPartition partition : consumer.assignment()) {
+            PartitionState state = partitions.get(partition);
+            if (state == null || !state.redeliveryRequested) {
+                continue;
+            }
+            long offset = state.firstRedelivery();
+            if (offset >= 0) {
+                consumer.seek(partition, offset);
+                redeliveries.increment();
+                log.warn("[OffsetCommitManager] 처리/라우팅 실패 레코드 다시 전달: {} offset={}", partition, offset);
+            }
+        }
+    }
+
+    /**
+     * 새 레코드가 없는 동안 주기가 된 완료 구간 커밋 (유휴 이벤트는 컨슈머 스레드에서 발생)
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        if (event.getConsumer() != null) {
+            maybeCommit(event.getConsumer());
+        }
+    }
+
+    /**
+     * 컨테이너 종료 직전 (컨슈머 스레드): 진행 중인 레코드를 기다린 후 동기 커밋
+     *
+     * 이후 unsubscribe 로 발생하는 회수 콜백은 커밋할 진행분이 없으면 건너뜀
+     */
+    @EventListener
+    public void onStopping(ConsumerStoppingEvent event) {
+        Consumer<?, ?> consumer = event.getConsumer();
+        if (consumer != null) {
+            commitSyncAfterDrain(consumer, consumer.assignment(), "컨슈머 종료 전");
+        }
+    }
+
+    /**
+     * 파티션별 추적 상태 (모니터링용): 파티션 -> 미완료 레코드 수
+     */
+    public Map<String, Integer> getInFlightByPartition() {
+        Map<String, Integer> result = new HashMap<>();
+        partitions.forEach((partition, state) -> {
+            synchronized (state) {
+                result.put(partition.toString(), state.inFlight.size());
+            }
+        });
+        return result;
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> collect(Collection<TopicPartition> owned, boolean force) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        long now = System.currentTimeMillis();
+        for (TopicPartition partition : owned) {
+            PartitionState state = partitions.get(partition);
+            if (state == null) {
+                continue;
+            }
+            if (!force && state.completedSinceCommit.get() < batchSize
+                    && now - state.lastCommitMillis < intervalMillis) {
+                continue;
+            }
+            long next = state.advance();
+            state.lastCommitMillis = now;
+            if (next > state.committedOffset) {
+                state.committedOffset = next;
+                state.completedSinceCommit.set(0);
+                offsets.put(partition, new OffsetAndMetadata(next));
+            }
+        }
+        return offsets;
+    }
+
+    private void commitSyncAfterDrain(Consumer<?, ?> consumer, Collection<TopicPartition> owned, String reason) {
+        long deadline = System.currentTimeMillis() + revokeWaitMillis;
+        for (TopicPartition partition : owned) {
+            PartitionState state = partitions.get(partition);
+            if (state != null) {
+                state.awaitDrained(deadline);
+            }
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = collect(owned, true);
+        if (offsets.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(offsets);
+            syncCommits.increment();
+            log.info("[OffsetCommitManager] {} 커밋: {}", reason, offsets);
+        } catch (RuntimeException e) {
+            commitFailures.increment();
+            log.warn("[OffsetCommitManager] {} 커밋 실패: {}", reason, offsets, e);
+        }
+    }
+
+    // ==================== 리밸런스 ====================
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        commitSyncAfterDrain(consumer, partitions, "파티션 회수 전");
+        forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // 이미 다른 컨슈머 소유 → 커밋하지 않고 추적만 종료
+        forget(partitions);
+    }
+
+    private void forget(Collection<TopicPartition> revoked) {
+        for (TopicPartition partition : revoked) {
+            PartitionState state = this.partitions.remove(partition);
+            if (state != null) {
+                int remaining;
+                synchronized (state) {
+                    remaining = state.inFlight.size();
+                }
+                if (remaining > 0) {
+                    log.warn("[OffsetCommitManager] 미완료 레코드 {}건을 남기고 파티션 회수: {}", remaining, partition);
+                }
+            }
+        }
+    }
+
+    /**
+     * 파티션 하나의 미완료 레코드 (오프셋 오름차순)
+     */
+    private static final class PartitionState {
+        private final Deque<Ticket> inFlight = new ArrayDeque<>();
+        // 마지막 커밋 이후 완료된 레코드 수 (처리 스레드에서 증가)
+        private final AtomicInteger completedSinceCommit = new AtomicInteger();
+        private long lastRegisteredOffset = -1;
+        // 마지막으로 커밋한 "다음에 읽을 오프셋" / 커밋 시도 시각 (컨슈머 스레드 전용)
+        private long committedOffset = -1;
+        private long lastCommitMillis = System.currentTimeMillis();
+        // 다시 전달 요청된 티켓이 있는지 (처리 스레드에서 설정, 컨슈머 스레드에서 확인)
+        private volatile boolean redeliveryRequested;
+
+        /**
+         * 앞에서부터 완료된 티켓 제거
+         *
+         * @return 커밋할 오프셋 (완료 구간 다음 오프셋), 진행 없으면 -1
+         */
+        synchronized long advance() {
+            long next = -1;
+            while (!inFlight.isEmpty() && inFlight.peekFirst().state == Ticket.DONE) {
+                next = inFlight.pollFirst().offset + 1;
+            }
+            return next;
+        }
+
+        Ticket find(long offset) {
+            for (Ticket ticket : inFlight) {
+                if (ticket.offset == offset) {
+                    return ticket;
+                }
+            }
+            return null;
+        }
+
+        // 회수 대기(awaitDrained) 중인 컨슈머 스레드 깨움
+        synchronized void completed() {
+            completedSinceCommit.incrementAndGet();
+            notifyAll();
+        }
+
+        synchronized void redeliveryRequested() {
+            redeliveryRequested = true;
+            notifyAll();
+        }
+
+        /**
+         * 다시 전달 요청 확인 (티켓은 seek 후 다시 poll 되어 register 될 때 처리 대기 상태로 돌아감)
+         *
+         * @return 다시 전달 요청된 가장 앞 오프셋, 없으면 -1
+         */
+        synchronized long firstRedelivery() {
+            redeliveryRequested = false;
+            for (Ticket ticket : inFlight) {
+                if (ticket.state == Ticket.REDELIVER) {
+                    return ticket.offset;
+                }
+            }
+            return -1;
+        }
+
+        synchronized void awaitDrained(long deadline) {
+            long remaining;
+            while (!allDone() && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private boolean allDone() {
+            // 다시 전달 요청된 티켓은 더 기다려도 끝나지 않음 (커밋은 그 앞까지)
+            for (Ticket ticket : inFlight) {
+                if (ticket.state == Ticket.PENDING) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 레코드 하나의 처리 결과 표시 (처리 대기 상태에서 한 번만 반영)
+     */
+    public static final class Ticket {
+        private static final int PENDING = 0;
+        private static final int DONE = 1;
+        private static final int REDELIVER = 2;
+
+        private final PartitionState partition;
+        private final long offset;
+        // 상태 변경은 partition 잠금 안에서 (읽기는 잠금 없이)
+        private volatile int state = PENDING;
+
+        private Ticket(PartitionState partition, long offset) {
+            this.partition = partition;
+            this.offset = offset;
+        }
+
+        /**
+         * 처리 완료 (성공 또는 재시도 토픽/DLT 로 넘김) → 커밋 가능
+         */
+        public void complete() {
+            synchronized (partition) {
+                if (state != PENDING) {
+                    return;
+                }
+                state = DONE;
+                partition.completed();
+            }
+        }
+
+        /**
+         * 처리도 실패 라우팅도 못 함 → 커밋하지 않고 컨슈머 스레드가 이 오프셋으로 다시 seek
+         */
+        public void redeliver() {
+            synchronized (partition) {
+                if (state != PENDING) {
+                    return;
+                }
+                state = REDELIVER;
+                partition.redeliveryRequested();
+            }
+        }
+    }
+}
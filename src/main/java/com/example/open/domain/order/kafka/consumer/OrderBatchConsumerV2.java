@@ -0,0 +1,331 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import com.example.open.domain.order.kafka.dto.OrderRequest;
+import com.example.open.domain.order.kafka.eventsourcing.ProgressEvent;
+import com.example.open.domain.order.kafka.eventsourcing.ProgressEventService;
+import com.example.open.domain.order.kafka.handler.NonRetryableOrderException;
+import com.example.open.domain.order.kafka.handler.RetryTopicRouter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Order Consumer V2 배치 버전 (order.v2.batch-listener.enabled=true)
+ *
+ * OrderConsumerV2 와 같은 토픽/그룹/단계를 처리하되 poll 1회분을 한 번에 처리
+ *
+ * 흐름:
+ * 1. List<ConsumerRecord> 수신 → 일괄 역직렬화
+ * 2. 배치 안의 주문들이 단계를 함께 진행: 단계마다 주문별 작업을 워커(order-batch-worker)에서 동시에 실행하고
+ *    모두 끝나면 다음 단계로 → 배치 처리 시간 ≈ 단계 수 × ⌈주문 수 / 워커 수⌉ × 주문 처리 시간
+ *    (주문 수가 worker-threads 이하일 때만 단계 수 × 가장 느린 주문,
+ *     기본값 max-poll-records 500 / worker-threads 64 에서는 단계마다 약 8차례로 나뉘어 실행)
+ * 3. 단계마다 모든 주문의 이벤트를 모아 ProgressEventService.publishBatch 1회
+ *    → Event Store 저장/구독자 전달 예약이 주문 수가 아니라 단계 수만큼 발생
+ *
+ * 실패 처리: 실패 주문만 재시도 토픽으로 보내고 나머지 주문은 계속 진행
+ * - 파싱 실패: 배치에서 제외
+ * - 단계 실패 (검증 등): FAILED 발행 후 이후 단계에서 제외
+ * - 재시도 토픽(order-events-v2-retry-1s / 10s / 1m) 레코드는 처리 가능 시각이 되면 1건짜리 배치로 처리
+ *   (마지막 단계까지 실패하면 DLT + 알람)
+ *
+ * 오프셋: batchListenerContainerFactory (MANUAL) + OffsetCommitManager
+ * → 주문이 끝나면(완료/실패 라우팅) 바로 완료 표시, 커밋은 건수/시간 주기로 비동기
+ * → 진행률 발행 실패 등 예외로 빠져나오면 끝나지 않은 주문은 커밋하지 않고 다시 전달 요청 (Ticket.redeliver)
+ *   가장 앞 미완료 오프셋으로 seek → 다시 poll 된 배치에서 완료된 주문은 건너뛰고 나머지를 다시 처리 (at-least-once)
+ */
+@Service
+@ConditionalOnProperty(name = "order.v2.batch-listener.enabled", havingValue = "true")
+public class OrderBatchConsumerV2 implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBatchConsumerV2.class);
+    private static final int TOTAL_STEPS = 4;
+
+    private final ProgressEventService progressEventService;
+    private final ObjectMapper objectMapper;
+    private final OffsetCommitManager commitManager;
+    private final RetryTopicRouter retryTopicRouter;
+    private final ExecutorService workers;
+    private final long stepProcessingMillis;
+
+    public OrderBatchConsumerV2(
+            ProgressEventService progressEventService,
+            ObjectMapper objectMapper,
+            OffsetCommitManager orderCommitManager,
+            RetryTopicRouter retryTopicRouter,
+            @Value("${order.v2.batch-listener.worker-threads:64}") int workerThreads,
+            @Value("${order.v2.step-processing-millis:500}") long stepProcessingMillis
+    ) {
+        this.progressEventService = progressEventService;
+        this.objectMapper = objectMapper;
+        this.commitManager = orderCommitManager;
+        this.retryTopicRouter = retryTopicRouter;
+        this.stepProcessingMillis = stepProcessingMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, r -> {
+            Thread thread = new Thread(r, "order-batch-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 주문 이벤트 배치 처리
+     *
+     * 토픽: order-events-v2
+     * 그룹: order-group-v2
+     */
+    @KafkaListener(topics = "order-events-v2", groupId = "order-group-v2",
+            containerFactory = "batchListenerContainerFactory")
+    public void processOrders(List<ConsumerRecord<String, String>> records,
+                              org.apache.kafka.clients.consumer.Consumer<?, ?> consumer) {
+        if (records.isEmpty()) {
+            return;
+        }
+        ConsumerRecord<String, String> first = records.get(0);
+        ConsumerRecord<String, String> last = records.get(records.size() - 1);
+        log.info("[OrderBatchConsumerV2] 배치 수신: {}건, 첫 레코드 partition={} offset={}, 마지막 레코드 partition={} offset={}",
+                records.size(), first.partition(), first.offset(), last.partition(), last.offset());
+
+        // 다시 전달 seek 으로 함께 poll 된 레코드 중 이미 완료했거나 처리 중인 주문은 제외
+        List<ConsumerRecord<String, String>> accepted = new ArrayList<>(records.size());
+        List<OffsetCommitManager.Ticket> tickets = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            commitManager.register(record).ifPresent(ticket -> {
+                accepted.add(record);
+                tickets.add(ticket);
+            });
+        }
+        if (accepted.size() < records.size()) {
+            log.info("[OrderBatchConsumerV2] 이미 처리했거나 처리 중인 레코드 제외: {}건", records.size() - accepted.size());
+        }
+
+        try {
+            // 1. 일괄 역직렬화 (실패 레코드는 DLT)
+            List<PendingOrder> orders = new ArrayList<>(accepted.size());
+            for (int i = 0; i < accepted.size(); i++) {
+                ConsumerRecord<String, String> record = accepted.get(i);
+                OffsetCommitManager.Ticket ticket = tickets.get(i);
+                try {
+                    orders.add(new PendingOrder(record, ticket, objectMapper.readValue(record.value(), OrderRequest.class)));
+                } catch (JsonProcessingException e) {
+                    log.error("[OrderBatchConsumerV2] JSON 파싱 실패: index={}, {}", i, record.value(), e);
+                    fail(record, ticket, new NonRetryableOrderException("주문 파싱 실패: " + record.value(), e));
+                }
+            }
+
+            // 2. 단계별 일괄 처리
+            processBatch(orders);
+        } catch (RuntimeException e) {
+            // 진행률 발행 실패 등: 끝나지 않은 주문은 커밋하지 않고 다시 전달받음 (완료/라우팅된 티켓은 그대로)
+            log.error("[OrderBatchConsumerV2] 배치 처리 실패 → 미완료 주문 다시 전달: {}건", accepted.size(), e);
+            tickets.forEach(OffsetCommitManager.Ticket::redeliver);
+        }
+        commitManager.maybeCommit(consumer);
+    }
+
+    /**
+     * 재시도 토픽 레코드: 처리 가능 시각까지 기다린 후 1건 배치로 처리
+     *
+     * 종료 중이면 처리하지 않음 (커밋되지 않으므로 다음 기동 시 다시 전달)
+     */
+    @KafkaListener(topics = "order-events-v2-retry-1s", groupId = "order-group-v2-retry-1s",
+            containerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(topics = "order-events-v2-retry-10s", groupId = "order-group-v2-retry-10s",
+            containerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(topics = "order-events-v2-retry-1m", groupId = "order-group-v2-retry-1m",
+            containerFactory = "orderRetryListenerContainerFactory")
+    public void processRetry(ConsumerRecord<String, String> record,
+                             org.apache.kafka.clients.consumer.Consumer<?, ?> consumer) {
+        if (retryTopicRouter.awaitDue(record)) {
+            processOrders(List.of(record), consumer);
+        }
+    }
+
+    /**
+     * 주문 배치 처리 (4단계, OrderConsumerV2.processOrderMessage 와 같은 이벤트 순서)
+     */
+    private void processBatch(List<PendingOrder> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        // 작업 시작 + Step 1: 주문 검증 (25%)
+        List<ProgressEvent> events = new ArrayList<>(orders.size() * 2);
+        for (PendingOrder pending : orders) {
+            OrderRequest order = pending.order();
+            events.add(ProgressEvent.started(order.taskId(), order.userId(), TOTAL_STEPS));
+            events.add(ProgressEvent.progress(order.taskId(), order.userId(), 1, TOTAL_STEPS, "주문 검증"));
+        }
+        progressEventService.publishBatch(events);
+        runStep(orders, this::validateOrder);
+
+        // Step 2: 재고 확인 (50%)
+        publishStep(orders, 2, "재고 확인");
+        runStep(orders, this::checkInventory);
+
+        // Step 3: 결제 처리 (75%)
+        publishStep(orders, 3, "결제 처리");
+        runStep(orders, this::processPayment);
+
+        // Step 4: 완료 (100%)
+        events = new ArrayList<>(orders.size());
+        for (PendingOrder pending : orders) {
+            events.add(ProgressEvent.completed(pending.order().taskId(), pending.order().userId(), TOTAL_STEPS));
+        }
+        progressEventService.publishBatch(events);
+        orders.forEach(pending -> pending.ticket().complete());
+        log.info("[OrderBatchConsumerV2] 주문 처리 완료: {}건", orders.size());
+    }
+
+    private void publishStep(List<PendingOrder> orders, int step, String stepName) {
+        List<ProgressEvent> events = new ArrayList<>(orders.size());
+        for (PendingOrder pending : orders) {
+            events.add(ProgressEvent.progress(pending.order().taskId(), pending.order().userId(), step, TOTAL_STEPS, stepName));
+        }
+        progressEventService.publishBatch(events);
+    }
+
+    /**
+     * 남은 주문 전체의 단계 작업(처리 시간 포함)을 워커에서 동시에 실행하고 모두 끝날 때까지 대기
+     *
+     * 실패한 주문은 목록에서 빼고 FAILED 일괄 발행 + 재시도 토픽, 티켓은 바로 완료 표시
+     */
+    private void runStep(List<PendingOrder> orders, Consumer<OrderRequest> step) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(orders.size());
+        for (PendingOrder pending : orders) {
+            futures.add(submit(() -> {
+                step.accept(pending.order());
+                simulateProcessingTime(stepProcessingMillis);
+            }));
+        }
+
+        List<ProgressEvent> failedEvents = new ArrayList<>();
+        List<FailedOrder> failed = new ArrayList<>();
+        Iterator<PendingOrder> iterator = orders.iterator();
+        for (CompletableFuture<Void> future : futures) {
+            PendingOrder pending = iterator.next();
+            RuntimeException failure = await(future);
+            if (failure != null) {
+                iterator.remove();
+                failedEvents.add(ProgressEvent.failed(pending.order().taskId(), pending.order().userId(), failure.getMessage()));
+                failed.add(new FailedOrder(pending, failure));
+            }
+        }
+        try {
+            progressEventService.publishBatch(failedEvents);
+        } finally {
+            for (FailedOrder f : failed) {
+                fail(f.pending().record(), f.pending().ticket(), f.failure());
+            }
+        }
+    }
+
+    /**
+     * 워커에 제출 (종료 중 거부도 실패한 future 로)
+     */
+    private CompletableFuture<Void> submit(Runnable work) {
+        try {
+            return CompletableFuture.runAsync(work, workers);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return 실패 원인, 성공이면 null
+     */
+    private static RuntimeException await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return (cause instanceof RuntimeException runtime) ? runtime : new RuntimeException(cause);
+        } catch (CancellationException e) {
+            return e;
+        }
+    }
+
+    /**
+     * 실패 주문: 다음 재시도 토픽으로 전송 (단계를 모두 거쳤으면 DLT + 알람) 후 티켓 완료
+     *
+     * 전송까지 실패하면 커밋하지 않고 다시 전달받음 (OffsetCommitManager 가 이 오프셋으로 seek)
+     */
+    private void fail(ConsumerRecord<String, String> record, OffsetCommitManager.Ticket ticket, RuntimeException exception) {
+        log.error("[OrderBatchConsumerV2] 주문 처리 실패: topic={}, partition={}, offset={}, key={}, error={}",
+                record.topic(), record.partition(), record.offset(), record.key(), exception.getMessage());
+        try {
+            retryTopicRouter.recover(record, exception);
+            ticket.complete();
+        } catch (RuntimeException routeFailure) {
+            log.error("[OrderBatchConsumerV2] 실패 라우팅 불가 → 다시 전달받아 재처리: offset={}", record.offset(), routeFailure);
+            ticket.redeliver();
+        }
+    }
+
+    private void validateOrder(OrderRequest order) {
+        log.debug("[Step 1] 주문 검증: orderId={}", order.orderId());
+        if (order.quantity() <= 0) {
+            throw new NonRetryableOrderException("유효하지 않은 수량: " + order.quantity());
+        }
+    }
+
+    private void checkInventory(OrderRequest order) {
+        log.debug("[Step 2] 재고 확인: productName={}, quantity={}", order.productName(), order.quantity());
+    }
+
+    private void processPayment(OrderRequest order) {
+        log.debug("[Step 3] 결제 처리: orderId={}", order.orderId());
+    }
+
+    private void simulateProcessingTime(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        // 처리 중인 배치의 단계 작업은 마저 실행 (리스너 컨테이너가 먼저 정지하며 기다림)
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 처리 중인 주문 (재시도 토픽 전송용 원본 레코드, 오프셋 티켓 보관)
+     */
+    private record PendingOrder(ConsumerRecord<String, String> record, OffsetCommitManager.Ticket ticket,
+                                OrderRequest order) {}
+
+    private record FailedOrder(PendingOrder pending, RuntimeException failure) {}
+}
@@ -1,22 +1,46 @@
 package com.example.open.domain.order.kafka.consumer;
 
 import com.example.open.domain.order.kafka.dto.OrderRequest;
+import com.example.open.domain.order.kafka.handler.NonRetryableOrderException;
+import com.example.open.domain.order.kafka.handler.RetryTopicRouter;
 import com.example.open.domain.order.kafka.service.TaskProgressService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 /**
  * Order 이벤트 Consumer
  *
- * kafkaListenerContainerFactory를 사용하여 자동으로:
- * - 재시도 (3회, 지수 백오프)
- * - 실패 시 DLT 전송
- * - 로깅 및 알람
+ * 키 순서 병렬 처리 (orderListenerContainerFactory):
+ * - order-events 는 userId 키 → 같은 사용자 주문은 순서대로, 다른 사용자 주문은 동시에 처리
+ * - 리스너 스레드는 KeyOrderedDispatcher 에 넘기고 바로 다음 레코드로 (파티션 하나도 병렬 처리)
+ * - 오프셋은 OffsetCommitManager 가 연속 완료 구간만 주기적으로 커밋 (처리 전 커밋 없음, at-least-once)
+ * - 처리 실패: 실패 진행률 전송 + 재시도 토픽 전송 (워커 스레드 예외는 컨테이너 에러 핸들러가 받지 못함)
+ *   전송까지 실패하면 오프셋을 커밋하지 않고 다시 전달받음 (유실 없음)
+ *
+ * 재시도 토픽 (order-events-retry-1s / 10s / 1m, 단계별 컨테이너):
+ * - 처리 가능 시각까지 기다린 후 같은 경로(키 순서 실행기 + 파이프라인)로 처리
+ * - 마지막 단계까지 실패하면 DLT + 알람 (RetryTopicRouter)
+ * - 재시도 중인 주문은 같은 키의 이후 주문보다 늦게 처리될 수 있음
+ *
+ * 단계별 파이프라인 (SEDA):
+ * - 검증 / 재고 확인 / 결제 처리가 각자 대기열과 워커를 가진 PipelineStage
+ *   (order.pipeline.{단계}.threads / queue-capacity, 외부 호출 대기 위주인 재고/결제는 워커를 넉넉히)
+ * - 한 단계가 끝나면 그 단계 워커가 진행률을 전송하고 다음 단계 대기열에 넣음 → 대기 중인 스레드 없음
+ * - 같은 키의 다음 주문은 앞 주문이 모든 단계를 마친 뒤 시작 (KeyOrderedDispatcher 가 완료 시점 추적)
  *
  * 4단계 진행률:
  * 1. 주문 검증 (25%)
@@ -25,25 +49,61 @@ import org.springframework.stereotype.Service;
  * 4. 주문 완료 (100%)
  */
 @Service
-public class OrderConsumer {
+public class OrderConsumer implements Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(OrderConsumer.class);
     private static final int TOTAL_STEPS = 4;
+    private static final String LISTENER_ID = "order-consumer";
 
     private final TaskProgressService taskProgressService;
     private final ObjectMapper objectMapper;
+    private final OffsetCommitManager commitManager;
+    private final RetryTopicRouter retryTopicRouter;
+    private final KeyOrderedDispatcher dispatcher;
+    private final PipelineStage validateStage;
+    private final PipelineStage inventoryStage;
+    private final PipelineStage paymentStage;
 
-    public OrderConsumer(TaskProgressService taskProgressService, ObjectMapper objectMapper) {
+    public OrderConsumer(
+            TaskProgressService taskProgressService,
+            ObjectMapper objectMapper,
+            OffsetCommitManager orderCommitManager,
+            RetryTopicRouter retryTopicRouter,
+            MeterRegistry meterRegistry,
+            @Value("${order.key-ordered.threads:4}") int threads,
+            @Value("${order.key-ordered.max-in-flight:1000}") int maxInFlight,
+            @Value("${order.pipeline.validate.threads:4}") int validateThreads,
+            @Value("${order.pipeline.validate.queue-capacity:1000}") int validateQueueCapacity,
+            @Value("${order.pipeline.inventory.threads:32}") int inventoryThreads,
+            @Value("${order.pipeline.inventory.queue-capacity:1000}") int inventoryQueueCapacity,
+            @Value("${order.pipeline.payment.threads:32}") int paymentThreads,
+            @Value("${order.pipeline.payment.queue-capacity:1000}") int paymentQueueCapacity
+    ) {
         this.taskProgressService = taskProgressService;
         this.objectMapper = objectMapper;
+        this.commitManager = orderCommitManager;
+        this.retryTopicRouter = retryTopicRouter;
+        this.dispatcher = new KeyOrderedDispatcher("order-worker", threads, maxInFlight);
+        this.validateStage = new PipelineStage("validate", validateThreads, validateQueueCapacity, meterRegistry);
+        this.inventoryStage = new PipelineStage("inventory", inventoryThreads, inventoryQueueCapacity, meterRegistry);
+        this.paymentStage = new PipelineStage("payment", paymentThreads, paymentQueueCapacity, meterRegistry);
+
+        Gauge.builder("order.consumer.in.flight", dispatcher, d -> d.getStats().inFlight())
+                .description("처리 중/키 대기 중인 주문 수")
+                .register(meterRegistry);
+        Gauge.builder("order.consumer.active.keys", dispatcher, d -> d.getStats().activeKeys())
+                .description("처리 중인 키(userId) 수")
+                .register(meterRegistry);
     }
 
     /**
-     * containerFactory를 명시하지 않으면 기본 kafkaListenerContainerFactory 사용
-     * → KafkaConsumerConfig에서 설정한 에러 핸들러가 자동 적용됨
+     * 레코드를 키 순서 실행기에 넘기고 커밋 주기가 된 완료 구간 커밋
+     *
+     * 실행기가 가득 차면(max-in-flight) 여기서 대기 → poll 속도가 처리 속도를 따라감
      */
-    @KafkaListener(topics = "order-events", groupId = "order-group")
-    public void processOrder(ConsumerRecord<String, String> record) {
+    @KafkaListener(id = LISTENER_ID, topics = "order-events", groupId = "order-group",
+            containerFactory = "orderListenerContainerFactory")
+    public void processOrder(ConsumerRecord<String, String> record, Consumer<?, ?> consumer) throws InterruptedException {
         log.info("========================================");
         log.info("[Order Consumer] Message Received!");
         log.info("  Topic     : {}", record.topic());
@@ -54,55 +114,163 @@ public class OrderConsumer {
         log.info("  Timestamp : {}", record.timestamp());
         log.info("========================================");
 
-        // 비즈니스 로직 처리
-        processOrderMessage(record.value());
+        // 비즈니스 로직 처리 (단계별 워커 스레드), 실패 라우팅까지 끝나야 같은 키의 다음 주문 시작
+        // 다시 전달 seek 으로 함께 poll 된 레코드 중 이미 완료했거나 처리 중인 주문은 건너뜀
+        Optional<OffsetCommitManager.Ticket> registered = commitManager.register(record);
+        if (registered.isEmpty()) {
+            log.info("[Order Consumer] 이미 처리했거나 처리 중인 레코드 건너뜀: partition={}, offset={}",
+                    record.partition(), record.offset());
+            commitManager.maybeCommit(consumer);
+            return;
+        }
+        OffsetCommitManager.Ticket ticket = registered.get();
+        try {
+            dispatcher.dispatch(record.key(), () -> startOrder(record.value())
+                    .handle((result, failure) -> failure)
+                    .thenCompose(failure -> (failure == null)
+                            ? CompletableFuture.completedFuture(null)
+                            : recover(record, unwrap(failure)))
+                    .whenComplete((result, routeFailure) -> settle(record, ticket, routeFailure)));
+        } catch (RuntimeException e) {
+            // 실행기 종료 등으로 제출 실패 → 처리 실패와 같이 처리
+            recover(record, e).whenComplete((result, routeFailure) -> settle(record, ticket, routeFailure));
+        } catch (InterruptedException e) {
+            // 제출 전 중단 → 처리 중으로 남지 않도록 다시 전달 요청
+            ticket.redeliver();
+            throw e;
+        }
+
+        commitManager.maybeCommit(consumer);
+    }
+
+    /**
+     * 처리 결과 반영: 성공 또는 재시도 토픽/DLT 전송 완료 시에만 커밋 가능
+     *
+     * 라우팅까지 실패하면 커밋하지 않고 다시 전달받음 (OffsetCommitManager 가 이 오프셋으로 seek)
+     */
+    private void settle(ConsumerRecord<String, String> record, OffsetCommitManager.Ticket ticket, Throwable routeFailure) {
+        if (routeFailure == null) {
+            ticket.complete();
+            return;
+        }
+        log.error("[Order Consumer] 실패 라우팅 불가 → 다시 전달받아 재처리: topic={}, partition={}, offset={}",
+                record.topic(), record.partition(), record.offset(), routeFailure);
+        ticket.redeliver();
+    }
+
+    /**
+     * 처리 시작 (첫 단계 제출 전 진행률 전송/단계 제출 거부 등 동기 예외도 실패한 future 로)
+     */
+    private CompletableFuture<Void> startOrder(String message) {
+        try {
+            return processOrderMessage(message);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 재시도 토픽 레코드: 처리 가능 시각까지 기다린 후 원본과 같이 처리
+     *
+     * 종료 중이면 처리하지 않음 (커밋되지 않으므로 다음 기동 시 다시 전달)
+     */
+    @KafkaListener(id = LISTENER_ID + "-retry-1s", topics = "order-events-retry-1s",
+            groupId = "order-group-retry-1s", containerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(id = LISTENER_ID + "-retry-10s", topics = "order-events-retry-10s",
+            groupId = "order-group-retry-10s", containerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(id = LISTENER_ID + "-retry-1m", topics = "order-events-retry-1m",
+            groupId = "order-group-retry-1m", containerFactory = "orderRetryListenerContainerFactory")
+    public void processRetry(ConsumerRecord<String, String> record, Consumer<?, ?> consumer) throws InterruptedException {
+        if (!retryTopicRouter.awaitDue(record)) {
+            return;
+        }
+        log.info("[Order Consumer] 재시도 #{}: topic={}, partition={}, offset={}, key={}",
+                RetryTopicRouter.attempts(record), record.topic(), record.partition(), record.offset(), record.key());
+        processOrder(record, consumer);
+    }
+
+    /**
+     * 처리 실패: 다음 재시도 토픽으로 전송 (단계를 모두 거쳤으면 DLT + 알람)
+     *
+     * 전송은 RetryTopicRouter 전송 스레드에서 → 단계 워커가 브로커 응답을 기다리지 않음
+     */
+    private CompletableFuture<Boolean> recover(ConsumerRecord<String, String> record, Exception exception) {
+        log.error("[Order Consumer] 주문 처리 실패: topic={}, partition={}, offset={}, key={}, error={}",
+                record.topic(), record.partition(), record.offset(), record.key(), exception.getMessage());
+        return retryTopicRouter.route(record, exception);
+    }
+
+    private static Exception unwrap(Throwable failure) {
+        Throwable cause = (failure instanceof CompletionException && failure.getCause() != null)
+                ? failure.getCause() : failure;
+        return (cause instanceof Exception exception) ? exception : new RuntimeException(cause);
+    }
+
+    @Override
+    public void close() {
+        // 진행 중인 주문이 모든 단계를 마칠 때까지 기다린 후 단계 워커 종료
+        dispatcher.close();
+        validateStage.close();
+        inventoryStage.close();
+        paymentStage.close();
     }
 
     /**
      * 주문 메시지 처리 로직 (4단계 진행률 업데이트)
+     *
+     * 단계 사이의 진행률 전송과 다음 단계 제출은 앞 단계 워커가 수행
+     *
+     * @return 모든 단계 완료(또는 실패) 시 끝나는 future
      */
-    private void processOrderMessage(String message) {
+    private CompletableFuture<Void> processOrderMessage(String message) {
         OrderRequest order;
         try {
             order = objectMapper.readValue(message, OrderRequest.class);
         } catch (JsonProcessingException e) {
             log.error("[Order Consumer] JSON 파싱 실패: {}", message, e);
-            throw new RuntimeException("주문 파싱 실패: " + message, e);
+            return CompletableFuture.failedFuture(new NonRetryableOrderException("주문 파싱 실패: " + message, e));
         }
 
         String taskId = order.taskId();
         String userId = order.userId();
 
-        try {
-            // Step 1: 주문 검증 (25%)
-            taskProgressService.updateProgress(taskId, userId, 1, TOTAL_STEPS, "주문 검증");
-            validateOrder(order);
-            simulateProcessingTime(500);
-
-            // Step 2: 재고 확인 (50%)
-            taskProgressService.updateProgress(taskId, userId, 2, TOTAL_STEPS, "재고 확인");
-            checkInventory(order);
-            simulateProcessingTime(500);
-
-            // Step 3: 결제 처리 (75%)
-            taskProgressService.updateProgress(taskId, userId, 3, TOTAL_STEPS, "결제 처리");
-            processPayment(order);
-            simulateProcessingTime(500);
-
-            // Step 4: 주문 완료 (100%)
-            taskProgressService.complete(taskId, userId);
-            log.info("[Order Consumer] 주문 처리 완료: taskId={}, orderId={}", taskId, order.orderId());
-
-        } catch (Exception e) {
-            taskProgressService.fail(taskId, userId, e.getMessage());
-            throw e;
-        }
+        // Step 1: 주문 검증 (25%)
+        taskProgressService.updateProgress(taskId, userId, 1, TOTAL_STEPS, "주문 검증");
+        return validateStage.submit(() -> {
+                    validateOrder(order);
+                    simulateProcessingTime(500);
+                })
+                .thenCompose(ignored -> {
+                    // Step 2: 재고 확인 (50%)
+                    taskProgressService.updateProgress(taskId, userId, 2, TOTAL_STEPS, "재고 확인");
+                    return inventoryStage.submit(() -> {
+                        checkInventory(order);
+                        simulateProcessingTime(500);
+                    });
+                })
+                .thenCompose(ignored -> {
+                    // Step 3: 결제 처리 (75%)
+                    taskProgressService.updateProgress(taskId, userId, 3, TOTAL_STEPS, "결제 처리");
+                    return paymentStage.submit(() -> {
+                        processPayment(order);
+                        simulateProcessingTime(500);
+                    });
+                })
+                .whenComplete((ignored, failure) -> {
+                    if (failure == null) {
+                        // Step 4: 주문 완료 (100%)
+                        taskProgressService.complete(taskId, userId);
+                        log.info("[Order Consumer] 주문 처리 완료: taskId={}, orderId={}", taskId, order.orderId());
+                    } else {
+                        taskProgressService.fail(taskId, userId, unwrap(failure).getMessage());
+                    }
+                });
     }
 
     private void validateOrder(OrderRequest order) {
         log.info("[Step 1] 주문 검증: orderId={}", order.orderId());
         if (order.quantity() <= 0) {
-            throw new RuntimeException("유효하지 않은 수량: " + order.quantity());
+            throw new NonRetryableOrderException("유효하지 않은 수량: " + order.quantity());
         }
     }
 
@@ -2,14 +2,21 @@ package com.example.open.domain.order.kafka.consumer;
 
 import com.example.open.domain.order.kafka.dto.OrderRequest;
 import com.example.open.domain.order.kafka.eventsourcing.ProgressEventService;
+import com.example.open.domain.order.kafka.handler.NonRetryableOrderException;
+import com.example.open.domain.order.kafka.handler.RetryTopicRouter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 /**
  * Order Consumer V2 (Event Sourcing 버전)
  *
@@ -26,8 +33,15 @@ import org.springframework.stereotype.Service;
  * - 이벤트 히스토리 조회 가능
  * - 재접속 시 상태 복구 가능
  * - 다중 서버 환경 확장 용이
+ *
+ * 오프셋: orderListenerContainerFactory (MANUAL) + OffsetCommitManager 주기 커밋
+ * 처리 실패: 실패 진행률 전송 + 재시도 토픽(order-events-v2-retry-1s / 10s / 1m) 전송 후 완료 표시
+ * (다음 레코드 계속 처리, 마지막 단계까지 실패하면 DLT + 알람)
+ *
+ * order.v2.batch-listener.enabled=true 이면 OrderBatchConsumerV2 가 대신 처리
  */
 @Service
+@ConditionalOnProperty(name = "order.v2.batch-listener.enabled", havingValue = "false", matchIfMissing = true)
 public class OrderConsumerV2 {
 
     private static final Logger log = LoggerFactory.getLogger(OrderConsumerV2.class);
@@ -35,10 +49,22 @@ public class OrderConsumerV2 {
 
     private final ProgressEventService progressEventService;
     private final ObjectMapper objectMapper;
-
-    public OrderConsumerV2(ProgressEventService progressEventService, ObjectMapper objectMapper) {
+    private final OffsetCommitManager commitManager;
+    private final RetryTopicRouter retryTopicRouter;
+    private final long stepProcessingMillis;
+
+    public OrderConsumerV2(
+            ProgressEventService progressEventService,
+            ObjectMapper objectMapper,
+            OffsetCommitManager orderCommitManager,
+            RetryTopicRouter retryTopicRouter,
+            @Value("${order.v2.step-processing-millis:500}") long stepProcessingMillis
+    ) {
         this.progressEventService = progressEventService;
         this.objectMapper = objectMapper;
+        this.commitManager = orderCommitManager;
+        this.retryTopicRouter = retryTopicRouter;
+        this.stepProcessingMillis = stepProcessingMillis;
     }
 
     /**
@@ -47,8 +73,9 @@ public class OrderConsumerV2 {
      * 토픽: order-events-v2
      * 그룹: order-group-v2
      */
-    @KafkaListener(topics = "order-events-v2", groupId = "order-group-v2")
-    public void processOrder(ConsumerRecord<String, String> record) {
+    @KafkaListener(topics = "order-events-v2", groupId = "order-group-v2",
+            containerFactory = "orderListenerContainerFactory")
+    public void processOrder(ConsumerRecord<String, String> record, Consumer<?, ?> consumer) {
         log.info("========================================");
         log.info("[OrderConsumerV2] Message Received!");
         log.info("  Topic     : {}", record.topic());
@@ -58,7 +85,57 @@ public class OrderConsumerV2 {
         log.info("  Value     : {}", record.value());
         log.info("========================================");
 
-        processOrderMessage(record.value());
+        // 다시 전달 seek 으로 함께 poll 된 레코드 중 이미 완료한 주문은 건너뜀
+        Optional<OffsetCommitManager.Ticket> registered = commitManager.register(record);
+        if (registered.isEmpty()) {
+            log.info("[OrderConsumerV2] 이미 처리한 레코드 건너뜀: partition={}, offset={}",
+                    record.partition(), record.offset());
+        } else {
+            OffsetCommitManager.Ticket ticket = registered.get();
+            try {
+                processOrderMessage(record.value());
+                ticket.complete();
+            } catch (RuntimeException e) {
+                recover(record, ticket, e);
+            }
+        }
+
+        commitManager.maybeCommit(consumer);
+    }
+
+    /**
+     * 재시도 토픽 레코드: 처리 가능 시각까지 기다린 후 원본과 같이 처리
+     *
+     * 종료 중이면 처리하지 않음 (커밋되지 않으므로 다음 기동 시 다시 전달)
+     */
+    @KafkaListener(topics = "order-events-v2-retry-1s", groupId = "order-group-v2-retry-1s",
+            containerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(topics = "order-events-v2-retry-10s", groupId = "order-group-v2-retry-10s",
+            containerFactory = "orderRetryListenerContainerFactory")
+    @KafkaListener(topics = "order-events-v2-retry-1m", groupId = "order-group-v2-retry-1m",
+            containerFactory = "orderRetryListenerContainerFactory")
+    public void processRetry(ConsumerRecord<String, String> record, Consumer<?, ?> consumer) {
+        if (retryTopicRouter.awaitDue(record)) {
+            processOrder(record, consumer);
+        }
+    }
+
+    /**
+     * 처리 실패: 다음 재시도 토픽으로 전송 (단계를 모두 거쳤으면 DLT + 알람) 후 티켓 완료
+     *
+     * 전송까지 실패하면 커밋하지 않고 다시 전달받음 (OffsetCommitManager 가 이 오프셋으로 seek)
+     */
+    private void recover(ConsumerRecord<String, String> record, OffsetCommitManager.Ticket ticket,
+                         RuntimeException exception) {
+        log.error("[OrderConsumerV2] 주문 처리 실패: topic={}, partition={}, offset={}, key={}, error={}",
+                record.topic(), record.partition(), record.offset(), record.key(), exception.getMessage());
+        try {
+            retryTopicRouter.recover(record, exception);
+            ticket.complete();
+        } catch (RuntimeException routeFailure) {
+            log.error("[OrderConsumerV2] 실패 라우팅 불가 → 다시 전달받아 재처리: offset={}", record.offset(), routeFailure);
+            ticket.redeliver();
+        }
     }
 
     /**
@@ -70,7 +147,7 @@ public class OrderConsumerV2 {
             order = objectMapper.readValue(message, OrderRequest.class);
         } catch (JsonProcessingException e) {
             log.error("[OrderConsumerV2] JSON 파싱 실패: {}", message, e);
-            throw new RuntimeException("주문 파싱 실패: " + message, e);
+            throw new NonRetryableOrderException("주문 파싱 실패: " + message, e);
         }
 
         String taskId = order.taskId();
@@ -83,17 +160,17 @@ public class OrderConsumerV2 {
             // Step 1: 주문 검증 (25%)
             progressEventService.publishProgress(taskId, userId, 1, TOTAL_STEPS, "주문 검증");
             validateOrder(order);
-            simulateProcessingTime(500);
+            simulateProcessingTime(stepProcessingMillis);
 
             // Step 2: 재고 확인 (50%)
             progressEventService.publishProgress(taskId, userId, 2, TOTAL_STEPS, "재고 확인");
             checkInventory(order);
-            simulateProcessingTime(500);
+            simulateProcessingTime(stepProcessingMillis);
 
             // Step 3: 결제 처리 (75%)
             progressEventService.publishProgress(taskId, userId, 3, TOTAL_STEPS, "결제 처리");
             processPayment(order);
-            simulateProcessingTime(500);
+            simulateProcessingTime(stepProcessingMillis);
 
             // Step 4: 완료 (100%)
             progressEventService.publishCompleted(taskId, userId, TOTAL_STEPS);
@@ -108,7 +185,7 @@ public class OrderConsumerV2 {
     private void validateOrder(OrderRequest order) {
         log.info("[Step 1] 주문 검증: orderId={}", order.orderId());
         if (order.quantity() <= 0) {
-            throw new RuntimeException("유효하지 않은 수량: " + order.quantity());
+            throw new NonRetryableOrderException("유효하지 않은 수량: " + order.quantity());
         }
     }
 
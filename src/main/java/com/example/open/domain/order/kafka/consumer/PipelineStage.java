@@ -0,0 +1,114 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 파이프라인 단계 (SEDA: 단계마다 자체 대기열 + 워커)
+ *
+ * - 대기열이 가득 차면 제출한 스레드(앞 단계 워커)가 자리가 날 때까지 대기
+ *   → 느린 단계의 압력이 앞 단계, 최종적으로 KeyOrderedDispatcher(max-in-flight)와 리스너까지 전달
+ * - 워커 수 = 단계 동시 실행 한도 (외부 호출 대기 위주 단계는 워커를 넉넉히)
+ *
+ * 메트릭 (tag stage=이름):
+ * - order.stage.latency    : 단계 처리 시간
+ * - order.stage.queue.wait : 대기열에서 기다린 시간
+ * - order.stage.queue.size / order.stage.active : 대기열 길이 / 실행 중 워커 수
+ */
+public class PipelineStage implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Timer latency;
+    private final Timer queueWait;
+
+    public PipelineStage(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "order-" + name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("단계 종료됨: " + name);
+                    }
+                    try {
+                        pool.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("단계 제출 중 인터럽트: " + name, e);
+                    }
+                });
+
+        this.latency = Timer.builder("order.stage.latency")
+                .description("주문 처리 단계 소요 시간")
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("order.stage.queue.wait")
+                .description("주문 처리 단계 대기열 대기 시간")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("order.stage.queue.size", executor, pool -> pool.getQueue().size())
+                .description("주문 처리 단계 대기열 길이")
+                .tag("stage", name)
+                .register(meterRegistry);
+        Gauge.builder("order.stage.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("주문 처리 단계 실행 중 워커 수")
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 단계 작업 제출
+     *
+     * @return 작업 완료(예외 포함) 시 끝나는 future (이 단계 워커 스레드에서 완료)
+     */
+    public CompletableFuture<Void> submit(Runnable work) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+        executor.execute(() -> {
+            long startedAt = System.nanoTime();
+            queueWait.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                work.run();
+                result.complete(null);
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                latency.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("[PipelineStage] 종료 대기 초과: stage={}, 대기열 {}건", name, executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntPredicate;
+
+/**
+ * 작업 하나의 이벤트를 압축 저장하는 컬럼형 로그 (InMemoryEventStore 내부용)
+ *
+ * 이벤트당 long 4개 + int 1개(36 bytes):
+ * - timestamps : epoch millis
+ * - sequences : 작업 내 순번
+ * - idHigh/idLow : UUID 형식 eventId 의 128비트
+ * - packed : type(2) | percentage(7) | currentStep(20) | totalSteps(20) | stepName 코드(14)
+ *
+ * taskId/userId 는 로그당 1회만 보관, stepName 은 공용 사전(StepNames) 코드로 저장
+ * 위 형식에 맞지 않는 이벤트(UUID 아닌 eventId, 범위 초과 값, 사전 미등록 이름)는
+ * 원본을 irregular 배열에 두고 packed 에 그 위치만 기록
+ * FAILED 의 stepName 은 실패 사유(예외 메시지)라 사전에 넣지 않고 항상 irregular 로 저장
+ *
+ * 동시성 (쓰기 1 : 읽기 N):
+ * - 쓰기(add/insert/removeIf)는 호출자(TaskEvents)가 직렬화
+ * - 읽기는 잠금 없이 view() 로 얻은 View 를 사용
+ * - View = 배열 참조 + 길이. 공개된 길이 안의 칸은 절대 수정하지 않음
+ *   - add: 길이 밖의 칸에 쓰고 새 View 공개 (배열 공유, 복사 없음)
+ *   - 용량 초과/중간 삽입/압축: 새 배열에 만들어 새 View 공개
+ *   → 읽는 쪽은 volatile 읽기 1회로 일관된 시점을 얻고 복사하지 않음
+ *
+ * ProgressEvent 는 조회 시에만 생성
+ */
+final class CompactEventLog {
+
+    private static final int TYPE_BITS = 2;
+    private static final int PERCENTAGE_BITS = 7;
+    private static final int STEP_BITS = 20;
+    private static final int NAME_BITS = 14;
+
+    private static final int PERCENTAGE_SHIFT = TYPE_BITS;
+    private static final int STEP_SHIFT = PERCENTAGE_SHIFT + PERCENTAGE_BITS;
+    private static final int TOTAL_SHIFT = STEP_SHIFT + STEP_BITS;
+    private static final int NAME_SHIFT = TOTAL_SHIFT + STEP_BITS;
+
+    private static final long IRREGULAR_FLAG = 1L << 63;
+    private static final int MAX_STEP = (1 << STEP_BITS) - 1;
+    private static final int MAX_PERCENTAGE = (1 << PERCENTAGE_BITS) - 1;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private static final ProgressEvent.EventType[] TYPES = ProgressEvent.EventType.values();
+    private static final ProgressEvent[] NO_IRREGULAR = new ProgressEvent[0];
+
+    private final String taskId;
+    private final String userId;
+
+    // 쓰기 전용 상태 (현재 View 와 같은 배열을 가리킴)
+    private long[] timestamps;
+    private int[] sequences;
+    private long[] idHigh;
+    private long[] idLow;
+    private long[] packed;
+    private int size;
+
+    // 압축 불가 이벤트 원본 (packed 하위 32비트 = 이 배열의 인덱스)
+    private ProgressEvent[] irregular = NO_IRREGULAR;
+    private int irregularSize;
+
+    // 인덱스 순서와 sequence 순서가 같은지 (중간 삽입이 한 번이라도 있으면 false)
+    private boolean sequenceOrdered = true;
+
+    // 읽기용 공개 시점
+    private volatile View view;
+
+    CompactEventLog(String taskId, String userId) {
+        this.taskId = taskId;
+        this.userId = userId;
+        allocate(INITIAL_CAPACITY);
+        publish();
+    }
+
+    /**
+     * 현재 시점의 읽기 전용 목록 (잠금/복사 없음, 이후 쓰기의 영향을 받지 않음)
+     */
+    View view() {
+        return view;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(ProgressEvent event) {
+        if (size == timestamps.length) {
+            resize(timestamps.length * 2);
+        }
+        write(size, event);
+        size++;
+        publish();
+    }
+
+    /**
+     * index 위치에 삽입 (index < size 이면 뒤 요소를 한 칸씩 이동)
+     *
+     * 공개된 배열은 수정할 수 없으므로 새 배열에 옮겨 씀 (늦게 도착한 이벤트용 드문 경로)
+     */
+    void insert(int index, ProgressEvent event) {
+        if (index == size) {
+            add(event);
+            return;
+        }
+        long[] oldTimestamps = timestamps;
+        int[] oldSequences = sequences;
+        long[] oldIdHigh = idHigh;
+        long[] oldIdLow = idLow;
+        long[] oldPacked = packed;
+        allocate(size == timestamps.length ? timestamps.length * 2 : timestamps.length);
+
+        copyRange(oldTimestamps, oldSequences, oldIdHigh, oldIdLow, oldPacked, 0, 0, index);
+        copyRange(oldTimestamps, oldSequences, oldIdHigh, oldIdLow, oldPacked, index, index + 1, size - index);
+        write(index, event);
+        size++;
+        sequenceOrdered = false;
+        publish();
+    }
+
+    /**
+     * remove 가 true 인 인덱스를 제거하고 나머지를 앞으로 당김 (순서 유지, O(size))
+     *
+     * 새 배열에 남은 이벤트만 옮겨 쓰고 irregular 도 다시 구성. 절반 이상 비면 용량 축소
+     * remove 는 제거 전 시점(old View 인덱스)으로 호출됨
+     *
+     * @return 제거된 이벤트 수
+     */
+    int removeIf(IntPredicate remove) {
+        View old = view;
+        int capacity = timestamps.length;
+        int kept = 0;
+        boolean[] removed = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            removed[i] = remove.test(i);
+            if (!removed[i]) {
+                kept++;
+            }
+        }
+        if (kept == size) {
+            return 0;
+        }
+        if (capacity > INITIAL_CAPACITY && kept <= capacity / 2) {
+            capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, kept)) << 1);
+        }
+
+        allocate(capacity);
+        ProgressEvent[] oldIrregular = irregular;
+        irregular = NO_IRREGULAR;
+        irregularSize = 0;
+
+        int write = 0;
+        for (int read = 0; read < old.length; read++) {
+            if (removed[read]) {
+                continue;
+            }
+            long bits = old.packed[read];
+            if ((bits & IRREGULAR_FLAG) != 0) {
+                bits = IRREGULAR_FLAG | appendIrregular(oldIrregular[(int) bits]);
+            }
+            timestamps[write] = old.timestamps[read];
+            sequences[write] = old.sequences[read];
+            idHigh[write] = old.idHigh[read];
+            idLow[write] = old.idLow[read];
+            packed[write] = bits;
+            write++;
+        }
+
+        int removedCount = size - write;
+        size = write;
+        publish();
+        return removedCount;
+    }
+
+    /**
+     * 대략적인 점유 메모리 (배열 용량 기준, 모니터링용)
+     */
+    long estimatedBytes() {
+        return (4L * Long.BYTES + Integer.BYTES) * timestamps.length + irregularSize * 300L;
+    }
+
+    private void write(int index, ProgressEvent event) {
+        timestamps[index] = event.timestamp().toEpochMilli();
+        sequences[index] = (int) event.sequence();
+        long[] uuid = parseUuid(event.eventId());
+        long bits = (uuid == null || event.sequence() > Integer.MAX_VALUE) ? -1 : pack(event);
+        if (bits < 0) {
+            packed[index] = IRREGULAR_FLAG | appendIrregular(event);
+        } else {
+            idHigh[index] = uuid[0];
+            idLow[index] = uuid[1];
+            packed[index] = bits;
+        }
+    }
+
+    // 공개된 View 는 irregularSize 이전 칸만 참조하므로 뒤에 이어 쓰기 가능
+    private int appendIrregular(ProgressEvent event) {
+        if (irregularSize == irregular.length) {
+            irregular = Arrays.copyOf(irregular, Math.max(1, irregular.length * 2));
+        }
+        irregular[irregularSize] = event;
+        return irregularSize++;
+    }
+
+    private void publish() {
+        view = new View(taskId, userId, timestamps, sequences, idHigh, idLow, packed, irregular, size, sequenceOrdered);
+    }
+
+    private void allocate(int capacity) {
+        timestamps = new long[capacity];
+        sequences = new int[capacity];
+        idHigh = new long[capacity];
+        idLow = new long[capacity];
+        packed = new long[capacity];
+    }
+
+    private void resize(int capacity) {
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        packed = Arrays.copyOf(packed, capacity);
+    }
+
+    private void copyRange(long[] fromTimestamps, int[] fromSequences, long[] fromIdHigh, long[] fromIdLow,
+                           long[] fromPacked, int from, int to, int length) {
+        System.arraycopy(fromTimestamps, from, timestamps, to, length);
+        System.arraycopy(fromSequences, from, sequences, to, length);
+        System.arraycopy(fromIdHigh, from, idHigh, to, length);
+        System.arraycopy(fromIdLow, from, idLow, to, length);
+        System.arraycopy(fromPacked, from, packed, to, length);
+    }
+
+    /**
+     * @return 압축 불가 시 -1
+     */
+    private static long pack(ProgressEvent event) {
+        int step = event.currentStep();
+        int total = event.totalSteps();
+        int percentage = event.percentage();
+        if (step < 0 || step > MAX_STEP || total < 0 || total > MAX_STEP
+                || percentage < 0 || percentage > MAX_PERCENTAGE) {
+            return -1;
+        }
+        if (event.eventType() == ProgressEvent.EventType.FAILED) {
+            // 실패 사유는 매번 다른 문자열 → 전역 사전을 소진하지 않도록 원본 보관
+            return -1;
+        }
+        int name = StepNames.code(event.stepName());
+        if (name < 0) {
+            return -1;
+        }
+        return event.eventType().ordinal()
+                | ((long) percentage << PERCENTAGE_SHIFT)
+                | ((long) step << STEP_SHIFT)
+                | ((long) total << TOTAL_SHIFT)
+                | ((long) name << NAME_SHIFT);
+    }
+
+    private static int field(long bits, int shift, int width) {
+        return (int) ((bits >>> shift) & ((1L << width) - 1));
+    }
+
+    /**
+     * 특정 시점의 읽기 전용 이벤트 목록
+     *
+     * 배열은 쓰기 쪽과 공유하지만 length 안의 칸은 수정되지 않으므로 불변
+     * get 할 때마다 ProgressEvent 를 생성 (목록 전체를 미리 만들지 않음)
+     */
+    static final class View extends AbstractList<ProgressEvent> implements RandomAccess {
+
+        private final String taskId;
+        private final String userId;
+        private final long[] timestamps;
+        private final int[] sequences;
+        private final long[] idHigh;
+        private final long[] idLow;
+        private final long[] packed;
+        private final ProgressEvent[] irregular;
+        private final int length;
+        private final boolean sequenceOrdered;
+
+        private View(String taskId, String userId, long[] timestamps, int[] sequences, long[] idHigh,
+                     long[] idLow, long[] packed, ProgressEvent[] irregular, int length, boolean sequenceOrdered) {
+            this.taskId = taskId;
+            this.userId = userId;
+            this.timestamps = timestamps;
+            this.sequences = sequences;
+            this.idHigh = idHigh;
+            this.idLow = idLow;
+            this.packed = packed;
+            this.irregular = irregular;
+            this.length = length;
+            this.sequenceOrdered = sequenceOrdered;
+        }
+
+        /**
+         * 인덱스 순서 = sequence 순서 여부 (true 면 sequence 로 이분 탐색 가능)
+         */
+        boolean sequenceOrdered() {
+            return sequenceOrdered;
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public ProgressEvent get(int index) {
+            Objects.checkIndex(index, length);
+            long bits = packed[index];
+            if ((bits & IRREGULAR_FLAG) != 0) {
+                return irregular[(int) bits];
+            }
+            return new ProgressEvent(
+                    formatUuid(idHigh[index], idLow[index]),
+                    taskId,
+                    userId,
+                    field(bits, STEP_SHIFT, STEP_BITS),
+                    field(bits, TOTAL_SHIFT, STEP_BITS),
+                    field(bits, PERCENTAGE_SHIFT, PERCENTAGE_BITS),
+                    StepNames.name(field(bits, NAME_SHIFT, NAME_BITS)),
+                    TYPES[field(bits, 0, TYPE_BITS)],
+                    Instant.ofEpochMilli(timestamps[index]),
+                    sequences[index]
+            );
+        }
+
+        long timestampAt(int index) {
+            return timestamps[index];
+        }
+
+        long sequenceAt(int index) {
+            long bits = packed[index];
+            if ((bits & IRREGULAR_FLAG) != 0) {
+                return irregular[(int) bits].sequence();
+            }
+            return sequences[index];
+        }
+
+        ProgressEvent.EventType typeAt(int index) {
+            long bits = packed[index];
+            if ((bits & IRREGULAR_FLAG) != 0) {
+                return irregular[(int) bits].eventType();
+            }
+            return TYPES[field(bits, 0, TYPE_BITS)];
+        }
+
+        /**
+         * 인덱스의 eventId (커서 위치 탐색용)
+         */
+        String eventIdAt(int index) {
+            long bits = packed[index];
+            if ((bits & IRREGULAR_FLAG) != 0) {
+                return irregular[(int) bits].eventId();
+            }
+            return formatUuid(idHigh[index], idLow[index]);
+        }
+    }
+
+    // ==================== UUID ====================
+
+    /**
+     * 소문자 정규형 UUID 문자열만 파싱 (복원 시 같은 문자열이 나와야 하므로)
+     */
+    private static long[] parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        long high = 0;
+        long low = 0;
+        int digits = 0;
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return null;
+                }
+                continue;
+            }
+            int nibble = Character.digit(c, 16);
+            if (nibble < 0 || Character.isUpperCase(c)) {
+                return null;
+            }
+            if (digits < 16) {
+                high = (high << 4) | nibble;
+            } else {
+                low = (low << 4) | nibble;
+            }
+            digits++;
+        }
+        return new long[]{high, low};
+    }
+
+    private static String formatUuid(long high, long low) {
+        return new UUID(high, low).toString();
+    }
+
+    /**
+     * 단계 이름 공용 사전
+     *
+     * 진행 단계 이름은 종류가 적으므로 코드로 저장 (실패 사유는 등록하지 않음)
+     * 긴 이름은 등록하지 않고, 사전이 가득 차면 해당 이벤트는 원본 그대로 저장됨
+     */
+    static final class StepNames {
+
+        private static final int CAPACITY = 1 << NAME_BITS;
+        // 단계 이름으로 보기 어려운 길이 (자유 형식 문자열이 사전을 채우지 않도록)
+        private static final int MAX_NAME_LENGTH = 64;
+
+        private static final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private static final AtomicReferenceArray<String> names = new AtomicReferenceArray<>(CAPACITY);
+        private static int nextCode;
+
+        private StepNames() {
+        }
+
+        static int code(String name) {
+            if (name == null || name.length() > MAX_NAME_LENGTH) {
+                return -1;
+            }
+            Integer code = codes.get(name);
+            if (code != null) {
+                return code;
+            }
+            synchronized (StepNames.class) {
+                code = codes.get(name);
+                if (code != null) {
+                    return code;
+                }
+                if (nextCode == CAPACITY) {
+                    return -1;
+                }
+                int assigned = nextCode++;
+                names.set(assigned, name);
+                codes.put(name, assigned);
+                return assigned;
+            }
+        }
+
+        static String name(int code) {
+            return names.get(code);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.open.domain.order.kafka.eventsourcing;
 
+import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
@@ -18,6 +20,25 @@ public interface EventBroadcaster {
      */
     void publish(ProgressEvent event);
 
+    /**
+     * 여러 이벤트 일괄 발행 (배치 리스너용, 구독자별 전달 예약은 배치당 1회)
+     */
+    default void publishAll(List<ProgressEvent> events) {
+        for (ProgressEvent event : events) {
+            publish(event);
+        }
+    }
+
+    /**
+     * 이 이벤트를 받을 구독자가 있을 수 있는지 (발행 전 빠른 확인)
+     *
+     * false 는 "확실히 없음" 일 때만 반환 → 호출자는 publish 를 생략해도 됨
+     * 다른 서버의 구독자를 알 수 없는 구현체는 기본값(true) 사용
+     */
+    default boolean hasSubscribers(String userId, String taskId) {
+        return true;
+    }
+
     /**
      * 특정 사용자의 이벤트 구독
      *
@@ -27,6 +48,36 @@ public interface EventBroadcaster {
      */
     String subscribe(String userId, Consumer<ProgressEvent> listener);
 
+    /**
+     * 특정 사용자의 이벤트 구독 (옵션 지정)
+     *
+     * @param options 오버플로 정책, 강제 해제 콜백
+     */
+    String subscribe(String userId, Consumer<ProgressEvent> listener, SubscriptionOptions options);
+
+    /**
+     * 직렬화된 이벤트 구독 (SSE 등 JSON 을 그대로 내보내는 구독자용)
+     *
+     * 발행 시 한 번 만든 ProgressEventPayload 를 모든 구독자가 공유
+     */
+    String subscribePayload(String userId, Consumer<ProgressEventPayload> listener, SubscriptionOptions options);
+
+    /**
+     * 특정 작업들의 이벤트만 구독 (taskId 인덱스로 전달, 다른 작업 이벤트에는 비용 없음)
+     *
+     * @param userId  작업 소유 사용자 ID (다른 사용자의 같은 taskId 이벤트는 전달하지 않음)
+     * @param taskIds 구독할 작업 ID 목록
+     */
+    String subscribeTasks(String userId, Set<String> taskIds, Consumer<ProgressEventPayload> listener,
+                          SubscriptionOptions options);
+
+    /**
+     * 작업 지정 구독의 작업 목록 변경 (연결을 유지한 채 작업 추가/제거)
+     *
+     * @return 구독이 없거나 사용자 전체 구독이면 false
+     */
+    boolean updateTasks(String subscriptionId, Set<String> addTaskIds, Set<String> removeTaskIds);
+
     /**
      * 구독 취소
      *
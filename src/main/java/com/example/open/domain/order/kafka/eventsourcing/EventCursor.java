@@ -0,0 +1,66 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * 사용자 이벤트 조회용 페이지 커서
+ *
+ * 사용자 히스토리 정렬 기준: (timestamp, taskId, 작업 내 순서)
+ * - 커서는 기준이 되는 이벤트 하나를 가리킴 (before/after 는 그 이벤트를 제외)
+ * - 클라이언트에는 Base64(URL-safe) 문자열로 전달
+ */
+public record EventCursor(
+        Instant timestamp,
+        String taskId,
+        String eventId
+) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 작업 간 정렬 기준 (같은 작업 안에서는 저장 순서 유지)
+     */
+    public static final Comparator<ProgressEvent> ORDER = Comparator
+            .comparing(ProgressEvent::timestamp)
+            .thenComparing(ProgressEvent::taskId);
+
+    public static EventCursor of(ProgressEvent event) {
+        return new EventCursor(event.timestamp(), event.taskId(), event.eventId());
+    }
+
+    /**
+     * 커서와 이벤트의 작업 간 순서 비교 (음수: 이벤트가 커서 뒤)
+     *
+     * 같은 작업·같은 시간이면 0 → 작업 내 순서(eventId 위치)로 판단해야 함
+     */
+    int compareTo(ProgressEvent event) {
+        int byTime = timestamp.compareTo(event.timestamp());
+        if (byTime != 0) {
+            return byTime;
+        }
+        return taskId.compareTo(event.taskId());
+    }
+
+    public String encode() {
+        String raw = timestamp + SEPARATOR + taskId + SEPARATOR + eventId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException 형식이 잘못된 커서
+     */
+    public static EventCursor decode(String encoded) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("잘못된 커서: " + encoded);
+            }
+            return new EventCursor(Instant.parse(parts[0]), parts[1], parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("잘못된 커서: " + encoded, e);
+        }
+    }
+}
@@ -1,16 +1,34 @@
 package com.example.open.domain.order.kafka.eventsourcing;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.nio.file.Path;
+
 /**
  * Event Sourcing 설정
  *
  * - Kafka 토픽 생성 (order-events-v2)
  * - 스케줄링 활성화 (이벤트 정리용)
+ * - Event Store 구현체 선택 (progress.event-store.type)
+ *   - memory (기본값): InMemoryEventStore
+ *   - mapped: MappedSegmentEventStore (재시작 후에도 유지)
+ *   - redis: RedisEventStore (다중 서버 공유, spring.redis.enabled=true 필요)
+ *   - jdbc: WriteBehindEventStore (메모리 조회 + progress_events 테이블로 지연 그룹 커밋)
+ * - 이벤트 브로드캐스터 구현체 선택 (progress.broadcaster.type)
+ *   - memory (기본값): InMemoryEventBroadcaster
+ *   - redis: RedisEventBroadcaster (다중 서버 SSE 전파, spring.redis.enabled=true 필요)
+ * - 리액티브 진행률 스트림 (progress.reactive.enabled=true 일 때 별도 Netty 포트로 기동)
  */
 @Configuration
 @EnableScheduling
@@ -26,4 +44,139 @@ public class EventSourcingConfig {
                 .replicas(1)
                 .build();
     }
+
+    // ==================== Event Store ====================
+
+    @Bean
+    @ConditionalOnProperty(name = "progress.event-store.type", havingValue = "memory", matchIfMissing = true)
+    public EventStore inMemoryEventStore(
+            @Value("${progress.event-store.expiry-bucket-millis:10000}") long expiryBucketMillis,
+            @Value("${progress.event-store.max-progress-events-per-task:0}") int maxProgressEvents) {
+        return new InMemoryEventStore(expiryBucketMillis, maxProgressEvents);
+    }
+
+    /**
+     * 메모리 맵 세그먼트 Event Store
+     *
+     * 파드 재시작 시에도 유지되도록 directory 는 PersistentVolume 경로로 지정
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "progress.event-store.type", havingValue = "mapped")
+    public EventStore mappedSegmentEventStore(
+            @Value("${progress.event-store.mapped.directory:./data/progress-events}") String directory,
+            @Value("${progress.event-store.mapped.segment-size-bytes:16777216}") int segmentSize,
+            @Value("${progress.event-store.mapped.force-interval-bytes:1048576}") int forceIntervalBytes) {
+        return new MappedSegmentEventStore(Path.of(directory), segmentSize, forceIntervalBytes);
+    }
+
+    /**
+     * Redis Streams Event Store
+     *
+     * RedisConfig 의 redisTemplate 재사용 (spring.redis.enabled=true 일 때만 등록됨)
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "progress.event-store.type", havingValue = "redis")
+    public EventStore redisEventStore(
+            RedisTemplate<String, Object> redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${progress.event-store.redis.batch-size:64}") int batchSize,
+            @Value("${progress.event-store.redis.flush-interval-millis:5}") long flushIntervalMillis,
+            @Value("${progress.event-store.redis.max-pending:100000}") int maxPending,
+            @Value("${progress.event-store.redis.ttl-millis:3600000}") long ttlMillis) {
+        return new RedisEventStore(redisTemplate, objectMapper, batchSize, flushIntervalMillis, maxPending, ttlMillis);
+    }
+
+    /**
+     * 메모리 Event Store + DB 지연 영속화
+     *
+     * JdbcConfig 의 namedParameterJdbcTemplate 재사용, 기동 시 최근 작업을 DB 에서 복원
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "progress.event-store.type", havingValue = "jdbc")
+    public EventStore writeBehindEventStore(
+            NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+            @Value("${progress.event-store.expiry-bucket-millis:10000}") long expiryBucketMillis,
+            @Value("${progress.event-store.max-progress-events-per-task:0}") int maxProgressEvents,
+            @Value("${progress.event-store.jdbc.batch-size:500}") int batchSize,
+            @Value("${progress.event-store.jdbc.flush-interval-millis:50}") long flushIntervalMillis,
+            @Value("${progress.event-store.jdbc.max-pending:100000}") int maxPending,
+            @Value("${progress.event-store.jdbc.rehydrate-window-millis:3600000}") long rehydrateWindowMillis) {
+        return new WriteBehindEventStore(
+                new InMemoryEventStore(expiryBucketMillis, maxProgressEvents),
+                new JdbcProgressEventRepository(namedParameterJdbcTemplate),
+                batchSize, flushIntervalMillis, maxPending, rehydrateWindowMillis);
+    }
+
+    // ==================== Broadcaster ====================
+
+    /**
+     * 구독자별 비동기 전달 큐를 가진 브로드캐스터
+     *
+     * queue-capacity: 구독당 대기 이벤트 한도, overflow-policy: 한도 초과 시 처리
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "progress.broadcaster.type", havingValue = "memory", matchIfMissing = true)
+    public EventBroadcaster inMemoryEventBroadcaster(
+            ObjectMapper objectMapper,
+            @Value("${progress.broadcaster.queue-capacity:256}") int queueCapacity,
+            @Value("${progress.broadcaster.dispatcher-threads:4}") int dispatcherThreads,
+            @Value("${progress.broadcaster.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        return new InMemoryEventBroadcaster(objectMapper, queueCapacity, dispatcherThreads, overflowPolicy);
+    }
+
+    /**
+     * 다중 서버용 브로드캐스터
+     *
+     * 로컬 구독자 전달은 내부 InMemoryEventBroadcaster 가 담당 (같은 큐/정책 설정 사용)
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "progress.broadcaster.type", havingValue = "redis")
+    public EventBroadcaster redisEventBroadcaster(
+            RedisTemplate<String, Object> redisTemplate,
+            RedisMessageListenerContainer progressListenerContainer,
+            ObjectMapper objectMapper,
+            @Value("${progress.broadcaster.queue-capacity:256}") int queueCapacity,
+            @Value("${progress.broadcaster.dispatcher-threads:4}") int dispatcherThreads,
+            @Value("${progress.broadcaster.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+            @Value("${progress.broadcaster.redis.batch-size:64}") int batchSize,
+            @Value("${progress.broadcaster.redis.flush-interval-millis:5}") long flushIntervalMillis,
+            @Value("${progress.broadcaster.redis.max-pending:100000}") int maxPending) {
+        InMemoryEventBroadcaster local = new InMemoryEventBroadcaster(objectMapper, queueCapacity, dispatcherThreads, overflowPolicy);
+        return new RedisEventBroadcaster(local, redisTemplate, progressListenerContainer, objectMapper,
+                batchSize, flushIntervalMillis, maxPending);
+    }
+
+    /**
+     * 진행률 채널 구독용 리스너 컨테이너 (채널은 RedisEventBroadcaster 가 동적으로 추가/제거)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "progress.broadcaster.type", havingValue = "redis")
+    public RedisMessageListenerContainer progressListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    // ==================== Reactive Stream ====================
+
+    @Bean
+    @ConditionalOnProperty(name = "progress.reactive.enabled", havingValue = "true")
+    public ReactiveProgressStream reactiveProgressStream(
+            ProgressEventService progressEventService,
+            ObjectMapper objectMapper,
+            @Value("${progress.reactive.buffer-size:256}") int bufferSize,
+            @Value("${sse.heartbeat.interval-millis:15000}") long heartbeatIntervalMillis) {
+        return new ReactiveProgressStream(progressEventService, objectMapper, bufferSize, heartbeatIntervalMillis);
+    }
+
+    /**
+     * 서블릿 서버와 별도 포트의 Netty 서버 (유휴 스트림이 많은 파드용)
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "progress.reactive.enabled", havingValue = "true")
+    public ReactiveProgressServer reactiveProgressServer(
+            ReactiveProgressStream reactiveProgressStream,
+            @Value("${progress.reactive.port:8083}") int port) {
+        return new ReactiveProgressServer(reactiveProgressStream, port);
+    }
 }
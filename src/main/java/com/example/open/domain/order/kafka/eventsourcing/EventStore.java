@@ -1,5 +1,7 @@
 package com.example.open.domain.order.kafka.eventsourcing;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,26 +10,65 @@ import java.util.Optional;
  *
  * 구현체:
  * - InMemoryEventStore: 학습/테스트용
- * - RedisEventStore: 프로덕션용 (다중 서버 지원)
+ * - MappedSegmentEventStore: 단일 서버 영속 (메모리 맵 세그먼트 파일)
+ * - RedisEventStore: 프로덕션용 (다중 서버 지원, Redis Streams)
  * - JpaEventStore: 영구 저장 필요 시
+ *
+ * 구현체 선택: progress.event-store.type (EventSourcingConfig)
  */
 public interface EventStore {
 
     /**
      * 이벤트 저장
+     *
+     * @return 저장된 이벤트 (작업 내 sequence 부여됨)
      */
-    void append(ProgressEvent event);
+    ProgressEvent append(ProgressEvent event);
+
+    /**
+     * 여러 이벤트 일괄 저장 (배치 리스너용, 입력 순서대로 순번 부여)
+     *
+     * @return 저장된 이벤트 (입력과 같은 순서)
+     */
+    default List<ProgressEvent> appendAll(List<ProgressEvent> events) {
+        List<ProgressEvent> stored = new ArrayList<>(events.size());
+        for (ProgressEvent event : events) {
+            stored.add(append(event));
+        }
+        return stored;
+    }
 
     /**
      * 특정 작업의 모든 이벤트 조회 (시간순)
      */
     List<ProgressEvent> getEventsByTaskId(String taskId);
 
+    /**
+     * 특정 작업에서 sequence 이후의 이벤트 조회 (순번순, SSE 재접속 시 놓친 구간 재전송용)
+     */
+    default List<ProgressEvent> getEventsAfter(String taskId, long sequence) {
+        return getEventsByTaskId(taskId).stream()
+                .filter(event -> event.sequence() > sequence)
+                .sorted(Comparator.comparingLong(ProgressEvent::sequence))
+                .toList();
+    }
+
     /**
      * 특정 사용자의 모든 이벤트 조회
      */
     List<ProgressEvent> getEventsByUserId(String userId);
 
+    /**
+     * 특정 사용자의 이벤트 페이지 조회 (시간순)
+     *
+     * @param limit  최대 건수
+     * @param before 이 커서 이전 이벤트만 (null 이면 제한 없음)
+     * @param after  이 커서 이후 이벤트만 (null 이면 제한 없음)
+     */
+    default UserEventPage getEventsByUserId(String userId, int limit, EventCursor before, EventCursor after) {
+        return UserEventPage.slice(getEventsByUserId(userId), limit, before, after);
+    }
+
     /**
      * 특정 작업의 최신 이벤트 조회
      */
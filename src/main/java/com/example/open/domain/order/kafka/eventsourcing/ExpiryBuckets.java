@@ -0,0 +1,72 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 시간 버킷 기반 만료 인덱스
+ *
+ * - 키(taskId)를 마지막 갱신 시간의 버킷(bucketMillis 단위)에 등록
+ * - 갱신으로 버킷이 바뀌면 새 버킷에 다시 등록 (이전 버킷 항목은 지연 삭제)
+ * - 만료 시 cutoff 이전 버킷만 꺼내므로 비용 = 만료 대상 수 (+ 지연 삭제 항목)
+ *
+ * 버킷에서 꺼낸 키가 실제로 만료인지(그 사이 다른 버킷으로 옮겨갔는지)는 호출자가 확인
+ */
+final class ExpiryBuckets {
+
+    private final long bucketMillis;
+
+    // 버킷 번호 -> 키 목록 (번호순 정렬)
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+
+    ExpiryBuckets(long bucketMillis) {
+        this.bucketMillis = bucketMillis;
+    }
+
+    long bucketOf(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis);
+    }
+
+    void add(String key, long bucket) {
+        while (true) {
+            Set<String> keys = buckets.computeIfAbsent(bucket, k -> ConcurrentHashMap.newKeySet());
+            keys.add(key);
+            // expire 가 이 목록을 먼저 꺼냈으면 추가한 키가 순회에서 빠질 수 있음 → 새 목록에 다시 등록
+            // (아직 맵에 있으면 이후 꺼내는 expire 가 이 키까지 순회, 양쪽에 모두 전달돼도 호출자가 확인)
+            if (buckets.get(bucket) == keys) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * cutoff 시각 이전에 완전히 끝난 버킷을 제거하며 (키, 버킷 번호)를 전달
+     *
+     * @return 꺼낸 항목 수
+     */
+    int expire(long cutoffMillis, ObjLongConsumer<String> expired) {
+        ConcurrentNavigableMap<Long, Set<String>> due = buckets.headMap(bucketOf(cutoffMillis));
+        int drained = 0;
+        for (Map.Entry<Long, Set<String>> bucket : due.entrySet()) {
+            // 맵에서 뗀 뒤 순회 → 떼기 전에 추가된 키는 모두 전달, 뗀 뒤 추가된 키는 add 가 새 버킷에 다시 등록
+            if (buckets.remove(bucket.getKey(), bucket.getValue())) {
+                for (String key : bucket.getValue()) {
+                    expired.accept(key, bucket.getKey());
+                    drained++;
+                }
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * 등록된 버킷 수 (모니터링용)
+     */
+    int bucketCount() {
+        return buckets.size();
+    }
+}
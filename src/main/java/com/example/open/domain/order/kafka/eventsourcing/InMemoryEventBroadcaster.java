@@ -1,13 +1,20 @@
 package com.example.open.domain.order.kafka.eventsourcing;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.UUID;
+import java.io.Closeable;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 /**
@@ -16,73 +23,296 @@ import java.util.function.Consumer;
  * 단일 서버용 구현체
  * - 같은 JVM 내의 구독자에게만 이벤트 전파
  *
+ * 비동기 전달:
+ * - 구독마다 제한된 크기의 큐 보유, publish 는 큐에 넣기만 하고 즉시 반환
+ * - 소수의 전달 스레드가 큐를 비우며 listener 호출 (구독 하나는 한 번에 한 스레드만 처리 → 순서 보장)
+ * - 느린 구독자는 자기 큐만 차고, 가득 차면 OverflowPolicy 에 따라 처리
+ * - CONFLATE 구독은 작업별로 최신 PROGRESS 하나만 대기 → 구독당 메모리 O(진행 중 작업 수)
+ * - 이벤트는 publish 시 한 번만 직렬화하여 (ProgressEventPayload) 모든 구독자가 공유
+ *
+ * 구독 종류:
+ * - 사용자 전체 구독 (subscribe/subscribePayload): 사용자의 모든 작업 이벤트
+ * - 작업 지정 구독 (subscribeTasks): 지정한 작업의 이벤트만 (taskId 인덱스로 전달, updateTasks 로 변경)
+ *
  * 다중 서버 환경에서는 RedisEventBroadcaster 사용 권장
  */
-@Component
-public class InMemoryEventBroadcaster implements EventBroadcaster {
+public class InMemoryEventBroadcaster implements EventBroadcaster, Closeable {
 
     private static final Logger log = LoggerFactory.getLogger(InMemoryEventBroadcaster.class);
 
+    // 한 번 실행에 구독 하나가 처리하는 최대 이벤트 수 (다른 구독자에게 스레드 양보)
+    private static final int DRAIN_BATCH_SIZE = 32;
+
     // subscriptionId -> Subscription 정보
     private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
 
-    // userId -> subscriptionId 목록 (빠른 조회용)
-    private final Map<String, Set<String>> subscriptionsByUser = new ConcurrentHashMap<>();
+    // 전달 인덱스: 이벤트의 userId/taskId 로 해당 구독만 바로 찾음
+    // - 사용자 전체 구독: userId -> 구독 목록
+    // - 작업 지정 구독: taskId -> 구독 목록 (관련 없는 작업 이벤트는 조회조차 하지 않음)
+    private final Map<String, Set<Subscription>> subscriptionsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> subscriptionsByTask = new ConcurrentHashMap<>();
+
+    private final int queueCapacity;
+    private final OverflowPolicy defaultOverflowPolicy;
+    private final ExecutorService dispatcher;
+    private final ObjectMapper objectMapper;
+
+    // 모니터링 지표
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong conflatedCount = new AtomicLong();
+    private final AtomicLong disconnectedCount = new AtomicLong();
+
+    public InMemoryEventBroadcaster(ObjectMapper objectMapper, int queueCapacity, int dispatcherThreads,
+                                    OverflowPolicy defaultOverflowPolicy) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.defaultOverflowPolicy = defaultOverflowPolicy;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, r -> {
+            Thread thread = new Thread(r, "progress-dispatch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
     @Override
     public void publish(ProgressEvent event) {
-        String userId = event.userId();
-        Set<String> userSubscriptions = subscriptionsByUser.get(userId);
+        publishedCount.incrementAndGet();
 
-        if (userSubscriptions == null || userSubscriptions.isEmpty()) {
-            log.debug("[Broadcaster] 구독자 없음: userId={}", userId);
+        Set<Subscription> userSubscriptions = subscriptionsByUser.get(event.userId());
+        Set<Subscription> taskSubscriptions = subscriptionsByTask.get(event.taskId());
+        if (isEmpty(userSubscriptions) && isEmpty(taskSubscriptions)) {
+            log.debug("[Broadcaster] 구독자 없음: userId={}, taskId={}", event.userId(), event.taskId());
             return;
         }
 
-        int deliveredCount = 0;
-        for (String subscriptionId : userSubscriptions) {
-            Subscription subscription = subscriptions.get(subscriptionId);
-            if (subscription != null) {
-                try {
-                    subscription.listener().accept(event);
-                    deliveredCount++;
-                } catch (Exception e) {
-                    log.error("[Broadcaster] 이벤트 전달 실패: subscriptionId={}", subscriptionId, e);
-                    // 실패한 구독 제거
-                    unsubscribe(subscriptionId);
-                }
+        // 구독자 수와 무관하게 직렬화 1회
+        deliver(ProgressEventPayload.encode(event, objectMapper), userSubscriptions, taskSubscriptions);
+    }
+
+    /**
+     * 일괄 발행: 구독자가 있는 이벤트만 직렬화하고, 구독자별 전달 예약은 배치 끝에 1회
+     * → 같은 구독자에게 가는 이벤트 N건이 전달 스레드를 N번 깨우지 않음
+     */
+    @Override
+    public void publishAll(List<ProgressEvent> events) {
+        List<ProgressEventPayload> payloads = new ArrayList<>(events.size());
+        for (ProgressEvent event : events) {
+            if (hasSubscribers(event.userId(), event.taskId())) {
+                payloads.add(ProgressEventPayload.encode(event, objectMapper));
+            }
+        }
+        publishedCount.addAndGet(events.size());
+        deliverAll(payloads);
+    }
+
+    /**
+     * 이미 직렬화된 이벤트 일괄 발행 (RedisEventBroadcaster 일괄 발행용)
+     */
+    void publishAllPayloads(List<ProgressEventPayload> payloads) {
+        publishedCount.addAndGet(payloads.size());
+        deliverAll(payloads);
+    }
+
+    private void deliverAll(List<ProgressEventPayload> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        Set<Subscription> offered = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ProgressEventPayload payload : payloads) {
+            ProgressEvent event = payload.event();
+            offerAll(payload, subscriptionsByUser.get(event.userId()), offered);
+            offerAll(payload, subscriptionsByTask.get(event.taskId()), offered);
+        }
+        for (Subscription subscription : offered) {
+            subscription.schedule();
+        }
+
+        log.debug("[Broadcaster] 일괄 큐 적재 완료: 이벤트 {}건, 구독자 수={}", payloads.size(), offered.size());
+    }
+
+    /**
+     * 사용자 전체 구독 또는 작업 지정 구독이 있는지 (맵 조회 2회, 할당 없음)
+     */
+    @Override
+    public boolean hasSubscribers(String userId, String taskId) {
+        return !isEmpty(subscriptionsByUser.get(userId)) || !isEmpty(subscriptionsByTask.get(taskId));
+    }
+
+    /**
+     * 이미 직렬화된 이벤트 발행 (RedisEventBroadcaster 가 수신/발행한 JSON 재사용)
+     */
+    void publish(ProgressEventPayload payload) {
+        publishedCount.incrementAndGet();
+
+        ProgressEvent event = payload.event();
+        deliver(payload, subscriptionsByUser.get(event.userId()), subscriptionsByTask.get(event.taskId()));
+    }
+
+    private void deliver(ProgressEventPayload payload, Set<Subscription> userSubscriptions,
+                         Set<Subscription> taskSubscriptions) {
+        int queuedCount = offerAll(payload, userSubscriptions, null) + offerAll(payload, taskSubscriptions, null);
+
+        log.debug("[Broadcaster] 이벤트 큐 적재 완료: userId={}, taskId={}, 구독자 수={}",
+                payload.event().userId(), payload.event().taskId(), queuedCount);
+    }
+
+    /**
+     * @param offered null 이면 적재 즉시 전달 예약, 아니면 적재된 구독을 모아 호출자가 예약
+     */
+    private int offerAll(ProgressEventPayload payload, Set<Subscription> targets, Set<Subscription> offered) {
+        if (targets == null) {
+            return 0;
+        }
+        int queuedCount = 0;
+        for (Subscription subscription : targets) {
+            // 작업 지정 구독은 다른 사용자의 같은 taskId 이벤트를 받지 않음
+            if (subscription.userId.equals(payload.event().userId()) && subscription.offer(payload, offered)) {
+                queuedCount++;
             }
         }
+        return queuedCount;
+    }
 
-        log.debug("[Broadcaster] 이벤트 전파 완료: userId={}, 구독자 수={}", userId, deliveredCount);
+    private static boolean isEmpty(Set<Subscription> targets) {
+        return targets == null || targets.isEmpty();
     }
 
     @Override
     public String subscribe(String userId, Consumer<ProgressEvent> listener) {
+        return subscribe(userId, listener, SubscriptionOptions.defaults());
+    }
+
+    @Override
+    public String subscribe(String userId, Consumer<ProgressEvent> listener, SubscriptionOptions options) {
+        return subscribePayload(userId, payload -> listener.accept(payload.event()), options);
+    }
+
+    @Override
+    public String subscribePayload(String userId, Consumer<ProgressEventPayload> listener, SubscriptionOptions options) {
+        return register(userId, null, listener, options);
+    }
+
+    @Override
+    public String subscribeTasks(String userId, Set<String> taskIds, Consumer<ProgressEventPayload> listener,
+                                 SubscriptionOptions options) {
+        Set<String> subscribed = ConcurrentHashMap.newKeySet();
+        subscribed.addAll(taskIds);
+        return register(userId, subscribed, listener, options);
+    }
+
+    /**
+     * @param taskIds null 이면 사용자 전체 구독
+     */
+    private String register(String userId, Set<String> taskIds, Consumer<ProgressEventPayload> listener,
+                            SubscriptionOptions options) {
         String subscriptionId = UUID.randomUUID().toString();
+        OverflowPolicy overflowPolicy = options.overflowPolicy() != null ? options.overflowPolicy() : defaultOverflowPolicy;
 
-        Subscription subscription = new Subscription(subscriptionId, userId, listener);
+        Subscription subscription = new Subscription(subscriptionId, userId, taskIds, listener, overflowPolicy,
+                options.onEvicted());
         subscriptions.put(subscriptionId, subscription);
 
-        subscriptionsByUser.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet())
-                .add(subscriptionId);
+        if (taskIds == null) {
+            addIndex(subscriptionsByUser, userId, subscription);
+        } else {
+            for (String taskId : taskIds) {
+                addIndex(subscriptionsByTask, taskId, subscription);
+            }
+        }
 
-        log.info("[Broadcaster] 구독 등록: userId={}, subscriptionId={}", userId, subscriptionId);
+        log.info("[Broadcaster] 구독 등록: userId={}, taskIds={}, subscriptionId={}, policy={}",
+                userId, taskIds, subscriptionId, overflowPolicy);
         return subscriptionId;
     }
 
+    /**
+     * 작업 인덱스만 갱신 (구독/큐는 그대로, 이미 큐에 들어간 이벤트는 전달됨)
+     */
+    @Override
+    public boolean updateTasks(String subscriptionId, Set<String> addTaskIds, Set<String> removeTaskIds) {
+        Subscription subscription = subscriptions.get(subscriptionId);
+        if (subscription == null || subscription.taskIds == null) {
+            return false;
+        }
+        synchronized (subscription.taskIds) {
+            if (subscription.closed) {
+                return false;
+            }
+            for (String taskId : removeTaskIds) {
+                if (subscription.taskIds.remove(taskId)) {
+                    removeIndex(subscriptionsByTask, taskId, subscription);
+                }
+            }
+            for (String taskId : addTaskIds) {
+                if (subscription.taskIds.add(taskId)) {
+                    addIndex(subscriptionsByTask, taskId, subscription);
+                }
+            }
+        }
+        log.debug("[Broadcaster] 구독 작업 변경: subscriptionId={}, +{}, -{}", subscriptionId, addTaskIds, removeTaskIds);
+        return true;
+    }
+
     @Override
     public void unsubscribe(String subscriptionId) {
         Subscription subscription = subscriptions.remove(subscriptionId);
         if (subscription != null) {
-            Set<String> userSubscriptions = subscriptionsByUser.get(subscription.userId());
-            if (userSubscriptions != null) {
-                userSubscriptions.remove(subscriptionId);
-                if (userSubscriptions.isEmpty()) {
-                    subscriptionsByUser.remove(subscription.userId());
+            subscription.close();
+            if (subscription.taskIds == null) {
+                removeIndex(subscriptionsByUser, subscription.userId, subscription);
+            } else {
+                synchronized (subscription.taskIds) {
+                    for (String taskId : subscription.taskIds) {
+                        removeIndex(subscriptionsByTask, taskId, subscription);
+                    }
                 }
             }
-            log.info("[Broadcaster] 구독 취소: userId={}, subscriptionId={}", subscription.userId(), subscriptionId);
+            log.info("[Broadcaster] 구독 취소: userId={}, subscriptionId={}", subscription.userId, subscriptionId);
+        }
+    }
+
+    private static void addIndex(Map<String, Set<Subscription>> index, String key, Subscription subscription) {
+        index.compute(key, (k, targets) -> {
+            Set<Subscription> updated = (targets != null) ? targets : ConcurrentHashMap.newKeySet();
+            updated.add(subscription);
+            return updated;
+        });
+    }
+
+    private static void removeIndex(Map<String, Set<Subscription>> index, String key, Subscription subscription) {
+        index.computeIfPresent(key, (k, targets) -> {
+            targets.remove(subscription);
+            return targets.isEmpty() ? null : targets;
+        });
+    }
+
+    /**
+     * 브로드캐스터 판단으로 구독 해제 후 구독자에게 통지
+     */
+    private void evict(Subscription subscription) {
+        unsubscribe(subscription.subscriptionId);
+        if (subscription.onEvicted != null) {
+            try {
+                subscription.onEvicted.run();
+            } catch (Exception e) {
+                log.warn("[Broadcaster] 구독 해제 콜백 실패: subscriptionId={}", subscription.subscriptionId, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(5, TimeUnit.SECONDS)) {
+                dispatcher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            dispatcher.shutdownNow();
+            Thread.currentThread().interrupt();
         }
     }
 
@@ -94,11 +324,242 @@ public class InMemoryEventBroadcaster implements EventBroadcaster {
     }
 
     /**
-     * 구독 정보
+     * 전달 통계 (모니터링용)
+     */
+    public BroadcasterStats getStats() {
+        int maxQueueDepth = 0;
+        long pending = 0;
+        for (Subscription subscription : subscriptions.values()) {
+            int depth = subscription.queueDepth();
+            pending += depth;
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
+        }
+        return new BroadcasterStats(
+                subscriptions.size(),
+                publishedCount.get(),
+                deliveredCount.get(),
+                droppedCount.get(),
+                conflatedCount.get(),
+                disconnectedCount.get(),
+                pending,
+                maxQueueDepth
+        );
+    }
+
+    /**
+     * 브로드캐스터 전달 통계
      */
-    private record Subscription(
-            String subscriptionId,
-            String userId,
-            Consumer<ProgressEvent> listener
+    public record BroadcasterStats(
+            int subscriptions,
+            long published,
+            long delivered,
+            long dropped,
+            long conflated,
+            long disconnected,
+            long pendingEvents,
+            int maxQueueDepth
     ) {}
+
+    /**
+     * 구독 정보 + 전달 큐
+     *
+     * offer 는 publish 스레드, run 은 전달 스레드에서 호출
+     * scheduled 플래그로 구독 하나당 전달 작업이 최대 1개만 실행되도록 보장
+     */
+    private final class Subscription implements Runnable {
+
+        private final String subscriptionId;
+        private final String userId;
+        private final Set<String> taskIds;
+        private final Consumer<ProgressEventPayload> listener;
+        private final OverflowPolicy overflowPolicy;
+        private final Runnable onEvicted;
+
+        private final Deque<Slot> queue = new ArrayDeque<>();
+        // CONFLATE: taskId -> 아직 전달되지 않은 PROGRESS 슬롯 (작업당 최대 1개)
+        private final Map<String, Slot> pendingProgress;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscription(String subscriptionId, String userId, Set<String> taskIds, Consumer<ProgressEventPayload> listener,
+                     OverflowPolicy overflowPolicy, Runnable onEvicted) {
+            this.subscriptionId = subscriptionId;
+            this.userId = userId;
+            this.taskIds = taskIds;
+            this.listener = listener;
+            this.overflowPolicy = overflowPolicy;
+            this.onEvicted = onEvicted;
+            this.pendingProgress = overflowPolicy == OverflowPolicy.CONFLATE ? new HashMap<>() : null;
+        }
+
+        /**
+         * 큐 적재 후 전달 예약 (offered 가 있으면 예약은 호출자가 일괄로)
+         *
+         * @return 적재 여부 (DISCONNECT 정책으로 구독이 해제되면 false)
+         */
+        boolean offer(ProgressEventPayload payload, Set<Subscription> offered) {
+            if (closed) {
+                return false;
+            }
+            ProgressEvent event = payload.event();
+            synchronized (this) {
+                if (pendingProgress != null && conflate(payload)) {
+                    // 대기 중인 슬롯만 교체 → 이미 예약된 전달이 최신 값을 보냄
+                    return true;
+                }
+                if (queue.size() >= queueCapacity && !makeRoom()) {
+                    disconnectedCount.incrementAndGet();
+                    log.warn("[Broadcaster] 큐 초과로 구독 해제: userId={}, subscriptionId={}", userId, subscriptionId);
+                    closed = true;
+                    queue.clear();
+                    // publish 스레드를 붙잡지 않도록 해제/통지는 다른 스레드에서
+                    ForkJoinPool.commonPool().execute(() -> evict(this));
+                    return false;
+                }
+                Slot slot = new Slot(payload);
+                queue.addLast(slot);
+                if (pendingProgress != null && event.eventType() == ProgressEvent.EventType.PROGRESS) {
+                    pendingProgress.put(event.taskId(), slot);
+                }
+            }
+            if (offered == null) {
+                schedule();
+            } else {
+                offered.add(this);
+            }
+            return true;
+        }
+
+        /**
+         * 최신 값 압축 (CONFLATE)
+         *
+         * - PROGRESS: 같은 작업의 대기 슬롯이 있으면 그 자리의 이벤트만 최신으로 교체
+         * - STARTED/COMPLETED/FAILED: 항상 새로 적재, 이후 PROGRESS 는 그 뒤에 새 슬롯으로
+         *   (대기 중이던 PROGRESS 는 앞자리에 그대로 남아 순서 유지)
+         *
+         * @return 교체로 처리되었으면 true
+         */
+        private boolean conflate(ProgressEventPayload payload) {
+            ProgressEvent event = payload.event();
+            if (event.eventType() != ProgressEvent.EventType.PROGRESS) {
+                pendingProgress.remove(event.taskId());
+                return false;
+            }
+            Slot pending = pendingProgress.get(event.taskId());
+            if (pending == null) {
+                return false;
+            }
+            pending.payload = payload;
+            conflatedCount.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * 큐가 가득 찼을 때 정책에 따라 공간 확보
+         * - DROP_OLDEST: 가장 오래된 것부터 버림
+         * - CONFLATE: 가장 오래된 PROGRESS 만 버림 (STARTED/COMPLETED/FAILED 는 버리지 않음)
+         *   PROGRESS 가 없으면 구독 해제 → 클라이언트는 Last-Event-ID 로 재접속하여 누락 없이 복구
+         *
+         * @return false 면 공간 확보 실패 (구독 해제 필요)
+         */
+        private boolean makeRoom() {
+            if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                return false;
+            }
+            Slot dropped = (overflowPolicy == OverflowPolicy.CONFLATE) ? pollOldestProgress() : queue.pollFirst();
+            if (dropped == null) {
+                return false;
+            }
+            release(dropped);
+            droppedCount.incrementAndGet();
+            return true;
+        }
+
+        private Slot pollOldestProgress() {
+            Iterator<Slot> it = queue.iterator();
+            while (it.hasNext()) {
+                Slot slot = it.next();
+                if (slot.payload.event().eventType() == ProgressEvent.EventType.PROGRESS) {
+                    it.remove();
+                    return slot;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * 큐에서 빠진 슬롯의 압축 대상 등록 해제
+         */
+        private void release(Slot slot) {
+            if (pendingProgress != null) {
+                pendingProgress.remove(slot.payload.event().taskId(), slot);
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // 종료 중: 남은 이벤트는 버림
+                    scheduled.set(false);
+                    log.debug("[Broadcaster] 종료 중 전달 생략: subscriptionId={}", subscriptionId);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE && !closed; i++) {
+                ProgressEventPayload payload;
+                synchronized (this) {
+                    Slot slot = queue.pollFirst();
+                    if (slot == null) {
+                        break;
+                    }
+                    release(slot);
+                    payload = slot.payload;
+                }
+                try {
+                    listener.accept(payload);
+                    deliveredCount.incrementAndGet();
+                } catch (Exception e) {
+                    log.error("[Broadcaster] 이벤트 전달 실패: subscriptionId={}", subscriptionId, e);
+                    // 실패한 구독 제거
+                    evict(this);
+                }
+            }
+
+            scheduled.set(false);
+            // 처리 중 새로 쌓인 이벤트가 있으면 다시 예약
+            if (!closed && queueDepth() > 0) {
+                schedule();
+            }
+        }
+
+        synchronized int queueDepth() {
+            return queue.size();
+        }
+
+        void close() {
+            closed = true;
+            synchronized (this) {
+                queue.clear();
+                if (pendingProgress != null) {
+                    pendingProgress.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * 큐 항목 (CONFLATE 시 payload 가 최신 값으로 교체됨, Subscription 락 안에서만 접근)
+     */
+    private static final class Slot {
+        private ProgressEventPayload payload;
+
+        Slot(ProgressEventPayload payload) {
+            this.payload = payload;
+        }
+    }
 }
@@ -2,12 +2,11 @@ package com.example.open.domain.order.kafka.eventsourcing;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Component;
 
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 인메모리 Event Store 구현체
@@ -16,109 +15,322 @@ import java.util.stream.Collectors;
  * - 단일 서버에서만 동작
  * - 서버 재시작 시 데이터 소실
  *
- * 프로덕션에서는 RedisEventStore 또는 JpaEventStore 사용 권장
+ * 동시성:
+ * - 쓰기는 작업 단위로만 직렬화 (TaskEvents 모니터, 같은 작업에 동시 쓰기는 드묾)
+ * - 조회는 잠금 없이 CompactEventLog.View 사용 → 재접속 히스토리 조회가 append 와 경합하지 않음
+ * - 작업이 이미 있으면 맵 잠금 없이 기존 TaskEvents 에 추가 (ConcurrentHashMap 조회만)
+ *
+ * TTL 정리:
+ * - 작업을 마지막 이벤트 시간의 버킷(ExpiryBuckets)에 등록, append 시 버킷 갱신
+ * - cleanup 은 만료된 버킷만 꺼내 삭제 (전체 작업 순회 없음)
+ *
+ * 작업별 보존 한도 (maxProgressEvents, 0 이면 무제한):
+ * - STARTED/COMPLETED/FAILED 는 항상 보존, PROGRESS 는 최근 N 건만 보존
+ * - PROGRESS 가 2N 건이 되면 오래된 것부터 N 건으로 압축 (이동 비용 분할 상환)
+ * - 압축된 이벤트는 스냅샷(eventCount, startedAt)에만 반영 → 상태 조회 결과는 압축 전과 동일
+ *
+ * 프로덕션에서는 MappedSegmentEventStore, RedisEventStore 또는 JpaEventStore 사용 권장
  */
-@Component
 public class InMemoryEventStore implements EventStore {
 
     private static final Logger log = LoggerFactory.getLogger(InMemoryEventStore.class);
+    private static final long DEFAULT_EXPIRY_BUCKET_MILLIS = 10_000L;
+    private static final int UNLIMITED = 0;
 
-    // taskId -> 이벤트 목록 (시간순 정렬)
-    private final Map<String, List<ProgressEvent>> eventsByTask = new ConcurrentHashMap<>();
+    // taskId -> 작업별 이벤트 목록 + 스냅샷
+    private final Map<String, TaskEvents> eventsByTask = new ConcurrentHashMap<>();
 
     // userId -> taskId 목록 (사용자별 작업 추적)
     private final Map<String, Set<String>> tasksByUser = new ConcurrentHashMap<>();
 
+    // 마지막 이벤트 시간 기준 만료 버킷
+    private final ExpiryBuckets expiryBuckets;
+
+    // 작업별 보존할 PROGRESS 이벤트 수 (0 이면 무제한)
+    private final int maxProgressEvents;
+
+    // 저장된 이벤트 수 / 추정 메모리 (TaskEvents 가 변경분만 반영, 조회 시 순회 없음)
+    private final SizeCounters sizeCounters = new SizeCounters();
+
+    public InMemoryEventStore() {
+        this(DEFAULT_EXPIRY_BUCKET_MILLIS);
+    }
+
+    public InMemoryEventStore(long expiryBucketMillis) {
+        this(expiryBucketMillis, UNLIMITED);
+    }
+
+    public InMemoryEventStore(long expiryBucketMillis, int maxProgressEvents) {
+        this.expiryBuckets = new ExpiryBuckets(expiryBucketMillis);
+        this.maxProgressEvents = maxProgressEvents;
+    }
+
     @Override
-    public void append(ProgressEvent event) {
-        // taskId별 이벤트 저장
-        eventsByTask.computeIfAbsent(event.taskId(), k -> Collections.synchronizedList(new ArrayList<>()))
-                .add(event);
+    public ProgressEvent append(ProgressEvent event) {
+        // taskId별 이벤트 저장 (순번 부여 + 스냅샷 증분 갱신 포함)
+        // 만료 삭제와 겹쳐 이미 제거된 TaskEvents 였다면 새로 만들어 다시 시도
+        ProgressEvent stored;
+        do {
+            TaskEvents target = eventsByTask.get(event.taskId());
+            if (target == null) {
+                target = eventsByTask.computeIfAbsent(event.taskId(),
+                        taskId -> new TaskEvents(taskId, event.userId(), maxProgressEvents, sizeCounters));
+            }
+            stored = target.append(event, expiryBuckets);
+        } while (stored == null);
+
+        indexUserTask(event.userId(), event.taskId());
+
+        log.debug("[EventStore] 이벤트 저장: taskId={}, seq={}, type={}, step={}/{}",
+                event.taskId(), stored.sequence(), event.eventType(), event.currentStep(), event.totalSteps());
+        return stored;
+    }
 
-        // userId별 taskId 매핑
-        tasksByUser.computeIfAbsent(event.userId(), k -> ConcurrentHashMap.newKeySet())
-                .add(event.taskId());
+    /**
+     * 이미 순번/이벤트 ID 가 부여된 이벤트 복원 (영속 저장소에서 재적재 시 사용)
+     *
+     * 순번을 새로 부여하지 않으므로 재시작 후에도 SSE id / 커서가 그대로 유효
+     * 이후 append 는 복원된 최대 순번 다음부터 부여
+     */
+    public void restore(ProgressEvent event) {
+        ProgressEvent stored;
+        do {
+            TaskEvents target = eventsByTask.computeIfAbsent(event.taskId(),
+                    taskId -> new TaskEvents(taskId, event.userId(), maxProgressEvents, sizeCounters));
+            stored = target.restore(event, expiryBuckets);
+        } while (stored == null);
 
-        log.debug("[EventStore] 이벤트 저장: taskId={}, type={}, step={}/{}",
-                event.taskId(), event.eventType(), event.currentStep(), event.totalSteps());
+        indexUserTask(event.userId(), event.taskId());
+    }
+
+    /**
+     * userId별 taskId 매핑 (작업 저장 후 호출)
+     *
+     * cleanup 의 매핑 제거와 같은 키 잠금(compute)으로 직렬화
+     * → 만료 삭제와 겹쳐 다시 생성된 작업이 사용자 인덱스에서 빠지지 않음
+     */
+    private void indexUserTask(String userId, String taskId) {
+        tasksByUser.compute(userId, (k, userTasks) -> {
+            Set<String> tasks = (userTasks == null) ? ConcurrentHashMap.newKeySet() : userTasks;
+            tasks.add(taskId);
+            return tasks;
+        });
     }
 
     @Override
     public List<ProgressEvent> getEventsByTaskId(String taskId) {
-        List<ProgressEvent> events = eventsByTask.get(taskId);
+        TaskEvents events = eventsByTask.get(taskId);
+        if (events == null) {
+            return Collections.emptyList();
+        }
+        // 현재 시점의 불변 View 반환 (복사 없음)
+        return events.view();
+    }
+
+    @Override
+    public List<ProgressEvent> getEventsAfter(String taskId, long sequence) {
+        TaskEvents events = eventsByTask.get(taskId);
         if (events == null) {
             return Collections.emptyList();
         }
-        // 불변 복사본 반환
-        return new ArrayList<>(events);
+        return events.after(sequence);
     }
 
     @Override
     public List<ProgressEvent> getEventsByUserId(String userId) {
+        return getEventsByUserId(userId, UserEventPage.UNLIMITED, null, null).events();
+    }
+
+    /**
+     * 작업별 시간순 목록을 k-way 병합 (전체 정렬/복사 없이 limit 건만 꺼냄)
+     *
+     * - after 또는 커서 없음: 앞에서부터 limit 건
+     * - before 만 지정: 커서 직전의 마지막 limit 건 (역방향 병합 후 뒤집음)
+     */
+    @Override
+    public UserEventPage getEventsByUserId(String userId, int limit, EventCursor before, EventCursor after) {
         Set<String> taskIds = tasksByUser.get(userId);
-        if (taskIds == null) {
-            return Collections.emptyList();
+        if (taskIds == null || limit <= 0) {
+            return UserEventPage.of(Collections.emptyList(), false);
+        }
+
+        boolean backward = before != null && after == null;
+        Comparator<MergeHead> order = Comparator.comparing(h -> h.current, EventCursor.ORDER);
+        PriorityQueue<MergeHead> heads = new PriorityQueue<>(backward ? order.reversed() : order);
+
+        for (String taskId : taskIds) {
+            TaskEvents task = eventsByTask.get(taskId);
+            if (task == null) {
+                continue;
+            }
+            // 작업별로 한 시점의 View 에서 범위 계산과 순회를 함께 수행
+            CompactEventLog.View events = task.view();
+            int from = (after == null) ? 0 : indexAfter(events, taskId, after);
+            int to = (before == null) ? events.size() : indexBefore(events, taskId, before);
+            MergeHead head = backward ? new MergeHead(events, to - 1, from - 1, -1) : new MergeHead(events, from, to, 1);
+            if (head.advance()) {
+                heads.add(head);
+            }
         }
 
-        return taskIds.stream()
-                .flatMap(taskId -> getEventsByTaskId(taskId).stream())
-                .sorted(Comparator.comparing(ProgressEvent::timestamp))
-                .collect(Collectors.toList());
+        List<ProgressEvent> page = new ArrayList<>(Math.min(limit, 64));
+        while (!heads.isEmpty() && page.size() < limit) {
+            MergeHead head = heads.poll();
+            page.add(head.current);
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+
+        if (backward) {
+            Collections.reverse(page);
+        }
+        return UserEventPage.of(page, !heads.isEmpty());
     }
 
     @Override
     public Optional<ProgressEvent> getLatestEvent(String taskId) {
-        List<ProgressEvent> events = eventsByTask.get(taskId);
-        if (events == null || events.isEmpty()) {
+        TaskEvents events = eventsByTask.get(taskId);
+        if (events == null) {
             return Optional.empty();
         }
-        return Optional.of(events.get(events.size() - 1));
+        return Optional.ofNullable(events.latest);
     }
 
+    /**
+     * append 시점에 증분 갱신된 스냅샷을 그대로 반환 (리플레이/복사 없음)
+     */
     @Override
     public Optional<ProgressSnapshot> getSnapshot(String taskId) {
-        List<ProgressEvent> events = getEventsByTaskId(taskId);
-        if (events.isEmpty()) {
+        TaskEvents events = eventsByTask.get(taskId);
+        if (events == null) {
             return Optional.empty();
         }
-        return Optional.ofNullable(ProgressSnapshot.fromEvents(events));
+        return Optional.ofNullable(events.snapshot);
+    }
+
+    /**
+     * 커서 이벤트 바로 다음 인덱스
+     */
+    private static int indexAfter(CompactEventLog.View events, String taskId, EventCursor cursor) {
+        long millis = cursor.timestamp().toEpochMilli();
+        int index = lowerBound(events, millis);
+        int runEnd = upperBound(events, millis);
+        int byTask = taskId.compareTo(cursor.taskId());
+        if (byTask > 0) {
+            return index;
+        }
+        if (byTask < 0) {
+            return runEnd;
+        }
+        for (int i = index; i < runEnd; i++) {
+            if (events.eventIdAt(i).equals(cursor.eventId())) {
+                return i + 1;
+            }
+        }
+        return runEnd;
+    }
+
+    /**
+     * 커서 이벤트의 인덱스 (그 앞까지가 before 범위)
+     */
+    private static int indexBefore(CompactEventLog.View events, String taskId, EventCursor cursor) {
+        long millis = cursor.timestamp().toEpochMilli();
+        int index = lowerBound(events, millis);
+        int runEnd = upperBound(events, millis);
+        int byTask = taskId.compareTo(cursor.taskId());
+        if (byTask > 0) {
+            return index;
+        }
+        if (byTask < 0) {
+            return runEnd;
+        }
+        for (int i = index; i < runEnd; i++) {
+            if (events.eventIdAt(i).equals(cursor.eventId())) {
+                return i;
+            }
+        }
+        return index;
     }
 
+    // timestamp 이상인 첫 인덱스
+    private static int lowerBound(CompactEventLog.View events, long millis) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (events.timestampAt(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // timestamp 초과인 첫 인덱스
+    private static int upperBound(CompactEventLog.View events, long millis) {
+        int low = 0;
+        int high = events.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (events.timestampAt(mid) > millis) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * cutoff 이전 버킷에 등록된 작업만 확인하여 삭제
+     *
+     * 버킷을 꺼낸 뒤 새 이벤트로 더 최근 버킷에 다시 등록된 작업은 유지
+     */
     @Override
     public void cleanup(long ttlMillis) {
-        Instant cutoff = Instant.now().minusMillis(ttlMillis);
-        int removedCount = 0;
-
-        Iterator<Map.Entry<String, List<ProgressEvent>>> iterator = eventsByTask.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, List<ProgressEvent>> entry = iterator.next();
-            List<ProgressEvent> events = entry.getValue();
-
-            if (!events.isEmpty()) {
-                ProgressEvent lastEvent = events.get(events.size() - 1);
-                // 마지막 이벤트가 TTL을 초과한 경우 삭제
-                if (lastEvent.timestamp().isBefore(cutoff)) {
-                    iterator.remove();
-                    removedCount++;
-
-                    // userId -> taskId 매핑도 정리
-                    String userId = lastEvent.userId();
-                    Set<String> userTasks = tasksByUser.get(userId);
-                    if (userTasks != null) {
-                        userTasks.remove(entry.getKey());
-                        if (userTasks.isEmpty()) {
-                            tasksByUser.remove(userId);
-                        }
+        long cutoff = Instant.now().toEpochMilli() - ttlMillis;
+        int[] removedCount = {0};
+
+        int drained = expiryBuckets.expire(cutoff, (taskId, bucket) -> {
+            TaskEvents removed = removeIfExpired(taskId, bucket);
+            if (removed != null) {
+                removedCount[0]++;
+                // userId -> taskId 매핑도 정리 (그 사이 append 가 작업을 다시 만들었으면 유지)
+                String userId = removed.latest.userId();
+                tasksByUser.computeIfPresent(userId, (k, userTasks) -> {
+                    if (!eventsByTask.containsKey(taskId)) {
+                        userTasks.remove(taskId);
                     }
-                }
+                    return userTasks.isEmpty() ? null : userTasks;
+                });
             }
-        }
+        });
 
-        if (removedCount > 0) {
-            log.info("[EventStore] 정리 완료: {}개 작업 삭제됨", removedCount);
+        if (removedCount[0] > 0) {
+            log.info("[EventStore] 정리 완료: {}개 작업 삭제됨 (확인 {}건)", removedCount[0], drained);
         }
     }
 
+    /**
+     * 작업이 아직 해당 버킷에 머물러 있으면 삭제
+     *
+     * 제거 표시는 TaskEvents 모니터 안에서 → 동시에 진행 중인 append 는 끝난 뒤 판단,
+     * 이후 append 는 제거된 것을 보고 새 TaskEvents 로 재시도
+     */
+    private TaskEvents removeIfExpired(String taskId, long bucket) {
+        TaskEvents[] removed = {null};
+        eventsByTask.computeIfPresent(taskId, (k, events) -> {
+            if (!events.markRemovedIfExpired(bucket)) {
+                return events;
+            }
+            removed[0] = events;
+            return null;
+        });
+        return removed[0];
+    }
+
     /**
      * 현재 저장된 작업 수 (모니터링용)
      */
@@ -127,11 +339,257 @@ public class InMemoryEventStore implements EventStore {
     }
 
     /**
-     * 현재 저장된 전체 이벤트 수 (모니터링용)
+     * 현재 저장된 전체 이벤트 수 (모니터링용, 압축된 이벤트 제외)
      */
     public int getTotalEventCount() {
-        return eventsByTask.values().stream()
-                .mapToInt(List::size)
-                .sum();
+        return (int) Math.min(Integer.MAX_VALUE, sizeCounters.events.sum());
+    }
+
+    /**
+     * 이벤트 로그 배열 기준 추정 메모리 (모니터링용)
+     */
+    public long getEstimatedBytes() {
+        return sizeCounters.bytes.sum();
+    }
+
+    /**
+     * 저장소 크기 통계 (모니터링용, 모두 증분 집계값)
+     */
+    public StoreStats getStats() {
+        return new StoreStats(getTaskCount(), sizeCounters.events.sum(), sizeCounters.bytes.sum());
+    }
+
+    public record StoreStats(
+            int tasks,
+            long events,
+            long estimatedBytes
+    ) {}
+
+    /**
+     * 저장소 전체 크기 합계 (작업별 변경분을 더함)
+     */
+    private static final class SizeCounters {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+    }
+
+    /**
+     * 작업별 이벤트 저장소
+     *
+     * - 이벤트는 CompactEventLog 에 압축 저장, 조회 시에만 ProgressEvent 생성
+     * - 쓰기(append)만 모니터로 직렬화, 조회는 view() 로 잠금/복사 없이 수행
+     * - 최신 이벤트와 스냅샷은 volatile 필드로 공개 → 상태 조회 시 잠금/복사 없음
+     * - 보존 한도 초과 시 오래된 PROGRESS 를 제거하고 그 수/시각만 기억 (스냅샷 재계산용)
+     */
+    private static final class TaskEvents {
+
+        private final CompactEventLog events;
+        private volatile ProgressEvent latest;
+        private volatile ProgressSnapshot snapshot;
+
+        // 이하 쓰기 상태 (모니터 안에서만 접근)
+
+        // 현재 등록된 만료 버킷, 만료로 맵에서 제거되었는지
+        private long expiryBucket = Long.MIN_VALUE;
+        private boolean removed;
+
+        // 마지막으로 부여한 순번
+        private long lastSequence;
+
+        // 보존 한도 (0 이면 무제한), 보존 중인 PROGRESS 수
+        private final int maxProgressEvents;
+        private int progressCount;
+
+        // 압축으로 제거된 이벤트 수와 그중 가장 이른 시각
+        private int compactedCount;
+        private Instant compactedStartedAt;
+
+        // 저장소 합계에 반영한 이 작업의 크기
+        private final SizeCounters sizeCounters;
+        private int countedEvents;
+        private long countedBytes;
+
+        TaskEvents(String taskId, String userId, int maxProgressEvents, SizeCounters sizeCounters) {
+            this.events = new CompactEventLog(taskId, userId);
+            this.maxProgressEvents = maxProgressEvents;
+            this.sizeCounters = sizeCounters;
+        }
+
+        /**
+         * 순번 부여 후 저장 + 만료 버킷 갱신
+         *
+         * 시간순 유지: 늦게 도착한 과거 이벤트는 정렬 위치에 삽입 (드문 경로)
+         * 순번은 도착 순서대로 부여 (= 구독자에게 전파되는 순서)
+         *
+         * @return 만료로 이미 제거된 경우 null (호출자가 재시도)
+         */
+        synchronized ProgressEvent append(ProgressEvent event, ExpiryBuckets expiryBuckets) {
+            if (removed) {
+                return null;
+            }
+            return store(event.withSequence(++lastSequence), expiryBuckets);
+        }
+
+        /**
+         * 순번이 이미 부여된 이벤트 저장 (재적재용)
+         *
+         * @return 만료로 이미 제거된 경우 null (호출자가 재시도)
+         */
+        synchronized ProgressEvent restore(ProgressEvent event, ExpiryBuckets expiryBuckets) {
+            if (removed) {
+                return null;
+            }
+            lastSequence = Math.max(lastSequence, event.sequence());
+            return store(event, expiryBuckets);
+        }
+
+        private ProgressEvent store(ProgressEvent stored, ExpiryBuckets expiryBuckets) {
+            if (stored.eventType() == ProgressEvent.EventType.PROGRESS) {
+                progressCount++;
+            }
+            if (latest != null && stored.timestamp().isBefore(latest.timestamp())) {
+                events.insert(upperBound(events.view(), stored.timestamp().toEpochMilli()), stored);
+                snapshot = ProgressSnapshot.fromEvents(events.view()).withCompacted(compactedCount, compactedStartedAt);
+            } else {
+                events.add(stored);
+                snapshot = (snapshot == null) ? ProgressSnapshot.initial(stored) : snapshot.apply(stored);
+                latest = stored;
+            }
+            if (maxProgressEvents > 0 && progressCount >= 2 * maxProgressEvents) {
+                compact();
+            }
+            recount(events.size(), events.estimatedBytes());
+
+            long bucket = expiryBuckets.bucketOf(stored.timestamp().toEpochMilli());
+            if (bucket > expiryBucket) {
+                expiryBucket = bucket;
+                expiryBuckets.add(stored.taskId(), bucket);
+            }
+            return stored;
+        }
+
+        /**
+         * 만료 버킷 이후 새 이벤트가 없으면 제거 표시
+         */
+        synchronized boolean markRemovedIfExpired(long bucket) {
+            if (expiryBucket > bucket) {
+                return false;
+            }
+            removed = true;
+            recount(0, 0);
+            return true;
+        }
+
+        // 변경분만 저장소 합계에 반영
+        private void recount(int eventCount, long bytes) {
+            if (eventCount != countedEvents) {
+                sizeCounters.events.add(eventCount - countedEvents);
+                countedEvents = eventCount;
+            }
+            if (bytes != countedBytes) {
+                sizeCounters.bytes.add(bytes - countedBytes);
+                countedBytes = bytes;
+            }
+        }
+
+        /**
+         * 오래된 PROGRESS 를 제거하여 최근 maxProgressEvents 건만 보존
+         *
+         * 스냅샷은 append 시 이미 모든 이벤트가 반영되어 있으므로 그대로 유지
+         */
+        private void compact() {
+            CompactEventLog.View before = events.view();
+            int[] toRemove = {progressCount - maxProgressEvents};
+            int removedCount = events.removeIf(index -> {
+                if (toRemove[0] == 0 || before.typeAt(index) != ProgressEvent.EventType.PROGRESS) {
+                    return false;
+                }
+                if (compactedStartedAt == null || before.timestampAt(index) < compactedStartedAt.toEpochMilli()) {
+                    compactedStartedAt = Instant.ofEpochMilli(before.timestampAt(index));
+                }
+                toRemove[0]--;
+                return true;
+            });
+            progressCount -= removedCount;
+            compactedCount += removedCount;
+        }
+
+        /**
+         * 현재 시점의 불변 목록 (잠금/복사 없음)
+         */
+        CompactEventLog.View view() {
+            return events.view();
+        }
+
+        /**
+         * sequence 이후 이벤트 (순번순)
+         *
+         * 삽입이 없었다면 인덱스 순서 = 순번 순서이므로 이분 탐색 후 뒤쪽 구간만 반환 (복사 없음)
+         * (압축으로 순번 사이가 비어 있어도 증가 순서는 유지)
+         */
+        List<ProgressEvent> after(long sequence) {
+            CompactEventLog.View view = events.view();
+            int size = view.size();
+            if (view.sequenceOrdered()) {
+                return view.subList(sequenceUpperBound(view, sequence), size);
+            }
+            List<ProgressEvent> matched = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (view.sequenceAt(i) > sequence) {
+                    matched.add(view.get(i));
+                }
+            }
+            matched.sort(Comparator.comparingLong(ProgressEvent::sequence));
+            return matched;
+        }
+
+        // sequence 초과인 첫 인덱스 (sequenceOrdered 인 View 에서만 유효)
+        private static int sequenceUpperBound(CompactEventLog.View view, long sequence) {
+            int low = 0;
+            int high = view.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (view.sequenceAt(mid) > sequence) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+        int size() {
+            return events.view().size();
+        }
+    }
+
+    /**
+     * k-way 병합 중인 작업 하나의 읽기 위치
+     *
+     * 범위 [index, bound) 를 step 방향(+1/-1)으로 순회
+     */
+    private static final class MergeHead {
+
+        private final CompactEventLog.View events;
+        private final int bound;
+        private final int step;
+        private int index;
+        private ProgressEvent current;
+
+        MergeHead(CompactEventLog.View events, int start, int bound, int step) {
+            this.events = events;
+            this.bound = bound;
+            this.step = step;
+            this.index = start;
+        }
+
+        boolean advance() {
+            if (step > 0 ? index >= bound : index <= bound) {
+                return false;
+            }
+            current = events.get(index);
+            index += step;
+            return true;
+        }
     }
 }
@@ -0,0 +1,120 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * progress_events 테이블 접근 (WriteBehindEventStore 전용)
+ *
+ * 테이블은 Flyway 마이그레이션 V4__create_progress_events_table.sql 로 생성 (기동 시 적용)
+ *
+ * - 쓰기: 여러 행을 INSERT 문 하나로 전송 (그룹 커밋 1회 = 왕복 1회)
+ * - PK (task_id, sequence) 충돌만 무시 → 실패 후 재시도해도 안전
+ *   (INSERT IGNORE 는 길이 초과 등 데이터 오류까지 경고로 바꿔 잘린 행이 저장되므로 사용하지 않음)
+ * - 정리는 작업 단위 (마지막 이벤트가 cutoff 이전인 작업만 전체 삭제, 진행 중인 작업의 앞부분은 유지)
+ */
+public class JdbcProgressEventRepository {
+
+    private static final String INSERT_PREFIX = "INSERT INTO progress_events " +
+            "(task_id, sequence, event_id, user_id, event_type, current_step, total_steps, percentage, step_name, occurred_at) VALUES ";
+    private static final String INSERT_SUFFIX = " ON DUPLICATE KEY UPDATE task_id = task_id";
+
+    // 마지막 이벤트가 since 이후인 작업의 이벤트 전체 (작업별 순번순)
+    private static final String SELECT_HOT_TASKS = "SELECT e.* FROM progress_events e " +
+            "JOIN (SELECT task_id FROM progress_events GROUP BY task_id HAVING MAX(occurred_at) >= :since) hot " +
+            "ON e.task_id = hot.task_id " +
+            "ORDER BY e.task_id, e.sequence";
+
+    // 마지막 이벤트가 cutoff 이전인 작업의 이벤트 전체 (같은 테이블 서브쿼리는 파생 테이블로 조인)
+    // 후보는 occurred_at 인덱스로 cutoff 이전 이벤트가 있는 작업만, 그중 cutoff 이후 이벤트가 없는 작업을 PK(task_id) 로 확인
+    // → 매분 정리 시 테이블 전체를 GROUP BY 하지 않음 (DISTINCT 로 파생 테이블 병합 방지)
+    private static final String DELETE_EXPIRED_TASKS = "DELETE e FROM progress_events e " +
+            "JOIN (SELECT DISTINCT candidate.task_id FROM " +
+            "(SELECT DISTINCT task_id FROM progress_events WHERE occurred_at < :cutoff) candidate " +
+            "WHERE NOT EXISTS (SELECT 1 FROM progress_events recent " +
+            "WHERE recent.task_id = candidate.task_id AND recent.occurred_at >= :cutoff)) expired " +
+            "ON e.task_id = expired.task_id";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public JdbcProgressEventRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    /**
+     * 다중 행 INSERT (events 는 비어 있지 않아야 함)
+     */
+    public int insertAll(List<ProgressEvent> events) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + events.size() * 160 + INSERT_SUFFIX.length())
+                .append(INSERT_PREFIX);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        for (int i = 0; i < events.size(); i++) {
+            ProgressEvent event = events.get(i);
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("(:taskId").append(i)
+                    .append(", :sequence").append(i)
+                    .append(", :eventId").append(i)
+                    .append(", :userId").append(i)
+                    .append(", :eventType").append(i)
+                    .append(", :currentStep").append(i)
+                    .append(", :totalSteps").append(i)
+                    .append(", :percentage").append(i)
+                    .append(", :stepName").append(i)
+                    .append(", :occurredAt").append(i)
+                    .append(')');
+            params.addValue("taskId" + i, event.taskId(), Types.VARCHAR)
+                    .addValue("sequence" + i, event.sequence(), Types.BIGINT)
+                    .addValue("eventId" + i, event.eventId(), Types.VARCHAR)
+                    .addValue("userId" + i, event.userId(), Types.VARCHAR)
+                    .addValue("eventType" + i, event.eventType().name(), Types.VARCHAR)
+                    .addValue("currentStep" + i, event.currentStep(), Types.INTEGER)
+                    .addValue("totalSteps" + i, event.totalSteps(), Types.INTEGER)
+                    .addValue("percentage" + i, event.percentage(), Types.INTEGER)
+                    .addValue("stepName" + i, event.stepName(), Types.VARCHAR)
+                    .addValue("occurredAt" + i, event.timestamp().toEpochMilli(), Types.BIGINT);
+        }
+        sql.append(INSERT_SUFFIX);
+        return namedParameterJdbcTemplate.update(sql.toString(), params);
+    }
+
+    /**
+     * 최근 활동한 작업의 이벤트를 순서대로 전달 (목록으로 모으지 않고 행 단위 처리)
+     */
+    public void forEachHotTaskEvent(long sinceMillis, Consumer<ProgressEvent> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("since", sinceMillis, Types.BIGINT);
+        namedParameterJdbcTemplate.query(SELECT_HOT_TASKS, params, (RowCallbackHandler) rs -> consumer.accept(toEvent(rs)));
+    }
+
+    /**
+     * 마지막 이벤트가 cutoffMillis 이전인 작업 삭제 (메모리 저장소의 작업 단위 만료와 동일 기준)
+     */
+    public int deleteExpiredTasks(long cutoffMillis) {
+        MapSqlParameterSource params = new MapSqlParameterSource().addValue("cutoff", cutoffMillis, Types.BIGINT);
+        return namedParameterJdbcTemplate.update(DELETE_EXPIRED_TASKS, params);
+    }
+
+    private static ProgressEvent toEvent(ResultSet rs) throws SQLException {
+        return new ProgressEvent(
+                rs.getString("event_id"),
+                rs.getString("task_id"),
+                rs.getString("user_id"),
+                rs.getInt("current_step"),
+                rs.getInt("total_steps"),
+                rs.getInt("percentage"),
+                rs.getString("step_name"),
+                ProgressEvent.EventType.valueOf(rs.getString("event_type")),
+                Instant.ofEpochMilli(rs.getLong("occurred_at")),
+                rs.getLong("sequence")
+        );
+    }
+}
@@ -0,0 +1,648 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 메모리 맵 세그먼트 기반 Event Store 구현체 (파일 영속)
+ *
+ * 저장 구조:
+ * - 고정 크기 세그먼트 파일(00000000000000000001.seg ...)에 append-only 로 기록
+ * - 레코드: [int 길이][int CRC32][바이너리 페이로드]
+ * - 길이 0 = 세그먼트 데이터 끝 (새 파일은 0으로 채워져 있음)
+ *
+ * 인덱스:
+ * - taskId -> 레코드 위치 목록 (세그먼트 번호 << 32 | 오프셋)
+ * - 조회는 위치로 바로 읽는 랜덤 리드 (전체 스캔 없음)
+ * - 기동 시 세그먼트 파일을 순차 스캔하여 인덱스 복구
+ *   (CRC 불일치 = 쓰다 만 레코드 → 그 지점부터 이어서 기록)
+ *
+ * TTL 정리:
+ * - 세그먼트 단위로 통째 삭제 (세그먼트의 마지막 이벤트 시간이 TTL 초과 시)
+ * - 활성 세그먼트의 가장 오래된 이벤트가 TTL 을 넘으면 봉인 (다음 append 는 새 세그먼트)
+ *   → 세그먼트가 가득 차지 않는 저트래픽 노드에서도 최대 TTL x 2 안에 삭제됨
+ * - 엔트리 단위 스캔 없음
+ *
+ * 내구성:
+ * - 기록은 매핑된 페이지에만 반영되므로 프로세스 크래시에는 유실 없음 (OS 페이지 캐시에 남음)
+ * - OS 크래시/전원 장애 시에는 마지막 force 이후 기록이 유실될 수 있음
+ * - force 시점: 미동기화 기록이 forceIntervalBytes 이상일 때, 정리 주기(cleanup)마다, 세그먼트 봉인/종료 시
+ *   → 유실 범위는 최대 forceIntervalBytes 또는 정리 주기(progress.event-store.cleanup-interval-millis) 중 먼저 도달한 쪽
+ * - 쓰다 만 레코드는 복구 시 CRC 로 걸러지고 그 지점부터 이어서 기록
+ */
+public class MappedSegmentEventStore implements EventStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedSegmentEventStore.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int RECORD_HEADER_SIZE = 8;    // 길이(4) + CRC(4)
+    private static final int MAX_STRING_BYTES = 0xFFFF; // 문자열 길이는 unsigned short
+    private static final byte FLAG_UUID_EVENT_ID = 1;
+    private static final byte FLAG_SEQUENCE = 2;
+    private static final int DEFAULT_FORCE_INTERVAL_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int forceIntervalBytes;
+
+    // 세그먼트 번호 -> 세그먼트 (번호순 정렬)
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // taskId -> 레코드 위치 인덱스
+    private final Map<String, TaskIndex> indexByTask = new ConcurrentHashMap<>();
+
+    // userId -> taskId 목록 (사용자별 작업 추적)
+    private final Map<String, Set<String>> tasksByUser = new ConcurrentHashMap<>();
+
+    // 쓰기는 단일 활성 세그먼트에만 (append 는 this 로 직렬화)
+    private Segment activeSegment;
+
+    // 마지막으로 생성한 세그먼트 번호 (삭제된 번호를 재사용하지 않음)
+    private int lastSegmentId;
+
+    public MappedSegmentEventStore(Path directory, int segmentSize) {
+        this(directory, segmentSize, DEFAULT_FORCE_INTERVAL_BYTES);
+    }
+
+    public MappedSegmentEventStore(Path directory, int segmentSize, int forceIntervalBytes) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceIntervalBytes = forceIntervalBytes;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Event Store 디렉터리 초기화 실패: " + directory, e);
+        }
+    }
+
+    // ==================== 쓰기 ====================
+
+    @Override
+    public synchronized ProgressEvent append(ProgressEvent event) {
+        TaskIndex taskIndex = indexByTask.get(event.taskId());
+        ProgressEvent stored = event.withSequence((taskIndex == null ? 0 : taskIndex.lastSequence()) + 1);
+
+        byte[] payload = encode(stored);
+        int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("이벤트가 세그먼트 크기를 초과함: " + recordSize + " > " + segmentSize);
+        }
+
+        if (activeSegment == null || activeSegment.remaining() < recordSize) {
+            rollSegment();
+        }
+
+        int offset = activeSegment.write(payload);
+        index(stored, position(activeSegment.id, offset), activeSegment);
+        if (activeSegment.unforcedBytes() >= forceIntervalBytes) {
+            activeSegment.force();
+        }
+
+        log.debug("[MappedEventStore] 이벤트 저장: taskId={}, seq={}, segment={}, offset={}",
+                stored.taskId(), stored.sequence(), activeSegment.id, offset);
+        return stored;
+    }
+
+    /**
+     * 새 세그먼트 생성 (이전 활성 세그먼트는 봉인 + 디스크 동기화)
+     */
+    private void rollSegment() {
+        if (activeSegment != null) {
+            activeSegment.force();
+        }
+        int nextId = ++lastSegmentId;
+        try {
+            activeSegment = Segment.open(segmentPath(nextId), nextId, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("세그먼트 생성 실패: id=" + nextId, e);
+        }
+        segments.put(nextId, activeSegment);
+        log.info("[MappedEventStore] 새 세그먼트: {}", segmentPath(nextId).getFileName());
+    }
+
+    private void index(ProgressEvent event, long position, Segment segment) {
+        indexByTask.computeIfAbsent(event.taskId(), k -> new TaskIndex(event.userId()))
+                .add(position, event);
+        tasksByUser.computeIfAbsent(event.userId(), k -> ConcurrentHashMap.newKeySet())
+                .add(event.taskId());
+        segment.taskIds.add(event.taskId());
+        segment.minTimestampMillis = Math.min(segment.minTimestampMillis, event.timestamp().toEpochMilli());
+        segment.maxTimestampMillis = Math.max(segment.maxTimestampMillis, event.timestamp().toEpochMilli());
+    }
+
+    // ==================== 조회 ====================
+
+    @Override
+    public List<ProgressEvent> getEventsByTaskId(String taskId) {
+        TaskIndex taskIndex = indexByTask.get(taskId);
+        if (taskIndex == null) {
+            return Collections.emptyList();
+        }
+
+        long[] positions = taskIndex.positions();
+        List<ProgressEvent> events = new ArrayList<>(positions.length);
+        for (long position : positions) {
+            ProgressEvent event = read(position);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 위치 목록이 순번순이므로 뒤에서부터 읽다가 sequence 이하를 만나면 중단
+     */
+    @Override
+    public List<ProgressEvent> getEventsAfter(String taskId, long sequence) {
+        TaskIndex taskIndex = indexByTask.get(taskId);
+        if (taskIndex == null) {
+            return Collections.emptyList();
+        }
+
+        long[] positions = taskIndex.positions();
+        List<ProgressEvent> events = new ArrayList<>();
+        for (int i = positions.length - 1; i >= 0; i--) {
+            ProgressEvent event = read(positions[i]);
+            if (event == null) {
+                continue;
+            }
+            if (event.sequence() <= sequence) {
+                break;
+            }
+            events.add(event);
+        }
+        Collections.reverse(events);
+        return events;
+    }
+
+    @Override
+    public List<ProgressEvent> getEventsByUserId(String userId) {
+        Set<String> taskIds = tasksByUser.get(userId);
+        if (taskIds == null) {
+            return Collections.emptyList();
+        }
+
+        return taskIds.stream()
+                .flatMap(taskId -> getEventsByTaskId(taskId).stream())
+                .sorted(Comparator.comparing(ProgressEvent::timestamp))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<ProgressEvent> getLatestEvent(String taskId) {
+        TaskIndex taskIndex = indexByTask.get(taskId);
+        if (taskIndex == null) {
+            return Optional.empty();
+        }
+        long position = taskIndex.lastPosition();
+        return position < 0 ? Optional.empty() : Optional.ofNullable(read(position));
+    }
+
+    @Override
+    public Optional<ProgressSnapshot> getSnapshot(String taskId) {
+        TaskIndex taskIndex = indexByTask.get(taskId);
+        if (taskIndex == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(taskIndex.snapshot);
+    }
+
+    /**
+     * 위치의 레코드 읽기 (세그먼트가 이미 삭제된 경우 null)
+     */
+    private ProgressEvent read(long position) {
+        Segment segment = segments.get(segmentId(position));
+        if (segment == null) {
+            return null;
+        }
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset(position));
+        int length = buffer.getInt();
+        buffer.getInt(); // CRC 는 복구 시에만 검증
+        ByteBuffer payload = buffer.slice();
+        payload.limit(length);
+        return decode(payload);
+    }
+
+    // ==================== 정리 ====================
+
+    /**
+     * TTL 을 넘긴 세그먼트를 통째로 삭제
+     *
+     * 활성 세그먼트는 가장 오래된 이벤트가 TTL 을 넘었으면 먼저 봉인한 뒤 같은 기준으로 판단
+     * (정리 주기마다 활성 세그먼트를 force 하여 내구성 유실 범위를 제한)
+     */
+    @Override
+    public synchronized void cleanup(long ttlMillis) {
+        long cutoff = Instant.now().toEpochMilli() - ttlMillis;
+        int removedSegments = 0;
+
+        if (activeSegment != null) {
+            activeSegment.force();
+            if (activeSegment.writePosition > 0 && activeSegment.minTimestampMillis < cutoff) {
+                log.info("[MappedEventStore] 만료 이벤트가 있는 활성 세그먼트 봉인: {}", activeSegment.path.getFileName());
+                activeSegment = null;
+            }
+        }
+
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == activeSegment || segment.maxTimestampMillis >= cutoff) {
+                continue;
+            }
+            segments.remove(segment.id);
+            dropIndexEntries(segment);
+            try {
+                segment.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("[MappedEventStore] 세그먼트 삭제 실패: {}", segment.path, e);
+            }
+            removedSegments++;
+        }
+
+        if (removedSegments > 0) {
+            log.info("[MappedEventStore] 정리 완료: {}개 세그먼트 삭제됨", removedSegments);
+        }
+    }
+
+    /**
+     * 삭제된 세그먼트를 가리키는 인덱스 항목 제거 (해당 세그먼트에 기록된 작업만 확인)
+     */
+    private void dropIndexEntries(Segment segment) {
+        for (String taskId : segment.taskIds) {
+            TaskIndex taskIndex = indexByTask.get(taskId);
+            if (taskIndex == null) {
+                continue;
+            }
+            if (taskIndex.dropSegment(segment.id, this::read)) {
+                indexByTask.remove(taskId);
+                Set<String> userTasks = tasksByUser.get(taskIndex.userId);
+                if (userTasks != null) {
+                    userTasks.remove(taskId);
+                    if (userTasks.isEmpty()) {
+                        tasksByUser.remove(taskIndex.userId);
+                    }
+                }
+            }
+        }
+    }
+
+    // ==================== 복구 ====================
+
+    /**
+     * 세그먼트 파일을 순서대로 스캔하여 인덱스 재구성
+     */
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        long started = System.currentTimeMillis();
+        int recoveredEvents = 0;
+        for (Path file : files) {
+            int id = Integer.parseInt(file.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            Segment segment = Segment.open(file, id, segmentSize);
+            segments.put(id, segment);
+            recoveredEvents += scan(segment);
+            activeSegment = segment;
+            lastSegmentId = Math.max(lastSegmentId, id);
+        }
+
+        if (!files.isEmpty()) {
+            log.info("[MappedEventStore] 인덱스 복구 완료: 세그먼트={}, 이벤트={}, 작업={}, {}ms",
+                    files.size(), recoveredEvents, indexByTask.size(), System.currentTimeMillis() - started);
+        }
+    }
+
+    /**
+     * 세그먼트 하나를 스캔 (쓰기 위치 = 마지막 정상 레코드 다음)
+     */
+    private int scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int offset = 0;
+        int count = 0;
+
+        while (offset + RECORD_HEADER_SIZE <= segment.capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || offset + RECORD_HEADER_SIZE + length > segment.capacity) {
+                log.warn("[MappedEventStore] 잘못된 레코드 길이에서 스캔 중단: segment={}, offset={}", segment.id, offset);
+                segment.clearFrom(offset);
+                break;
+            }
+            int storedCrc = buffer.getInt(offset + 4);
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(offset + RECORD_HEADER_SIZE);
+            payload.limit(offset + RECORD_HEADER_SIZE + length);
+            if (crc(payload.duplicate()) != storedCrc) {
+                log.warn("[MappedEventStore] 손상된 레코드에서 스캔 중단: segment={}, offset={}", segment.id, offset);
+                // 뒤쪽의 이전 레코드가 새 기록 뒤에서 다시 살아나지 않도록 나머지 구간을 비움
+                segment.clearFrom(offset);
+                break;
+            }
+
+            index(decode(payload), position(segment.id, offset), segment);
+            offset += RECORD_HEADER_SIZE + length;
+            count++;
+        }
+
+        segment.writePosition = offset;
+        segment.forcedPosition = offset;
+        return count;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.force();
+                segment.close();
+            } catch (IOException e) {
+                log.warn("[MappedEventStore] 세그먼트 닫기 실패: {}", segment.path, e);
+            }
+        }
+    }
+
+    // ==================== 인코딩 ====================
+
+    private static byte[] encode(ProgressEvent event) {
+        UUID eventUuid = parseUuid(event.eventId());
+        byte[] eventId = eventUuid == null ? utf8(event.eventId()) : null;
+        byte[] taskId = utf8(event.taskId());
+        byte[] userId = utf8(event.userId());
+        byte[] stepName = utf8(event.stepName());
+
+        int size = 1
+                + (eventUuid != null ? 16 : 2 + eventId.length)
+                + 8
+                + 2 + taskId.length
+                + 2 + userId.length
+                + 4 + 4 + 1 + 1
+                + 8 + 4
+                + 2 + stepName.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        if (eventUuid != null) {
+            buffer.put((byte) (FLAG_UUID_EVENT_ID | FLAG_SEQUENCE));
+            buffer.putLong(eventUuid.getMostSignificantBits());
+            buffer.putLong(eventUuid.getLeastSignificantBits());
+        } else {
+            buffer.put(FLAG_SEQUENCE);
+            putString(buffer, eventId);
+        }
+        buffer.putLong(event.sequence());
+        putString(buffer, taskId);
+        putString(buffer, userId);
+        buffer.putInt(event.currentStep());
+        buffer.putInt(event.totalSteps());
+        buffer.put((byte) event.percentage());
+        buffer.put((byte) event.eventType().ordinal());
+        buffer.putLong(event.timestamp().getEpochSecond());
+        buffer.putInt(event.timestamp().getNano());
+        putString(buffer, stepName);
+        return buffer.array();
+    }
+
+    private static ProgressEvent decode(ByteBuffer buffer) {
+        byte flags = buffer.get();
+        String eventId = (flags & FLAG_UUID_EVENT_ID) != 0
+                ? new UUID(buffer.getLong(), buffer.getLong()).toString()
+                : getString(buffer);
+        // 순번 도입 이전 레코드는 0
+        long sequence = (flags & FLAG_SEQUENCE) != 0 ? buffer.getLong() : 0L;
+        String taskId = getString(buffer);
+        String userId = getString(buffer);
+        int currentStep = buffer.getInt();
+        int totalSteps = buffer.getInt();
+        int percentage = buffer.get();
+        ProgressEvent.EventType eventType = ProgressEvent.EventType.values()[buffer.get()];
+        Instant timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        String stepName = getString(buffer);
+        return new ProgressEvent(eventId, taskId, userId, currentStep, totalSteps, percentage,
+                stepName, eventType, timestamp, sequence);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        // 실패 사유 등 긴 문자열은 잘라서 저장 (unsigned short 길이 한도)
+        return bytes.length > MAX_STRING_BYTES ? Arrays.copyOf(bytes, MAX_STRING_BYTES) : bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            // 소문자 정규형일 때만 UUID 로 압축 (디코딩 시 동일 문자열 보장)
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(payload);
+        return (int) crc32.getValue();
+    }
+
+    private Path segmentPath(int id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static long position(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentId(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int offset(long position) {
+        return (int) position;
+    }
+
+    /**
+     * 세그먼트 파일 (고정 크기 메모리 맵)
+     */
+    private static final class Segment implements Closeable {
+
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+
+        // 이 세그먼트에 기록된 작업 (세그먼트 삭제 시 인덱스 정리 대상)
+        private final Set<String> taskIds = ConcurrentHashMap.newKeySet();
+
+        private int writePosition;
+        private int forcedPosition;
+        private volatile long minTimestampMillis = Long.MAX_VALUE;
+        private volatile long maxTimestampMillis = Long.MIN_VALUE;
+
+        private Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        static Segment open(Path path, int id, int segmentSize) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int capacity = (int) Math.max(channel.size(), segmentSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            return new Segment(id, path, channel, buffer, capacity);
+        }
+
+        int remaining() {
+            return capacity - writePosition;
+        }
+
+        /**
+         * offset 이후 구간을 0 으로 채우고 디스크 동기화 (복구 시 손상 지점 이후 정리)
+         */
+        void clearFrom(int offset) {
+            byte[] zeros = new byte[Math.min(64 * 1024, capacity - offset)];
+            for (int position = offset; position < capacity; position += zeros.length) {
+                buffer.put(position, zeros, 0, Math.min(zeros.length, capacity - position));
+            }
+            buffer.force(offset, capacity - offset);
+        }
+
+        int unforcedBytes() {
+            return writePosition - forcedPosition;
+        }
+
+        /**
+         * 마지막 force 이후 기록된 구간만 디스크로 동기화
+         */
+        void force() {
+            if (writePosition > forcedPosition) {
+                buffer.force(forcedPosition, writePosition - forcedPosition);
+                forcedPosition = writePosition;
+            }
+        }
+
+        /**
+         * 레코드 기록 후 시작 오프셋 반환
+         *
+         * 페이로드 → CRC → 길이 순으로 써서 길이가 보이면 레코드가 완성된 상태
+         */
+        int write(byte[] payload) {
+            int offset = writePosition;
+            buffer.put(offset + RECORD_HEADER_SIZE, payload);
+            buffer.putInt(offset + 4, crc(ByteBuffer.wrap(payload)));
+            buffer.putInt(offset, payload.length);
+            writePosition = offset + RECORD_HEADER_SIZE + payload.length;
+            return offset;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * 작업별 레코드 위치 인덱스 + 증분 스냅샷
+     */
+    private static final class TaskIndex {
+
+        private final String userId;
+        private long[] positions = new long[8];
+        private int size;
+        private long lastSequence;
+        private volatile ProgressSnapshot snapshot;
+
+        TaskIndex(String userId) {
+            this.userId = userId;
+        }
+
+        synchronized void add(long position, ProgressEvent event) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+            lastSequence = Math.max(lastSequence, event.sequence());
+            snapshot = (snapshot == null) ? ProgressSnapshot.initial(event) : snapshot.apply(event);
+        }
+
+        synchronized long[] positions() {
+            return Arrays.copyOf(positions, size);
+        }
+
+        synchronized long lastSequence() {
+            return lastSequence;
+        }
+
+        synchronized long lastPosition() {
+            return size == 0 ? -1 : positions[size - 1];
+        }
+
+        /**
+         * 삭제된 세그먼트의 위치 제거 후 남은 이벤트로 스냅샷 재계산
+         *
+         * @return 남은 이벤트가 없으면 true
+         */
+        synchronized boolean dropSegment(int segmentId, java.util.function.LongFunction<ProgressEvent> reader) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (segmentId(positions[i]) != segmentId) {
+                    positions[kept++] = positions[i];
+                }
+            }
+            size = kept;
+
+            List<ProgressEvent> remaining = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                ProgressEvent event = reader.apply(positions[i]);
+                if (event != null) {
+                    remaining.add(event);
+                }
+            }
+            snapshot = ProgressSnapshot.fromEvents(remaining);
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+/**
+ * 구독자 큐 처리 정책
+ *
+ * CONFLATE 는 큐가 가득 차기 전에도 항상 적용됨 (진행률은 최신 값만 의미가 있으므로)
+ */
+public enum OverflowPolicy {
+    DROP_OLDEST,    // 가장 오래된 이벤트 버림
+    CONFLATE,       // 작업별 대기 중인 PROGRESS 를 최신 값으로 교체, 가득 차면 가장 오래된 PROGRESS 만 버림
+                    // (STARTED/COMPLETED/FAILED 는 항상 전달, PROGRESS 가 없어 버릴 수 없으면 구독 해제)
+    DISCONNECT      // 구독 해제 (클라이언트는 재접속 후 상태 복구)
+}
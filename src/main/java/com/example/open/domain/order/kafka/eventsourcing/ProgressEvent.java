@@ -10,9 +10,14 @@ import java.util.UUID;
  * - 이벤트는 불변(immutable)
  * - 상태 변경은 이벤트로 기록
  * - 이벤트 리플레이로 상태 복구 가능
+ * - timestamp 는 밀리초 단위 (Event Store 가 epoch millis 로 저장)
+ * - sequence 는 작업 내 순번 (1부터 증가, Event Store 가 append 시 부여, 미저장 이벤트는 0)
+ *   → SSE id 로 내보내고 재접속 시 Last-Event-ID 이후만 재전송
+ * - eventId 는 저장 시 (taskId, sequence) 로부터 생성 (미저장 이벤트는 null)
+ *   → 발행마다 UUID.randomUUID()(SecureRandom) 를 호출하지 않음
  */
 public record ProgressEvent(
-        String eventId,         // 이벤트 고유 ID
+        String eventId,         // 이벤트 고유 ID (저장 시 부여)
         String taskId,          // 작업 ID
         String userId,          // 사용자 ID
         int currentStep,        // 현재 단계
@@ -20,7 +25,8 @@ public record ProgressEvent(
         int percentage,         // 진행률 (%)
         String stepName,        // 단계 이름
         EventType eventType,    // 이벤트 타입
-        Instant timestamp       // 이벤트 발생 시간
+        Instant timestamp,      // 이벤트 발생 시간
+        long sequence           // 작업 내 순번
 ) {
     public enum EventType {
         STARTED,      // 작업 시작
@@ -35,7 +41,7 @@ public record ProgressEvent(
     public static ProgressEvent progress(String taskId, String userId, int currentStep, int totalSteps, String stepName) {
         int percentage = (int) ((currentStep / (double) totalSteps) * 100);
         return new ProgressEvent(
-                UUID.randomUUID().toString(),
+                null,
                 taskId,
                 userId,
                 currentStep,
@@ -43,7 +49,8 @@ public record ProgressEvent(
                 percentage,
                 stepName,
                 EventType.PROGRESS,
-                Instant.now()
+                now(),
+                0L
         );
     }
 
@@ -52,7 +59,7 @@ public record ProgressEvent(
      */
     public static ProgressEvent started(String taskId, String userId, int totalSteps) {
         return new ProgressEvent(
-                UUID.randomUUID().toString(),
+                null,
                 taskId,
                 userId,
                 0,
@@ -60,7 +67,8 @@ public record ProgressEvent(
                 0,
                 "시작",
                 EventType.STARTED,
-                Instant.now()
+                now(),
+                0L
         );
     }
 
@@ -69,7 +77,7 @@ public record ProgressEvent(
      */
     public static ProgressEvent completed(String taskId, String userId, int totalSteps) {
         return new ProgressEvent(
-                UUID.randomUUID().toString(),
+                null,
                 taskId,
                 userId,
                 totalSteps,
@@ -77,7 +85,8 @@ public record ProgressEvent(
                 100,
                 "완료",
                 EventType.COMPLETED,
-                Instant.now()
+                now(),
+                0L
         );
     }
 
@@ -86,7 +95,7 @@ public record ProgressEvent(
      */
     public static ProgressEvent failed(String taskId, String userId, String reason) {
         return new ProgressEvent(
-                UUID.randomUUID().toString(),
+                null,
                 taskId,
                 userId,
                 0,
@@ -94,7 +103,39 @@ public record ProgressEvent(
                 0,
                 reason,
                 EventType.FAILED,
-                Instant.now()
+                now(),
+                0L
         );
     }
+
+    /**
+     * 순번을 부여한 복사본 (Event Store 저장 시 사용)
+     *
+     * eventId 가 없으면 (taskId, sequence) 로 생성
+     */
+    public ProgressEvent withSequence(long sequence) {
+        String id = (eventId != null) ? eventId : eventIdOf(taskId, sequence);
+        return new ProgressEvent(id, taskId, userId, currentStep, totalSteps, percentage,
+                stepName, eventType, timestamp, sequence);
+    }
+
+    /**
+     * 작업 내 순번 기반 이벤트 ID (UUID 형식)
+     *
+     * 상위 64비트 = taskId 해시(FNV-1a), 하위 64비트 = sequence
+     * → 같은 작업 안에서는 항상 고유, 같은 (taskId, sequence) 는 항상 같은 ID
+     * UUID 형식이므로 CompactEventLog/MappedSegmentEventStore 의 128비트 압축 저장 경로를 그대로 사용
+     */
+    static String eventIdOf(String taskId, long sequence) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < taskId.length(); i++) {
+            hash ^= taskId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return new UUID(hash, sequence).toString();
+    }
+
+    private static Instant now() {
+        return Instant.ofEpochMilli(System.currentTimeMillis());
+    }
 }
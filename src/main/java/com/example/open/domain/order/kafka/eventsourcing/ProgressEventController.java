@@ -5,21 +5,24 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * 진행률 이벤트 컨트롤러 (Event Sourcing 버전)
  *
  * 기능:
- * 1. SSE 구독 (실시간 진행률)
+ * 1. SSE 구독 (실시간 진행률, 여러 작업을 하나의 연결로 구독 가능)
  * 2. 작업 상태 조회 (REST)
  * 3. 이벤트 히스토리 조회
  * 4. 주문 생성 (V2)
@@ -35,31 +38,66 @@ public class ProgressEventController {
     private final ProgressEventService progressEventService;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final ObjectProvider<ReactiveProgressStream> reactiveProgressStream;
 
     public ProgressEventController(
             ProgressSSEManager sseManager,
             ProgressEventService progressEventService,
             KafkaTemplate<String, String> kafkaTemplate,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            ObjectProvider<ReactiveProgressStream> reactiveProgressStream
     ) {
         this.sseManager = sseManager;
         this.progressEventService = progressEventService;
         this.kafkaTemplate = kafkaTemplate;
         this.objectMapper = objectMapper;
+        this.reactiveProgressStream = reactiveProgressStream;
     }
 
     // ==================== SSE 구독 ====================
 
-    @Operation(summary = "SSE 구독 (전체)", description = "사용자의 모든 작업 진행률을 실시간으로 수신")
+    @Operation(summary = "SSE 구독 (전체)", description = "사용자의 모든 작업 진행률을 실시간으로 수신 (Last-Event-ID 이후 재전송)")
     @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribe(@RequestParam String userId) {
-        return sseManager.createConnection(userId, null);
+    public SseEmitter subscribe(
+            @RequestParam String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return sseManager.createConnection(userId, null, lastEventId);
     }
 
-    @Operation(summary = "SSE 구독 (특정 작업)", description = "특정 작업의 진행률만 실시간으로 수신")
+    @Operation(summary = "SSE 구독 (특정 작업)", description = "특정 작업의 진행률만 실시간으로 수신 (Last-Event-ID 이후 재전송)")
     @GetMapping(value = "/subscribe/{taskId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribeTask(@RequestParam String userId, @PathVariable String taskId) {
-        return sseManager.createConnection(userId, taskId);
+    public SseEmitter subscribeTask(
+            @RequestParam String userId,
+            @PathVariable String taskId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return sseManager.createConnection(userId, taskId, lastEventId);
+    }
+
+    @Operation(summary = "SSE 구독 (여러 작업)",
+            description = "여러 작업의 진행률을 하나의 연결로 수신. 첫 connected 이벤트의 connectionId 로 작업 목록 변경")
+    @GetMapping(value = "/subscribe/tasks", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeTasks(
+            @RequestParam String userId,
+            @RequestParam Set<String> taskIds,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return sseManager.createTaskSetConnection(userId, taskIds, lastEventId);
+    }
+
+    @Operation(summary = "구독 작업 변경", description = "여러 작업 SSE 연결에 작업 추가/제거 (연결 유지)")
+    @PostMapping("/subscribe/tasks/{connectionId}")
+    public ResponseEntity<?> updateSubscribedTasks(
+            @PathVariable String connectionId,
+            @RequestParam String userId,
+            @RequestBody TaskSetUpdateRequest request) {
+        boolean updated = sseManager.updateTaskSet(connectionId, userId, request.addOrEmpty(), request.removeOrEmpty());
+        if (!updated) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of(
+                "connectionId", connectionId,
+                "added", request.addOrEmpty().size(),
+                "removed", request.removeOrEmpty().size()
+        ));
     }
 
     // ==================== 상태 조회 (REST) ====================
@@ -82,11 +120,48 @@ public class ProgressEventController {
         return ResponseEntity.ok(events);
     }
 
-    @Operation(summary = "사용자 이벤트 조회", description = "특정 사용자의 모든 이벤트 조회")
+    /**
+     * 커서 페이지네이션
+     * - after=X-Next-Cursor: 다음 페이지, before=X-Prev-Cursor: 이전 페이지
+     * - limit 미지정 시 전체 (커서 범위 내), 1 미만이면 400
+     */
+    @Operation(summary = "사용자 이벤트 조회", description = "특정 사용자의 이벤트 조회 (limit, before/after 커서로 페이지 조회)")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<ProgressEvent>> getUserEvents(@PathVariable String userId) {
-        List<ProgressEvent> events = progressEventService.getUserEvents(userId);
-        return ResponseEntity.ok(events);
+    public ResponseEntity<?> getUserEvents(
+            @PathVariable String userId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after
+    ) {
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "잘못된 limit",
+                    "message", "limit 은 1 이상이어야 함: " + limit
+            ));
+        }
+
+        UserEventPage page;
+        try {
+            page = progressEventService.getUserEvents(
+                    userId,
+                    limit == null ? UserEventPage.UNLIMITED : limit,
+                    before == null ? null : EventCursor.decode(before),
+                    after == null ? null : EventCursor.decode(after)
+            );
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "잘못된 커서",
+                    "message", e.getMessage()
+            ));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header("X-Has-More", String.valueOf(page.hasMore()));
+        if (page.previousCursor() != null) {
+            response.header("X-Prev-Cursor", page.previousCursor());
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.events());
     }
 
     // ==================== 주문 생성 (V2) ====================
@@ -125,12 +200,22 @@ public class ProgressEventController {
 
     // ==================== 모니터링 ====================
 
-    @Operation(summary = "시스템 상태", description = "SSE 연결 상태 모니터링")
+    @Operation(summary = "시스템 상태", description = "SSE 연결 및 브로드캐스터 전달 상태 모니터링")
     @GetMapping("/monitor")
     public ResponseEntity<Map<String, Object>> getSystemStatus() {
-        return ResponseEntity.ok(Map.of(
-                "sseConnections", sseManager.getConnectionCount(),
-                "status", "running"
-        ));
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("sseConnections", sseManager.getConnectionCount());
+        status.put("heartbeat", sseManager.getHeartbeatStats());
+        reactiveProgressStream.ifAvailable(stream -> status.put("reactiveStreams", Map.of(
+                "active", stream.getActiveStreams(),
+                "overflowed", stream.getOverflowed()
+        )));
+        progressEventService.getStoreStats().ifPresent(stats -> status.put("eventStore", stats));
+        progressEventService.getWriteBehindStats().ifPresent(stats -> status.put("writeBehind", stats));
+        progressEventService.getRedisStoreStats().ifPresent(stats -> status.put("redisEventStore", stats));
+        progressEventService.getBroadcasterStats().ifPresent(stats -> status.put("broadcaster", stats));
+        progressEventService.getRemoteBroadcasterStats().ifPresent(stats -> status.put("redisBroadcaster", stats));
+        status.put("status", "running");
+        return ResponseEntity.ok(status);
     }
 }
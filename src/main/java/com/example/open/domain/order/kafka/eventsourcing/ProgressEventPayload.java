@@ -0,0 +1,27 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 발행 시점에 한 번 직렬화한 이벤트 (불변)
+ *
+ * 같은 사용자의 구독자(여러 탭, 대시보드)가 모두 같은 JSON 을 공유
+ * → 구독자 수와 무관하게 이벤트당 직렬화 1회
+ *
+ * @param event 원본 이벤트
+ * @param json  event 의 JSON 표현
+ */
+public record ProgressEventPayload(
+        ProgressEvent event,
+        String json
+) {
+
+    public static ProgressEventPayload encode(ProgressEvent event, ObjectMapper objectMapper) {
+        try {
+            return new ProgressEventPayload(event, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("이벤트 직렬화 실패: eventId=" + event.eventId(), e);
+        }
+    }
+}
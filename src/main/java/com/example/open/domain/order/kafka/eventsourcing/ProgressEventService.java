@@ -1,12 +1,18 @@
 package com.example.open.domain.order.kafka.eventsourcing;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -29,9 +35,39 @@ public class ProgressEventService {
     private final EventStore eventStore;
     private final EventBroadcaster eventBroadcaster;
 
-    public ProgressEventService(EventStore eventStore, EventBroadcaster eventBroadcaster) {
+    // 발행 경로 메트릭 (actuator /metrics, /prometheus)
+    private final Timer appendTimer;
+    private final Timer fanoutTimer;
+    private final Timer batchAppendTimer;
+    private final Timer batchFanoutTimer;
+    private final Timer cleanupTimer;
+    private final Counter broadcastSkipped;
+
+    public ProgressEventService(EventStore eventStore, EventBroadcaster eventBroadcaster, MeterRegistry meterRegistry) {
         this.eventStore = eventStore;
         this.eventBroadcaster = eventBroadcaster;
+        this.appendTimer = Timer.builder("progress.store.append")
+                .description("Event Store append 지연")
+                .tag("mode", "single")
+                .register(meterRegistry);
+        this.fanoutTimer = Timer.builder("progress.broadcast.fanout")
+                .description("브로드캐스터 publish (구독자 큐 적재) 지연")
+                .tag("mode", "single")
+                .register(meterRegistry);
+        this.batchAppendTimer = Timer.builder("progress.store.append")
+                .description("Event Store append 지연")
+                .tag("mode", "batch")
+                .register(meterRegistry);
+        this.batchFanoutTimer = Timer.builder("progress.broadcast.fanout")
+                .description("브로드캐스터 publish (구독자 큐 적재) 지연")
+                .tag("mode", "batch")
+                .register(meterRegistry);
+        this.cleanupTimer = Timer.builder("progress.store.cleanup")
+                .description("만료 이벤트 정리 소요 시간")
+                .register(meterRegistry);
+        this.broadcastSkipped = Counter.builder("progress.broadcast.skipped")
+                .description("구독자가 없어 전파를 생략한 이벤트 수")
+                .register(meterRegistry);
     }
 
     // ==================== 이벤트 발행 ====================
@@ -70,16 +106,62 @@ public class ProgressEventService {
 
     /**
      * 이벤트 발행 (저장 + 전파)
+     *
+     * 구독자가 없는 경우(API 조회만 하는 클라이언트)가 대부분이므로
+     * 전파 전용 작업(직렬화, 큐 적재)은 구독자가 있을 때만 수행
      */
     private void publishEvent(ProgressEvent event) {
-        // 1. Event Store에 저장 (영속성)
-        eventStore.append(event);
+        // 1. Event Store에 저장 (영속성, 작업 내 순번/이벤트 ID 부여)
+        long started = System.nanoTime();
+        ProgressEvent stored = eventStore.append(event);
+        long appended = System.nanoTime();
+        appendTimer.record(appended - started, TimeUnit.NANOSECONDS);
 
         // 2. 실시간 전파 (SSE 구독자에게)
-        eventBroadcaster.publish(event);
+        boolean broadcast = eventBroadcaster.hasSubscribers(stored.userId(), stored.taskId());
+        if (broadcast) {
+            eventBroadcaster.publish(stored);
+            fanoutTimer.record(System.nanoTime() - appended, TimeUnit.NANOSECONDS);
+        } else {
+            broadcastSkipped.increment();
+        }
 
-        log.info("[ProgressEventService] 이벤트 발행: taskId={}, type={}, {}%",
-                event.taskId(), event.eventType(), event.percentage());
+        log.debug("[ProgressEventService] 이벤트 발행: taskId={}, seq={}, type={}, {}%, broadcast={}",
+                stored.taskId(), stored.sequence(), stored.eventType(), stored.percentage(), broadcast);
+    }
+
+    /**
+     * 이벤트 일괄 발행 (배치 리스너용)
+     *
+     * 저장은 appendAll 1회, 전파는 구독자가 있는 이벤트만 모아 publishAll 1회
+     * → 구독자별 전달 예약/Redis 대기열 적재가 이벤트 수가 아니라 배치 수만큼 발생
+     *
+     * @return 저장된 이벤트 (입력과 같은 순서, 순번/이벤트 ID 부여됨)
+     */
+    public List<ProgressEvent> publishBatch(List<ProgressEvent> events) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        long started = System.nanoTime();
+        List<ProgressEvent> stored = eventStore.appendAll(events);
+        long appended = System.nanoTime();
+        batchAppendTimer.record(appended - started, TimeUnit.NANOSECONDS);
+
+        List<ProgressEvent> broadcast = new ArrayList<>(stored.size());
+        for (ProgressEvent event : stored) {
+            if (eventBroadcaster.hasSubscribers(event.userId(), event.taskId())) {
+                broadcast.add(event);
+            }
+        }
+        if (!broadcast.isEmpty()) {
+            eventBroadcaster.publishAll(broadcast);
+            batchFanoutTimer.record(System.nanoTime() - appended, TimeUnit.NANOSECONDS);
+        }
+        broadcastSkipped.increment(stored.size() - broadcast.size());
+
+        log.debug("[ProgressEventService] 일괄 발행: {}건, broadcast={}건", stored.size(), broadcast.size());
+        return stored;
     }
 
     // ==================== 이벤트 조회 ====================
@@ -105,6 +187,20 @@ public class ProgressEventService {
         return eventStore.getEventsByUserId(userId);
     }
 
+    /**
+     * 특정 사용자의 작업 이벤트 페이지 조회 (커서 기반)
+     */
+    public UserEventPage getUserEvents(String userId, int limit, EventCursor before, EventCursor after) {
+        return eventStore.getEventsByUserId(userId, limit, before, after);
+    }
+
+    /**
+     * 특정 작업에서 sequence 이후 이벤트 조회 (SSE 재접속 시 재전송용)
+     */
+    public List<ProgressEvent> getTaskEventsAfter(String taskId, long sequence) {
+        return eventStore.getEventsAfter(taskId, sequence);
+    }
+
     /**
      * 특정 작업의 최신 이벤트 조회
      */
@@ -121,6 +217,35 @@ public class ProgressEventService {
         return eventBroadcaster.subscribe(userId, listener);
     }
 
+    /**
+     * 이벤트 구독 (오버플로 정책/강제 해제 콜백 지정)
+     */
+    public String subscribe(String userId, Consumer<ProgressEvent> listener, SubscriptionOptions options) {
+        return eventBroadcaster.subscribe(userId, listener, options);
+    }
+
+    /**
+     * 직렬화된 이벤트 구독 (발행 시 1회 직렬화된 JSON 공유)
+     */
+    public String subscribePayload(String userId, Consumer<ProgressEventPayload> listener, SubscriptionOptions options) {
+        return eventBroadcaster.subscribePayload(userId, listener, options);
+    }
+
+    /**
+     * 특정 작업들의 직렬화된 이벤트만 구독
+     */
+    public String subscribeTasks(String userId, Set<String> taskIds, Consumer<ProgressEventPayload> listener,
+                                 SubscriptionOptions options) {
+        return eventBroadcaster.subscribeTasks(userId, taskIds, listener, options);
+    }
+
+    /**
+     * 작업 지정 구독의 작업 목록 변경
+     */
+    public boolean updateSubscribedTasks(String subscriptionId, Set<String> addTaskIds, Set<String> removeTaskIds) {
+        return eventBroadcaster.updateTasks(subscriptionId, addTaskIds, removeTaskIds);
+    }
+
     /**
      * 구독 취소 (SSE 연결 종료 시 호출)
      */
@@ -128,14 +253,72 @@ public class ProgressEventService {
         eventBroadcaster.unsubscribe(subscriptionId);
     }
 
+    /**
+     * 브로드캐스터 전달 통계 (로컬 구독자 기준)
+     */
+    public Optional<InMemoryEventBroadcaster.BroadcasterStats> getBroadcasterStats() {
+        if (eventBroadcaster instanceof InMemoryEventBroadcaster broadcaster) {
+            return Optional.of(broadcaster.getStats());
+        }
+        if (eventBroadcaster instanceof RedisEventBroadcaster broadcaster) {
+            return Optional.of(broadcaster.getStats());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Redis 구간 통계 (RedisEventBroadcaster 인 경우)
+     */
+    public Optional<RedisEventBroadcaster.RemoteStats> getRemoteBroadcasterStats() {
+        if (eventBroadcaster instanceof RedisEventBroadcaster broadcaster) {
+            return Optional.of(broadcaster.getRemoteStats());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Event Store 크기 통계 (메모리 기반 저장소인 경우)
+     */
+    public Optional<InMemoryEventStore.StoreStats> getStoreStats() {
+        if (eventStore instanceof InMemoryEventStore store) {
+            return Optional.of(store.getStats());
+        }
+        if (eventStore instanceof WriteBehindEventStore store) {
+            return Optional.of(store.getStoreStats());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Redis 전송 통계 (RedisEventStore 인 경우)
+     */
+    public Optional<RedisEventStore.RedisStoreStats> getRedisStoreStats() {
+        if (eventStore instanceof RedisEventStore store) {
+            return Optional.of(store.getStats());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * DB 영속화 통계 (WriteBehindEventStore 인 경우)
+     */
+    public Optional<WriteBehindEventStore.WriteBehindStats> getWriteBehindStats() {
+        if (eventStore instanceof WriteBehindEventStore store) {
+            return Optional.of(store.getStats());
+        }
+        return Optional.empty();
+    }
+
     // ==================== 정리 작업 ====================
 
     /**
-     * 오래된 이벤트 정리 (1시간마다 실행)
+     * 오래된 이벤트 정리 (기본 10초마다 실행)
+     *
+     * Event Store 가 만료 대상만 꺼내므로 짧은 주기로 돌려 메모리가 TTL 을 바짝 따라가게 함
      */
-    @Scheduled(fixedRate = 3600000) // 1시간
+    @Scheduled(fixedRateString = "${progress.event-store.cleanup-interval-millis:10000}")
     public void cleanupOldEvents() {
-        log.info("[ProgressEventService] 오래된 이벤트 정리 시작");
-        eventStore.cleanup(EVENT_TTL_MILLIS);
+        log.debug("[ProgressEventService] 오래된 이벤트 정리 시작");
+        cleanupTimer.record(() -> eventStore.cleanup(EVENT_TTL_MILLIS));
     }
 }
@@ -0,0 +1,144 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.example.open.common.sse.SseHeartbeatScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 진행률 파이프라인 상태 메트릭 (actuator /metrics, /prometheus)
+ *
+ * 지연 시간(Timer)은 발행/전송 경로에서 직접 기록하고,
+ * 여기서는 조회 시점 값(Gauge)과 누적 카운터(FunctionCounter)만 등록
+ *
+ * - progress.store.*       : 저장된 작업/이벤트 수, 추정 메모리 (증분 집계값이라 순회 없음)
+ * - progress.broadcast.*   : 구독 수, 구독자 큐 깊이, 전달/드롭/병합/강제 해제 누적
+ * - progress.sse.*         : SSE 연결 수, 하트비트/정리 누적
+ * - progress.jdbc.*        : write-behind 미전송/드롭/거부 (event-store.type=jdbc)
+ * - progress.redis.store.* : Redis 미전송/드롭 (event-store.type=redis)
+ */
+@Component
+public class ProgressMetrics {
+
+    // 브로드캐스터 통계는 구독 전체를 순회하므로 한 번의 수집(scrape) 동안 재사용
+    private static final long SAMPLE_TTL_MILLIS = 1000;
+
+    public ProgressMetrics(
+            MeterRegistry registry,
+            ProgressEventService progressEventService,
+            ProgressSSEManager sseManager,
+            SseHeartbeatScheduler heartbeatScheduler,
+            ObjectProvider<ReactiveProgressStream> reactiveProgressStream
+    ) {
+        // ==================== Event Store ====================
+        Sampled<Optional<InMemoryEventStore.StoreStats>> store = new Sampled<>(progressEventService::getStoreStats);
+        gauge(registry, "progress.store.tasks", "저장된 작업 수", store, s -> s.tasks());
+        gauge(registry, "progress.store.events", "저장된 이벤트 수 (압축 제외)", store, s -> s.events());
+        gauge(registry, "progress.store.estimated.bytes", "이벤트 로그 추정 메모리", store, s -> s.estimatedBytes());
+
+        // ==================== Broadcaster ====================
+        Sampled<Optional<InMemoryEventBroadcaster.BroadcasterStats>> broadcaster =
+                new Sampled<>(progressEventService::getBroadcasterStats);
+        gauge(registry, "progress.broadcast.subscriptions", "로컬 구독 수", broadcaster, s -> s.subscriptions());
+        gauge(registry, "progress.broadcast.queue.pending", "구독자 큐 대기 이벤트 합계", broadcaster, s -> s.pendingEvents());
+        gauge(registry, "progress.broadcast.queue.max.depth", "구독자 큐 최대 깊이", broadcaster, s -> s.maxQueueDepth());
+        counter(registry, "progress.broadcast.published", "전파 요청 이벤트 수", broadcaster, s -> s.published());
+        counter(registry, "progress.broadcast.delivered", "구독자 전달 수", broadcaster, s -> s.delivered());
+        counter(registry, "progress.broadcast.dropped", "큐 초과로 버린 이벤트 수", broadcaster, s -> s.dropped());
+        counter(registry, "progress.broadcast.conflated", "같은 작업의 대기 중인 PROGRESS 를 최신 값으로 교체한 이벤트 수 (CONFLATE)", broadcaster, s -> s.conflated());
+        counter(registry, "progress.broadcast.disconnected", "큐 초과로 해제된 구독 수", broadcaster, s -> s.disconnected());
+
+        // ==================== SSE ====================
+        Gauge.builder("progress.sse.connections", sseManager, ProgressSSEManager::getConnectionCount)
+                .description("서블릿 SSE 연결 수")
+                .register(registry);
+        FunctionCounter.builder("progress.sse.heartbeats", heartbeatScheduler, SseHeartbeatScheduler::getHeartbeatCount)
+                .description("하트비트 전송 수")
+                .register(registry);
+        FunctionCounter.builder("progress.sse.reaped", heartbeatScheduler, SseHeartbeatScheduler::getReapedCount)
+                .description("하트비트 실패로 정리된 연결 수")
+                .register(registry);
+        reactiveProgressStream.ifAvailable(stream -> {
+            Gauge.builder("progress.reactive.streams", stream, ReactiveProgressStream::getActiveStreams)
+                    .description("WebFlux 스트림 수")
+                    .register(registry);
+            FunctionCounter.builder("progress.reactive.overflowed", stream, ReactiveProgressStream::getOverflowed)
+                    .description("버퍼 초과로 종료된 스트림 수")
+                    .register(registry);
+        });
+
+        // ==================== Write-behind (jdbc) ====================
+        Sampled<Optional<WriteBehindEventStore.WriteBehindStats>> writeBehind =
+                new Sampled<>(progressEventService::getWriteBehindStats);
+        if (writeBehind.get().isPresent()) {
+            gauge(registry, "progress.jdbc.pending", "DB 미전송 이벤트 수", writeBehind, s -> s.pendingEvents());
+            counter(registry, "progress.jdbc.persisted", "DB 저장 이벤트 수", writeBehind, s -> s.persisted());
+            counter(registry, "progress.jdbc.failed.flushes", "DB 저장 실패 횟수", writeBehind, s -> s.failedFlushes());
+            counter(registry, "progress.jdbc.dropped", "미전송 한도 초과로 버린 이벤트 수", writeBehind, s -> s.dropped());
+            counter(registry, "progress.jdbc.rejected", "데이터 오류로 저장 거부된 이벤트 수", writeBehind, s -> s.rejected());
+        }
+
+        // ==================== Redis Event Store ====================
+        Sampled<Optional<RedisEventStore.RedisStoreStats>> redisStore =
+                new Sampled<>(progressEventService::getRedisStoreStats);
+        gauge(registry, "progress.redis.store.pending", "Redis 미전송 이벤트 수", redisStore, s -> s.pendingEvents());
+        counter(registry, "progress.redis.store.sent", "Redis 전송 이벤트 수", redisStore, s -> s.sent());
+        counter(registry, "progress.redis.store.failed.flushes", "Redis 전송 실패 횟수", redisStore, s -> s.failedFlushes());
+        counter(registry, "progress.redis.store.dropped", "미전송 한도 초과로 버린 이벤트 수", redisStore, s -> s.dropped());
+        counter(registry, "progress.redis.store.resequenced", "다른 노드 기록으로 순번이 재할당된 이벤트 수", redisStore, s -> s.resequenced());
+    }
+
+    /**
+     * 통계가 있는 구성(저장소/브로드캐스터 타입)에서만 게이지 등록
+     */
+    private static <T> void gauge(MeterRegistry registry, String name, String description,
+                                  Sampled<Optional<T>> sampled, ToDoubleFunction<T> value) {
+        if (sampled.get().isEmpty()) {
+            return;
+        }
+        Gauge.builder(name, sampled, s -> s.get().map(value::applyAsDouble).orElse(Double.NaN))
+                .description(description)
+                .register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description,
+                                    Sampled<Optional<T>> sampled, ToDoubleFunction<T> value) {
+        if (sampled.get().isEmpty()) {
+            return;
+        }
+        FunctionCounter.builder(name, sampled, s -> s.get().map(value::applyAsDouble).orElse(0.0))
+                .description(description)
+                .register(registry);
+    }
+
+    /**
+     * 짧은 시간 동안 재사용하는 통계 스냅샷
+     */
+    private static final class Sampled<T> implements Supplier<T> {
+        private final Supplier<T> source;
+        private volatile T value;
+        private volatile long sampledAtMillis;
+
+        Sampled(Supplier<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public T get() {
+            long now = System.currentTimeMillis();
+            T current = value;
+            if (current == null || now - sampledAtMillis >= SAMPLE_TTL_MILLIS) {
+                current = source.get();
+                value = current;
+                sampledAtMillis = now;
+            }
+            return current;
+        }
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.open.domain.order.kafka.eventsourcing;
 
+import com.example.open.common.sse.SseHeartbeatScheduler;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * SSE 연결 관리자
@@ -21,22 +33,43 @@ import java.util.concurrent.ConcurrentHashMap;
  * 2. ProgressEventService 구독 연결
  * 3. 이벤트를 SSE 형식으로 변환하여 전송
  * 4. 연결 끊김 시 리소스 정리
+ * 5. 재접속 시 Last-Event-ID 이후 이벤트만 재전송
+ * 6. 여러 작업을 하나의 연결로 전송 (다중 작업 연결)
+ * 7. 하트비트/끊긴 연결 정리는 SseHeartbeatScheduler 에 위임
  */
 @Component
 public class ProgressSSEManager {
 
     private static final Logger log = LoggerFactory.getLogger(ProgressSSEManager.class);
     private static final long SSE_TIMEOUT = 60 * 60 * 1000L; // 1시간
+    private static final int REPLAY_PAGE_SIZE = 500;
 
     private final ProgressEventService progressEventService;
     private final ObjectMapper objectMapper;
+    private final SseHeartbeatScheduler heartbeatScheduler;
+
+    // 이벤트 전송 지연 / 실패 수
+    private final Timer sendTimer;
+    private final Counter sendFailures;
 
     // emitterId -> SSE 연결 정보
     private final Map<String, SSEConnection> connections = new ConcurrentHashMap<>();
 
-    public ProgressSSEManager(ProgressEventService progressEventService, ObjectMapper objectMapper) {
+    public ProgressSSEManager(
+            ProgressEventService progressEventService,
+            ObjectMapper objectMapper,
+            SseHeartbeatScheduler heartbeatScheduler,
+            MeterRegistry meterRegistry
+    ) {
         this.progressEventService = progressEventService;
         this.objectMapper = objectMapper;
+        this.heartbeatScheduler = heartbeatScheduler;
+        this.sendTimer = Timer.builder("progress.sse.send")
+                .description("SSE 이벤트 전송 지연 (emitter.send)")
+                .register(meterRegistry);
+        this.sendFailures = Counter.builder("progress.sse.send.failures")
+                .description("SSE 이벤트 전송 실패 수")
+                .register(meterRegistry);
     }
 
     /**
@@ -47,98 +80,287 @@ public class ProgressSSEManager {
      * @return SseEmitter
      */
     public SseEmitter createConnection(String userId, String taskId) {
+        return createConnection(userId, taskId, null);
+    }
+
+    /**
+     * SSE 연결 생성 (재접속)
+     *
+     * @param lastEventId 클라이언트가 마지막으로 받은 이벤트 ID (Last-Event-ID 헤더, 없으면 null)
+     *                    → 그 이후 이벤트만 Event Store 에서 재전송
+     */
+    public SseEmitter createConnection(String userId, String taskId, String lastEventId) {
+        return open(userId, taskId == null ? null : Set.of(taskId), lastEventId, false);
+    }
+
+    /**
+     * 여러 작업을 하나의 SSE 연결로 구독 (대량 주문 화면용)
+     *
+     * 연결 직후 connected 이벤트로 connectionId 전달 → updateTaskSet 으로 작업 추가/제거
+     */
+    public SseEmitter createTaskSetConnection(String userId, Set<String> taskIds, String lastEventId) {
+        return open(userId, Set.copyOf(taskIds), lastEventId, true);
+    }
+
+    /**
+     * 다중 작업 연결의 작업 목록 변경 (새로 추가된 작업은 현재 상태 전송)
+     *
+     * @return 연결이 없거나 다른 사용자의 연결이면 false
+     */
+    public boolean updateTaskSet(String connectionId, String userId, Set<String> addTaskIds, Set<String> removeTaskIds) {
+        SSEConnection connection = connections.get(connectionId);
+        if (connection == null || !connection.multiplexed || !connection.userId.equals(userId)) {
+            return false;
+        }
+        if (!progressEventService.updateSubscribedTasks(connection.subscriptionId, addTaskIds, removeTaskIds)) {
+            return false;
+        }
+        for (String taskId : addTaskIds) {
+            sendCurrentState(connectionId, taskId);
+        }
+        log.info("[SSEManager] 구독 작업 변경: emitterId={}, +{}, -{}", connectionId, addTaskIds.size(), removeTaskIds.size());
+        return true;
+    }
+
+    /**
+     * @param taskIds null 이면 사용자의 모든 작업
+     */
+    private SseEmitter open(String userId, Set<String> taskIds, String lastEventId, boolean multiplexed) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
         String emitterId = generateEmitterId(userId);
 
-        // 1. EventBroadcaster 구독
-        String subscriptionId = progressEventService.subscribe(userId, event -> {
-            // taskId 필터링 (특정 작업만 구독하는 경우)
-            if (taskId != null && !taskId.equals(event.taskId())) {
-                return;
-            }
-            sendEvent(emitterId, event);
-        });
-
-        // 2. 연결 정보 저장
-        SSEConnection connection = new SSEConnection(emitterId, userId, taskId, subscriptionId, emitter);
+        // 1. 연결 정보 저장 (재전송이 끝날 때까지 실시간 이벤트는 버퍼에 보관)
+        SSEConnection connection = new SSEConnection(emitterId, userId, multiplexed, emitter);
         connections.put(emitterId, connection);
+        // 전송이 없는 동안 하트비트, 전송 실패 시 즉시 정리
+        connection.heartbeat = heartbeatScheduler.register(emitterId, emitter, () -> cleanup(emitterId));
+
+        // 2. EventBroadcaster 구독 (느린 클라이언트에는 작업별 최신 진행률만 전송)
+        // 발행 시 한 번 직렬화된 JSON 을 받아 그대로 전송 (연결마다 재직렬화하지 않음)
+        // 작업 지정 연결은 taskId 로 구독 → 같은 사용자의 다른 작업 이벤트는 전달되지 않음
+        Consumer<ProgressEventPayload> listener = payload -> connection.deliverLive(payload, live -> sendEvent(emitterId, live));
+        SubscriptionOptions options = SubscriptionOptions.of(OverflowPolicy.CONFLATE, () -> closeEvicted(emitterId));
+        connection.subscriptionId = (taskIds == null)
+                ? progressEventService.subscribePayload(userId, listener, options)
+                : progressEventService.subscribeTasks(userId, taskIds, listener, options);
 
         // 3. SseEmitter 콜백 설정
         emitter.onCompletion(() -> cleanup(emitterId));
         emitter.onTimeout(() -> cleanup(emitterId));
         emitter.onError(e -> cleanup(emitterId));
 
-        log.info("[SSEManager] 연결 생성: userId={}, taskId={}, emitterId={}", userId, taskId, emitterId);
+        log.info("[SSEManager] 연결 생성: userId={}, taskIds={}, emitterId={}, lastEventId={}",
+                userId, taskIds, emitterId, lastEventId);
 
-        // 4. 연결 직후 현재 상태 전송 (재접속 시 상태 복구)
-        sendCurrentState(emitterId, userId, taskId);
+        if (multiplexed) {
+            sendConnected(emitterId, taskIds);
+        }
+
+        // 4. 놓친 이벤트 재전송 (Last-Event-ID 없으면 현재 상태 전송) 후 실시간 전송으로 전환
+        // 버퍼 전송과 전환을 실시간 전송과 같은 잠금 안에서 → 버퍼보다 새 이벤트가 먼저 나가지 않음 (id 역순 방지)
+        Map<String, Long> replayed = replay(emitterId, userId, taskIds, SseEventId.parse(lastEventId));
+        connection.finishReplay(buffered -> {
+            Long sent = replayed.get(buffered.event().taskId());
+            if (sent == null || buffered.event().sequence() > sent) {
+                sendEvent(emitterId, buffered);
+            }
+        });
 
         return emitter;
     }
 
     /**
-     * 현재 상태 전송 (재접속 시 상태 복구용)
+     * Last-Event-ID 이후 이벤트 재전송
+     *
+     * - 작업 지정 연결: Last-Event-ID 의 작업은 sequence 이후 이벤트, 나머지 작업은 현재 상태
+     * - 전체 연결: 마지막 이벤트 (시각, taskId) 커서 이후의 사용자 이벤트 (작업 간 시간순)
+     *   → 커서보다 이른 다른 작업 이벤트 중 받지 못한 것(CONFLATE 병합 등)은 재전송되지 않으므로
+     *     재전송 이벤트가 없는 진행 중 작업은 현재 상태 전송으로 보정
+     * - ID 가 없거나 해당 이벤트가 이미 정리된 경우: 현재 상태 전송 (전체 연결은 진행 중인 작업마다)
+     *
+     * @return 작업별 재전송한 마지막 sequence (버퍼 이벤트 중복 제거용)
+     */
+    private Map<String, Long> replay(String emitterId, String userId, Set<String> taskIds, SseEventId lastEventId) {
+        Map<String, Long> replayed = new HashMap<>();
+        List<ProgressEvent> missed = (lastEventId == null)
+                ? List.of()
+                : progressEventService.getTaskEventsAfter(lastEventId.taskId(), lastEventId.sequence() - 1);
+        // 마지막으로 받은 이벤트가 남아 있어야 이어받기 가능
+        boolean resumable = !missed.isEmpty() && missed.get(0).sequence() == lastEventId.sequence()
+                && (taskIds == null || taskIds.contains(lastEventId.taskId()));
+
+        if (taskIds != null) {
+            for (String taskId : taskIds) {
+                if (resumable && taskId.equals(lastEventId.taskId())) {
+                    sendReplay(emitterId, missed.subList(1, missed.size()), replayed);
+                } else {
+                    sendCurrentState(emitterId, taskId);
+                }
+            }
+        } else if (resumable) {
+            EventCursor after = EventCursor.of(missed.get(0));
+            UserEventPage page;
+            do {
+                page = progressEventService.getUserEvents(userId, REPLAY_PAGE_SIZE, null, after);
+                sendReplay(emitterId, page.events(), replayed);
+                if (!page.events().isEmpty()) {
+                    after = EventCursor.of(page.events().get(page.events().size() - 1));
+                }
+            } while (page.hasMore());
+        }
+        if (taskIds == null) {
+            sendActiveStates(emitterId, userId, replayed.keySet());
+        }
+
+        if (resumable) {
+            log.info("[SSEManager] 재전송 완료: emitterId={}, lastEventId={}, tasks={}",
+                    emitterId, lastEventId, replayed.size());
+        }
+        return replayed;
+    }
+
+    private void sendReplay(String emitterId, List<ProgressEvent> events, Map<String, Long> replayed) {
+        for (ProgressEvent event : events) {
+            sendEvent(emitterId, ProgressEventPayload.encode(event, objectMapper));
+            replayed.merge(event.taskId(), event.sequence(), Math::max);
+        }
+    }
+
+    /**
+     * 특정 작업의 현재 상태 전송 (처음 접속 또는 이어받기 불가 시 상태 복구용)
+     */
+    private void sendCurrentState(String emitterId, String taskId) {
+        Optional<ProgressSnapshot> snapshot = progressEventService.getTaskStatus(taskId);
+        snapshot.ifPresent(s -> sendRecovery(emitterId, s));
+    }
+
+    private void sendRecovery(String emitterId, ProgressSnapshot snapshot) {
+        ProgressEvent recoveryEvent = ProgressEvent.progress(
+                snapshot.taskId(), snapshot.userId(), snapshot.currentStep(), snapshot.totalSteps(), snapshot.stepName()
+        );
+        sendEvent(emitterId, ProgressEventPayload.encode(recoveryEvent, objectMapper), "recovery");
+    }
+
+    /**
+     * 사용자의 진행 중(완료/실패 전) 작업마다 현재 상태 전송 (전체 연결 상태 복구용)
+     *
+     * @param skipTaskIds 재전송으로 이미 최신 상태를 보낸 작업
      */
-    private void sendCurrentState(String emitterId, String userId, String taskId) {
-        if (taskId != null) {
-            // 특정 작업의 현재 상태
-            Optional<ProgressSnapshot> snapshot = progressEventService.getTaskStatus(taskId);
-            snapshot.ifPresent(s -> {
-                ProgressEvent recoveryEvent = ProgressEvent.progress(
-                        s.taskId(), s.userId(), s.currentStep(), s.totalSteps(), s.stepName()
-                );
-                sendEvent(emitterId, recoveryEvent, "recovery");
-            });
+    private void sendActiveStates(String emitterId, String userId, Set<String> skipTaskIds) {
+        Set<String> taskIds = new LinkedHashSet<>();
+        EventCursor after = null;
+        UserEventPage page;
+        do {
+            page = progressEventService.getUserEvents(userId, REPLAY_PAGE_SIZE, null, after);
+            for (ProgressEvent event : page.events()) {
+                taskIds.add(event.taskId());
+            }
+            if (!page.events().isEmpty()) {
+                after = EventCursor.of(page.events().get(page.events().size() - 1));
+            }
+        } while (page.hasMore());
+
+        for (String taskId : taskIds) {
+            if (skipTaskIds.contains(taskId)) {
+                continue;
+            }
+            progressEventService.getTaskStatus(taskId)
+                    .filter(snapshot -> snapshot.status() != ProgressEvent.EventType.COMPLETED
+                            && snapshot.status() != ProgressEvent.EventType.FAILED)
+                    .ifPresent(snapshot -> sendRecovery(emitterId, snapshot));
+        }
+    }
+
+    /**
+     * 다중 작업 연결의 첫 이벤트 (작업 변경 API 에 쓸 connectionId 전달)
+     */
+    private void sendConnected(String emitterId, Set<String> taskIds) {
+        SSEConnection connection = connections.get(emitterId);
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.emitter.send(SseEmitter.event()
+                    .name("connected")
+                    .data(objectMapper.writeValueAsString(Map.of("connectionId", emitterId, "taskIds", taskIds))));
+            connection.heartbeat.touch();
+        } catch (IOException e) {
+            log.error("[SSEManager] 전송 실패: emitterId={}", emitterId, e);
+            cleanup(emitterId);
         }
     }
 
     /**
      * 이벤트 전송
      */
-    private void sendEvent(String emitterId, ProgressEvent event) {
-        sendEvent(emitterId, event, "progress");
+    private void sendEvent(String emitterId, ProgressEventPayload payload) {
+        sendEvent(emitterId, payload, "progress");
     }
 
     /**
      * 이벤트 전송 (이벤트 타입 지정)
+     *
+     * 저장된 이벤트는 id({taskId}:{sequence}) 포함 → 브라우저가 재접속 시 Last-Event-ID 로 전송
      */
-    private void sendEvent(String emitterId, ProgressEvent event, String eventName) {
+    private void sendEvent(String emitterId, ProgressEventPayload payload, String eventName) {
         SSEConnection connection = connections.get(emitterId);
         if (connection == null) {
             return;
         }
 
+        long started = System.nanoTime();
         try {
-            String jsonData = objectMapper.writeValueAsString(event);
-            connection.emitter().send(SseEmitter.event()
-                    .name(eventName)
-                    .data(jsonData));
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().name(eventName);
+            String id = SseEventId.format(payload.event());
+            if (id != null) {
+                builder.id(id);
+            }
+            connection.emitter.send(builder.data(payload.json()));
+            connection.heartbeat.touch();
+            sendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
 
             log.debug("[SSEManager] 이벤트 전송: emitterId={}, type={}, {}%",
-                    emitterId, event.eventType(), event.percentage());
+                    emitterId, payload.event().eventType(), payload.event().percentage());
         } catch (IOException e) {
+            sendFailures.increment();
             log.error("[SSEManager] 전송 실패: emitterId={}", emitterId, e);
             cleanup(emitterId);
         }
     }
 
+    /**
+     * 브로드캐스터가 구독을 해제한 경우 (큐 초과 등) 연결 종료
+     * → 클라이언트 재접속 시 sendCurrentState 로 상태 복구
+     */
+    private void closeEvicted(String emitterId) {
+        SSEConnection connection = connections.remove(emitterId);
+        if (connection != null) {
+            connection.heartbeat.cancel();
+            connection.emitter.complete();
+            log.info("[SSEManager] 구독 해제로 연결 종료: userId={}, emitterId={}", connection.userId, emitterId);
+        }
+    }
+
     /**
      * 연결 정리
      */
     private void cleanup(String emitterId) {
         SSEConnection connection = connections.remove(emitterId);
         if (connection != null) {
+            connection.heartbeat.cancel();
             // EventBroadcaster 구독 취소
-            progressEventService.unsubscribe(connection.subscriptionId());
-            log.info("[SSEManager] 연결 정리: userId={}, emitterId={}", connection.userId(), emitterId);
+            if (connection.subscriptionId != null) {
+                progressEventService.unsubscribe(connection.subscriptionId);
+            }
+            log.info("[SSEManager] 연결 정리: userId={}, emitterId={}", connection.userId, emitterId);
         }
     }
 
     /**
-     * Emitter ID 생성
+     * Emitter ID 생성 (다중 작업 연결에서는 connectionId 로 외부에 노출되므로 추측 불가한 값)
      */
     private String generateEmitterId(String userId) {
-        return userId + "_" + System.currentTimeMillis();
+        return userId + "_" + UUID.randomUUID();
     }
 
     /**
@@ -148,14 +370,57 @@ public class ProgressSSEManager {
         return connections.size();
     }
 
+    /**
+     * 하트비트/연결 나이 통계 (모니터링용, 전체 SSE 연결 기준)
+     */
+    public SseHeartbeatScheduler.HeartbeatStats getHeartbeatStats() {
+        return heartbeatScheduler.getStats();
+    }
+
     /**
      * SSE 연결 정보
+     *
+     * 재전송 중에는 실시간 이벤트를 buffered 에 모았다가 재전송 후 순서대로 전송
+     * 실시간 전송과 버퍼 전송은 연결 잠금 안에서 → 전송 순서 = 이벤트 순서
      */
-    private record SSEConnection(
-            String emitterId,
-            String userId,
-            String taskId,
-            String subscriptionId,
-            SseEmitter emitter
-    ) {}
+    private static final class SSEConnection {
+
+        private final String emitterId;
+        private final String userId;
+        private final boolean multiplexed;
+        private final SseEmitter emitter;
+        private volatile String subscriptionId;
+        private volatile SseHeartbeatScheduler.Connection heartbeat;
+
+        // 재전송 중 도착한 실시간 이벤트 (null 이면 재전송 완료)
+        private List<ProgressEventPayload> buffered = new ArrayList<>();
+
+        SSEConnection(String emitterId, String userId, boolean multiplexed, SseEmitter emitter) {
+            this.emitterId = emitterId;
+            this.userId = userId;
+            this.multiplexed = multiplexed;
+            this.emitter = emitter;
+        }
+
+        /**
+         * 실시간 이벤트: 재전송 중이면 버퍼에 보관, 아니면 바로 전송
+         */
+        synchronized void deliverLive(ProgressEventPayload payload, Consumer<ProgressEventPayload> sender) {
+            if (buffered != null) {
+                buffered.add(payload);
+                return;
+            }
+            sender.accept(payload);
+        }
+
+        /**
+         * 버퍼 이벤트를 전송한 뒤 실시간 전송으로 전환 (전환 전까지 실시간 이벤트는 계속 버퍼에 쌓임)
+         */
+        synchronized void finishReplay(Consumer<ProgressEventPayload> sender) {
+            for (ProgressEventPayload payload : buffered) {
+                sender.accept(payload);
+            }
+            buffered = null;
+        }
+    }
 }
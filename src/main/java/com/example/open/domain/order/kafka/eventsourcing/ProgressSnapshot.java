@@ -43,4 +43,69 @@ public record ProgressSnapshot(
                 events.size()
         );
     }
+
+    /**
+     * 첫 이벤트로부터 스냅샷 생성
+     */
+    public static ProgressSnapshot initial(ProgressEvent event) {
+        return new ProgressSnapshot(
+                event.taskId(),
+                event.userId(),
+                event.currentStep(),
+                event.totalSteps(),
+                event.percentage(),
+                event.stepName(),
+                event.eventType(),
+                event.timestamp(),
+                event.timestamp(),
+                1
+        );
+    }
+
+    /**
+     * 보존된 이벤트만 리플레이한 스냅샷에 압축(제거)된 이벤트를 합산
+     *
+     * @param compactedCount     압축된 이벤트 수
+     * @param compactedStartedAt 압축된 이벤트 중 가장 이른 시각 (없으면 null)
+     */
+    public ProgressSnapshot withCompacted(int compactedCount, Instant compactedStartedAt) {
+        if (compactedCount == 0) {
+            return this;
+        }
+        Instant started = (compactedStartedAt != null && compactedStartedAt.isBefore(startedAt))
+                ? compactedStartedAt
+                : startedAt;
+        return new ProgressSnapshot(
+                taskId,
+                userId,
+                currentStep,
+                totalSteps,
+                percentage,
+                stepName,
+                status,
+                started,
+                updatedAt,
+                eventCount + compactedCount
+        );
+    }
+
+    /**
+     * 새 이벤트를 반영한 스냅샷 생성 (증분 리플레이, O(1))
+     *
+     * fromEvents(events + event) 와 동일한 결과
+     */
+    public ProgressSnapshot apply(ProgressEvent event) {
+        return new ProgressSnapshot(
+                event.taskId(),
+                event.userId(),
+                event.currentStep(),
+                event.totalSteps(),
+                event.percentage(),
+                event.stepName(),
+                event.eventType(),
+                startedAt,
+                event.timestamp(),
+                eventCount + 1
+        );
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.Closeable;
+import java.util.Optional;
+
+/**
+ * 진행률 스트림 전용 Netty 서버 (서블릿 서버와 별도 포트)
+ *
+ * 애플리케이션은 Tomcat(서블릿) 으로 그대로 뜨고, 이 서버만 Reactor Netty 로 추가 기동
+ * - GET /api/v2/progress/subscribe?userId=         : 사용자의 모든 작업
+ * - GET /api/v2/progress/subscribe/{taskId}?userId= : 특정 작업
+ * - Last-Event-ID 헤더로 이어받기 (서블릿 /subscribe 와 동일)
+ */
+public class ReactiveProgressServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProgressServer.class);
+
+    private final ReactiveProgressStream progressStream;
+    private final DisposableServer server;
+
+    public ReactiveProgressServer(ReactiveProgressStream progressStream, int port) {
+        this.progressStream = progressStream;
+
+        RouterFunction<ServerResponse> routes = RouterFunctions.route()
+                .GET("/api/v2/progress/subscribe", request -> subscribe(request, null))
+                .GET("/api/v2/progress/subscribe/{taskId}", request -> subscribe(request, request.pathVariable("taskId")))
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes);
+
+        this.server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("[ReactiveServer] 진행률 스트림 서버 시작: port={}", server.port());
+    }
+
+    private Mono<ServerResponse> subscribe(ServerRequest request, String taskId) {
+        Optional<String> userId = request.queryParam("userId");
+        if (userId.isEmpty()) {
+            return ServerResponse.badRequest().bodyValue("userId 필수");
+        }
+        String lastEventId = request.headers().firstHeader("Last-Event-ID");
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(progressStream.stream(userId.get(), taskId, lastEventId)));
+    }
+
+    public int getPort() {
+        return server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+        log.info("[ReactiveServer] 진행률 스트림 서버 종료");
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * EventBroadcaster 구독을 Flux&lt;ServerSentEvent&gt; 로 노출 (WebFlux/Netty 용)
+ *
+ * ProgressSSEManager(SseEmitter) 와의 차이:
+ * - 연결마다 서블릿 비동기 요청/블로킹 write 가 없음 → Netty 이벤트 루프가 유휴 연결을 처리
+ * - 클라이언트 demand 만큼만 전송 (소켓이 막히면 Netty 가 request 를 멈춤)
+ *   → 미전송 이벤트는 연결당 bufferSize 만큼 보관, 초과 시 스트림 종료 (재접속 시 Last-Event-ID 로 이어받기)
+ * - 느린 연결의 진행률은 브로드캐스터 단계에서 CONFLATE (작업별 최신 진행률만)
+ * - 하트비트 타이머는 모든 스트림이 공유 (연결마다 타이머를 만들지 않음, 스트림이 없으면 정지)
+ *
+ * 재전송 규칙은 ProgressSSEManager 와 동일 (Last-Event-ID 이후 이벤트, 없으면 현재 상태)
+ */
+public class ReactiveProgressStream {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProgressStream.class);
+    private static final int REPLAY_PAGE_SIZE = 500;
+
+    private final ProgressEventService progressEventService;
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+
+    // 전체 스트림 공유 하트비트 (첫 구독 시 시작, 마지막 구독 해제 시 정지)
+    private final Flux<ServerSentEvent<String>> heartbeats;
+
+    private final AtomicInteger activeStreams = new AtomicInteger();
+    private final AtomicLong overflowed = new AtomicLong();
+
+    public ReactiveProgressStream(ProgressEventService progressEventService, ObjectMapper objectMapper,
+                                  int bufferSize, long heartbeatIntervalMillis) {
+        this.progressEventService = progressEventService;
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.heartbeats = Flux.interval(Duration.ofMillis(heartbeatIntervalMillis))
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.<String>builder().comment("hb").build())
+                .share();
+    }
+
+    /**
+     * 진행률 스트림
+     *
+     * @param taskId      특정 작업만 구독 (null 이면 사용자의 모든 작업)
+     * @param lastEventId Last-Event-ID 헤더 (없으면 null)
+     */
+    public Flux<ServerSentEvent<String>> stream(String userId, String taskId, String lastEventId) {
+        return Flux.defer(() -> {
+            LiveEvents live = new LiveEvents(bufferSize);
+            SubscriptionOptions options = SubscriptionOptions.of(OverflowPolicy.CONFLATE, live::complete);
+            String subscriptionId = (taskId == null)
+                    ? progressEventService.subscribePayload(userId, live, options)
+                    : progressEventService.subscribeTasks(userId, Set.of(taskId), live, options);
+            activeStreams.incrementAndGet();
+
+            // 재전송은 Event Store 조회(블로킹 가능) → boundedElastic 에서 실행
+            // 재전송 중 도착한 실시간 이벤트는 sink 에 쌓였다가 재전송 후 전송 (중복 sequence 제외)
+            Map<String, Long> replayed = new ConcurrentHashMap<>();
+            Flux<ServerSentEvent<String>> replay = Flux
+                    .defer(() -> Flux.fromIterable(replay(userId, taskId, SseEventId.parse(lastEventId), replayed)))
+                    .subscribeOn(Schedulers.boundedElastic());
+            Flux<ServerSentEvent<String>> events = Flux.concat(
+                    replay,
+                    live.sink.asFlux()
+                            .filter(payload -> {
+                                Long sent = replayed.get(payload.event().taskId());
+                                return sent == null || payload.event().sequence() > sent;
+                            })
+                            .map(payload -> toEvent(payload, "progress"))
+            ).doFinally(signal -> live.done.tryEmitValue(Boolean.TRUE));
+
+            // 하트비트는 연결별로 demand 가 없으면 버림 (쌓지 않고, 느린 연결이 공유 타이머를 막지 않음)
+            // 이벤트 스트림이 끝나면 함께 종료
+            Flux<ServerSentEvent<String>> connectionHeartbeats = heartbeats
+                    .onBackpressureDrop()
+                    .takeUntilOther(live.done.asMono());
+
+            // 첫 주석으로 응답 헤더를 바로 전송 (이벤트가 없어도 연결 수립)
+            return Flux.concat(Flux.just(ServerSentEvent.<String>builder().comment("connected").build()),
+                            Flux.merge(events, connectionHeartbeats))
+                    .doFinally(signal -> {
+                        progressEventService.unsubscribe(subscriptionId);
+                        activeStreams.decrementAndGet();
+                        log.debug("[ReactiveStream] 연결 종료: userId={}, taskId={}, signal={}", userId, taskId, signal);
+                    });
+        });
+    }
+
+    private List<ServerSentEvent<String>> replay(String userId, String taskId, SseEventId lastEventId,
+                                                 Map<String, Long> replayed) {
+        List<ServerSentEvent<String>> events = new ArrayList<>();
+        List<ProgressEvent> missed = (lastEventId == null)
+                ? List.of()
+                : progressEventService.getTaskEventsAfter(lastEventId.taskId(), lastEventId.sequence() - 1);
+        // 마지막으로 받은 이벤트가 남아 있어야 이어받기 가능
+        boolean resumable = !missed.isEmpty() && missed.get(0).sequence() == lastEventId.sequence()
+                && (taskId == null || taskId.equals(lastEventId.taskId()));
+
+        if (taskId != null) {
+            if (resumable) {
+                addReplay(events, missed.subList(1, missed.size()), replayed);
+            } else {
+                progressEventService.getTaskStatus(taskId).ifPresent(s -> events.add(toEvent(
+                        ProgressEventPayload.encode(ProgressEvent.progress(
+                                s.taskId(), s.userId(), s.currentStep(), s.totalSteps(), s.stepName()), objectMapper),
+                        "recovery")));
+            }
+        } else if (resumable) {
+            EventCursor after = EventCursor.of(missed.get(0));
+            UserEventPage page;
+            do {
+                page = progressEventService.getUserEvents(userId, REPLAY_PAGE_SIZE, null, after);
+                addReplay(events, page.events(), replayed);
+                if (!page.events().isEmpty()) {
+                    after = EventCursor.of(page.events().get(page.events().size() - 1));
+                }
+            } while (page.hasMore());
+        }
+        return events;
+    }
+
+    private void addReplay(List<ServerSentEvent<String>> events, List<ProgressEvent> missed, Map<String, Long> replayed) {
+        for (ProgressEvent event : missed) {
+            events.add(toEvent(ProgressEventPayload.encode(event, objectMapper), "progress"));
+            replayed.merge(event.taskId(), event.sequence(), Math::max);
+        }
+    }
+
+    private ServerSentEvent<String> toEvent(ProgressEventPayload payload, String eventName) {
+        return ServerSentEvent.<String>builder()
+                .id(SseEventId.format(payload.event()))
+                .event(eventName)
+                .data(payload.json())
+                .build();
+    }
+
+    /**
+     * 현재 스트림 수 (모니터링용)
+     */
+    public int getActiveStreams() {
+        return activeStreams.get();
+    }
+
+    /**
+     * 버퍼 초과로 종료된 스트림 수 (모니터링용)
+     */
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+
+    /**
+     * 브로드캐스터 → Flux 연결 (연결당 bounded 버퍼)
+     *
+     * 브로드캐스터 디스패처(이벤트)와 구독 해제 콜백(종료)이 다른 스레드에서 호출될 수 있어 emit 을 직렬화
+     */
+    private final class LiveEvents implements Consumer<ProgressEventPayload> {
+
+        private final Sinks.Many<ProgressEventPayload> sink;
+        private final Sinks.One<Boolean> done = Sinks.one();
+
+        LiveEvents(int bufferSize) {
+            this.sink = Sinks.many().unicast().onBackpressureBuffer(Queues.<ProgressEventPayload>get(bufferSize).get());
+        }
+
+        @Override
+        public synchronized void accept(ProgressEventPayload payload) {
+            if (sink.tryEmitNext(payload) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                // 클라이언트가 bufferSize 이상 밀림 → 종료 후 재접속 시 이어받기
+                overflowed.incrementAndGet();
+                sink.tryEmitComplete();
+            }
+        }
+
+        synchronized void complete() {
+            sink.tryEmitComplete();
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Redis Pub/Sub 기반 이벤트 브로드캐스터 (다중 서버용)
+ *
+ * 채널: progress:events:{userId} (사용자별)
+ *
+ * 발행:
+ * - 같은 노드의 구독자에게는 InMemoryEventBroadcaster 로 바로 전달 (Redis 왕복 없음)
+ * - 다른 노드용 메시지는 버퍼에 모아 파이프라인으로 PUBLISH
+ *   (batchSize 도달 시 publisher 스레드에 즉시 요청, 그 외에는 flushIntervalMillis 주기)
+ *   → 발행 경로(ProgressEventService)는 Redis 를 기다리지 않고, Redis 오류도 전파되지 않음
+ * - 전송 실패한 배치는 보관했다가 다음 flush 에서 먼저 재시도
+ * - 대기열이 maxPending 을 넘으면 가장 오래된 메시지부터 버림 (Redis 장애 시 메모리 보호, dropped 로 집계)
+ *
+ * 수신:
+ * - 로컬 구독자가 있는 사용자의 채널만 SUBSCRIBE (첫 구독 시 등록, 마지막 구독 해제 시 해제)
+ * - 메시지에 발행 노드 ID 를 붙여 자기 노드가 보낸 메시지는 무시 (이미 로컬 전달됨)
+ * - 수신한 JSON 을 그대로 ProgressEventPayload 로 재사용 (재직렬화 없음)
+ *
+ * 메시지 형식: {nodeId}|{이벤트 JSON}
+ */
+public class RedisEventBroadcaster implements EventBroadcaster, MessageListener, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisEventBroadcaster.class);
+
+    private static final String CHANNEL_PREFIX = "progress:events:";
+    private static final char NODE_SEPARATOR = '|';
+    // 구독 ID 등록 전에 로컬 브로드캐스터가 구독을 강제 해제했음을 표시
+    private static final String EVICTED = "";
+
+    private final InMemoryEventBroadcaster local;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxPending;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // subscriptionId -> userId, userId -> 로컬 구독 수 (채널 구독 관리용, lock 으로 보호)
+    private final Map<String, String> subscriptionUsers = new HashMap<>();
+    private final Map<String, Integer> localSubscriberCounts = new HashMap<>();
+    private final Object subscriptionLock = new Object();
+
+    // 전송 대기 중인 메시지 (마이크로 배치)
+    private final Queue<ProgressEventPayload> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // 전송 실패한 배치 (flush 안에서만 접근, 다음 flush 에서 먼저 재시도)
+    private List<ProgressEventPayload> retryBatch = List.of();
+
+    // 모니터링 지표
+    private final AtomicLong remotePublishedCount = new AtomicLong();
+    private final AtomicLong remoteReceivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "progress-redis-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RedisEventBroadcaster(InMemoryEventBroadcaster local, RedisTemplate<String, Object> redisTemplate,
+                                 RedisMessageListenerContainer listenerContainer, ObjectMapper objectMapper,
+                                 int batchSize, long flushIntervalMillis, int maxPending) {
+        this.local = local;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== 발행 ====================
+
+    @Override
+    public void publish(ProgressEvent event) {
+        // 로컬 전달과 Redis 전송이 같은 JSON 사용 (직렬화 1회)
+        ProgressEventPayload payload = ProgressEventPayload.encode(event, objectMapper);
+        local.publish(payload);
+
+        pending.add(payload);
+        int count = pendingCount.incrementAndGet();
+        if (count > maxPending && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+            countDropped(1);
+        } else if (count >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 일괄 발행: 로컬 전달 예약은 배치당 1회, Redis 전송은 대기열에 한 번에 적재
+     */
+    @Override
+    public void publishAll(List<ProgressEvent> events) {
+        List<ProgressEventPayload> payloads = new ArrayList<>(events.size());
+        for (ProgressEvent event : events) {
+            payloads.add(ProgressEventPayload.encode(event, objectMapper));
+        }
+        local.publishAllPayloads(payloads);
+
+        pending.addAll(payloads);
+        int count = pendingCount.addAndGet(payloads.size());
+        int dropped = 0;
+        while (count - dropped > maxPending && pending.poll() != null) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            pendingCount.addAndGet(-dropped);
+            countDropped(dropped);
+        } else if (count >= batchSize) {
+            requestFlush();
+        }
+    }
+
+    /**
+     * 배치가 찼으면 주기를 기다리지 않고 publisher 스레드에 전송 요청 (호출 스레드는 대기하지 않음)
+     */
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException ignored) {
+            // 종료 중 → close 에서 전송
+        }
+    }
+
+    private void countDropped(int dropped) {
+        long before = droppedCount.getAndAdd(dropped);
+        if (before / 1000 != (before + dropped) / 1000 || before == 0) {
+            log.error("[RedisBroadcaster] 대기열 초과로 메시지 버림 (누적 {}건), Redis 상태 확인 필요", before + dropped);
+        }
+    }
+
+    /**
+     * 대기 중인 메시지를 하나의 파이프라인으로 PUBLISH
+     *
+     * 실패 시 해당 배치를 보관하고 중단 (다음 flush 에서 먼저 재시도, 호출자에게 예외를 던지지 않음)
+     */
+    public synchronized void flush() {
+        if (!retryBatch.isEmpty()) {
+            if (!send(retryBatch)) {
+                return;
+            }
+            retryBatch = List.of();
+        }
+        if (pendingCount.get() == 0) {
+            return;
+        }
+
+        List<ProgressEventPayload> batch = new ArrayList<>();
+        ProgressEventPayload payload;
+        while ((payload = pending.poll()) != null) {
+            batch.add(payload);
+        }
+        pendingCount.addAndGet(-batch.size());
+        if (!batch.isEmpty() && !send(batch)) {
+            retryBatch = batch;
+        }
+    }
+
+    private boolean send(List<ProgressEventPayload> batch) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (ProgressEventPayload p : batch) {
+                    connection.publish(bytes(CHANNEL_PREFIX + p.event().userId()), bytes(nodeId + NODE_SEPARATOR + p.json()));
+                }
+                return null;
+            });
+            remotePublishedCount.addAndGet(batch.size());
+            log.debug("[RedisBroadcaster] 파이프라인 발행: {}건", batch.size());
+            return true;
+        } catch (Exception e) {
+            log.error("[RedisBroadcaster] 배치 발행 실패: {}건, 다음 flush 에서 재시도", batch.size(), e);
+            return false;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("[RedisBroadcaster] 배치 발행 실패", e);
+        }
+    }
+
+    // ==================== 수신 ====================
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(NODE_SEPARATOR);
+        if (separator < 0) {
+            log.warn("[RedisBroadcaster] 잘못된 메시지 형식: channel={}", new String(message.getChannel(), StandardCharsets.UTF_8));
+            return;
+        }
+        if (separator == nodeId.length() && body.startsWith(nodeId)) {
+            // 자기 노드가 보낸 메시지 (로컬 구독자에게는 이미 전달됨)
+            return;
+        }
+
+        String json = body.substring(separator + 1);
+        try {
+            ProgressEvent event = objectMapper.readValue(json, ProgressEvent.class);
+            remoteReceivedCount.incrementAndGet();
+            local.publish(new ProgressEventPayload(event, json));
+        } catch (IOException e) {
+            log.error("[RedisBroadcaster] 메시지 역직렬화 실패", e);
+        }
+    }
+
+    // ==================== 구독 관리 ====================
+
+    @Override
+    public String subscribe(String userId, Consumer<ProgressEvent> listener) {
+        return subscribe(userId, listener, SubscriptionOptions.defaults());
+    }
+
+    @Override
+    public String subscribe(String userId, Consumer<ProgressEvent> listener, SubscriptionOptions options) {
+        return subscribePayload(userId, payload -> listener.accept(payload.event()), options);
+    }
+
+    @Override
+    public String subscribePayload(String userId, Consumer<ProgressEventPayload> listener, SubscriptionOptions options) {
+        AtomicReference<String> subscriptionRef = new AtomicReference<>();
+        String subscriptionId = local.subscribePayload(userId, listener, releasingOnEviction(subscriptionRef, options));
+        return registerChannel(userId, subscriptionRef, subscriptionId);
+    }
+
+    /**
+     * 작업 지정 구독도 채널은 사용자 단위 (작업별 필터링은 로컬 브로드캐스터의 taskId 인덱스)
+     */
+    @Override
+    public String subscribeTasks(String userId, Set<String> taskIds, Consumer<ProgressEventPayload> listener,
+                                 SubscriptionOptions options) {
+        AtomicReference<String> subscriptionRef = new AtomicReference<>();
+        String subscriptionId = local.subscribeTasks(userId, taskIds, listener, releasingOnEviction(subscriptionRef, options));
+        return registerChannel(userId, subscriptionRef, subscriptionId);
+    }
+
+    /**
+     * 로컬 브로드캐스터가 구독을 강제 해제한 경우에도 채널 구독 수를 맞춤
+     *
+     * 구독 ID 가 아직 등록되지 않았으면 EVICTED 로 표시만 하고 registerChannel 이 해제
+     */
+    private SubscriptionOptions releasingOnEviction(AtomicReference<String> subscriptionRef, SubscriptionOptions options) {
+        Runnable onEvicted = options.onEvicted();
+        return SubscriptionOptions.of(options.overflowPolicy(), () -> {
+            String subscriptionId = subscriptionRef.getAndSet(EVICTED);
+            if (subscriptionId != null && !subscriptionId.equals(EVICTED)) {
+                release(subscriptionId);
+            }
+            if (onEvicted != null) {
+                onEvicted.run();
+            }
+        });
+    }
+
+    /**
+     * 채널 구독 수를 먼저 올린 뒤 구독 ID 를 공개 (그 사이 강제 해제됐으면 여기서 바로 해제)
+     */
+    private String registerChannel(String userId, AtomicReference<String> subscriptionRef, String subscriptionId) {
+        synchronized (subscriptionLock) {
+            subscriptionUsers.put(subscriptionId, userId);
+            if (localSubscriberCounts.merge(userId, 1, Integer::sum) == 1) {
+                listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + userId));
+                log.info("[RedisBroadcaster] 채널 구독: userId={}", userId);
+            }
+        }
+
+        if (!subscriptionRef.compareAndSet(null, subscriptionId)) {
+            release(subscriptionId);
+        }
+        return subscriptionId;
+    }
+
+    /**
+     * 채널은 사용자 단위이므로 로컬 인덱스만 변경
+     */
+    @Override
+    public boolean updateTasks(String subscriptionId, Set<String> addTaskIds, Set<String> removeTaskIds) {
+        return local.updateTasks(subscriptionId, addTaskIds, removeTaskIds);
+    }
+
+    @Override
+    public void unsubscribe(String subscriptionId) {
+        local.unsubscribe(subscriptionId);
+        release(subscriptionId);
+    }
+
+    /**
+     * 사용자의 마지막 로컬 구독이 해제되면 채널 구독도 해제
+     */
+    private void release(String subscriptionId) {
+        if (subscriptionId == null) {
+            return;
+        }
+        synchronized (subscriptionLock) {
+            String userId = subscriptionUsers.remove(subscriptionId);
+            if (userId == null) {
+                return;
+            }
+            Integer remaining = localSubscriberCounts.computeIfPresent(userId, (k, count) -> count > 1 ? count - 1 : null);
+            if (remaining == null) {
+                listenerContainer.removeMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + userId));
+                log.info("[RedisBroadcaster] 채널 구독 해제: userId={}", userId);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+        local.close();
+    }
+
+    /**
+     * 로컬 전달 통계 (모니터링용)
+     */
+    public InMemoryEventBroadcaster.BroadcasterStats getStats() {
+        return local.getStats();
+    }
+
+    /**
+     * Redis 구간 통계 (모니터링용)
+     */
+    public RemoteStats getRemoteStats() {
+        synchronized (subscriptionLock) {
+            return new RemoteStats(localSubscriberCounts.size(), remotePublishedCount.get(), remoteReceivedCount.get(),
+                    pendingCount.get(), droppedCount.get());
+        }
+    }
+
+    /**
+     * Redis 구간 통계
+     *
+     * @param subscribedChannels 이 노드가 구독 중인 사용자 채널 수
+     * @param droppedPublishes   대기열 초과로 버린 메시지 수
+     */
+    public record RemoteStats(
+            int subscribedChannels,
+            long published,
+            long received,
+            int pendingPublishes,
+            long droppedPublishes
+    ) {}
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
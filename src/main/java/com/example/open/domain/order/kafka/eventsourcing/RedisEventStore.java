@@ -0,0 +1,619 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DigestUtils;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Redis Streams 기반 Event Store 구현체 (다중 서버 공유)
+ *
+ * 키 구조:
+ * - progress:task:{taskId}:events → Stream (작업별 이벤트, 필드 e = 이벤트 JSON, s = 확정 순번, o = 기록 노드:임시 순번)
+ * - progress:task:{taskId}:seq    → String (작업별 마지막 순번, INCRBY)
+ * - progress:user:{userId}:tasks  → Sorted Set (score = 마지막 이벤트 시간)
+ * - 작업 키의 {taskId} 는 해시 태그 (클러스터에서 두 키가 같은 슬롯 → 순번 할당 스크립트가 CROSSSLOT 없이 실행)
+ *
+ * 쓰기:
+ * - append 는 로컬 버퍼에 적재 후 마이크로 배치로 파이프라인 전송
+ *   (batchSize 도달 시 flusher 에 즉시 요청, 그 외에는 flushIntervalMillis 주기 — 호출 스레드는 Redis 를 기다리지 않음)
+ * - 전송 실패한 배치는 보관했다가 다음 flush 에서 먼저 재시도 (append 가 이미 순번을 돌려줬으므로 버리지 않음)
+ *   일부만 반영된 파이프라인을 재시도하면 같은 이벤트가 중복될 수 있어 조회 시 o(기록 노드:임시 순번)로 중복 제거
+ * - 대기열이 maxPending 을 넘으면 가장 오래된 이벤트부터 버림 (Redis 장애 시 메모리 보호, dropped 로 집계)
+ *
+ * 조회:
+ * - 작업 히스토리: XRANGE 1회 (단일 왕복)
+ * - 같은 노드에서 아직 전송되지 않은 이벤트(대기/전송 중/재시도)를 결과에 합쳐 read-your-writes 보장
+ *   (조회는 flush 를 호출하지 않음 → 쓰기 파이프라인이나 응답 없는 Redis 재시도를 기다리지 않음)
+ * - 최신 이벤트/스냅샷: 같은 XRANGE 결과를 중복 제거 후 sequence 기준으로 계산
+ *   (스트림 순서·XLEN 은 순번 순서·중복 여부를 반영하지 못함, 작업 스트림은 작업 하나의 이벤트라 크기가 작음)
+ *
+ * 순번:
+ * - append/appendAll 은 노드 로컬 카운터로 임시 순번을 부여 (Redis 왕복 없음)
+ * - flush 파이프라인에서 작업별로 Lua 스크립트(EVALSHA) 1회: Redis 카운터로 확정 순번 할당 + XADD
+ *   (카운터가 없으면 XLEN 으로 초기화 → 만료/재시작 후에도 순번 이어짐)
+ *   → 리밸런스 등으로 여러 노드가 같은 작업을 기록해도 저장된 순번은 겹치지 않음
+ * - 작업을 한 노드만 기록하면 확정 순번 = 임시 순번
+ *   다른 노드가 먼저 기록한 경우(리밸런스/재시작 직후)만 확정 순번이 달라지고, 로컬 카운터를 확정 순번에 맞춤
+ *   (그 사이 발행된 이벤트의 SSE id 는 저장 순번과 달라 재접속 시 현재 상태로 복구, resequenced 로 집계)
+ * - 노드마다 전송 시점이 달라 스트림 순서와 순번이 어긋날 수 있으므로 조회 결과는 sequence 순으로 정렬
+ *
+ * TTL:
+ * - 키마다 EXPIRE 를 갱신하므로 Redis 가 만료 처리
+ * - cleanup 은 사용자 인덱스에 남은 오래된 taskId 와 TTL 동안 쓰지 않은 로컬 순번 카운터만 정리
+ */
+public class RedisEventStore implements EventStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisEventStore.class);
+
+    private static final String TASK_KEY_PREFIX = "progress:task:{";
+    private static final String TASK_KEY_SUFFIX = "}:events";
+    private static final String USER_KEY_PREFIX = "progress:user:";
+    private static final String USER_KEY_SUFFIX = ":tasks";
+    private static final String SEQ_KEY_SUFFIX = "}:seq";
+    private static final byte[] EVENT_FIELD = bytes("e");
+    private static final byte[] SEQUENCE_FIELD = bytes("s");
+    private static final byte[] ORIGIN_FIELD = bytes("o");
+
+    // KEYS[1] = 순번 키, KEYS[2] = 스트림 키, ARGV[1] = TTL(초), ARGV[2..] = (o, 이벤트 JSON) 쌍 → 확정한 첫 순번
+    private static final String APPEND_SCRIPT = """
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              redis.call('SET', KEYS[1], redis.call('XLEN', KEYS[2]))
+            end
+            local n = (#ARGV - 1) / 2
+            local first = redis.call('INCRBY', KEYS[1], n) - n + 1
+            for i = 0, n - 1 do
+              redis.call('XADD', KEYS[2], '*', 'e', ARGV[3 + i * 2], 's', first + i, 'o', ARGV[2 + i * 2])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return first
+            """;
+    private static final String APPEND_SCRIPT_SHA = DigestUtils.sha1DigestAsHex(APPEND_SCRIPT);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxPending;
+    private final long ttlSeconds;
+    // 중복 제거 키(o) 의 노드 구분자
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // taskId -> 이 노드의 마지막 임시 순번 (compute 로만 갱신)
+    private final Map<String, LocalSequence> localSequences = new ConcurrentHashMap<>();
+    // 스크립트 적재 여부 (flush 안에서만 접근, 전송 실패 시 다시 적재 — 장애 조치 후 NOSCRIPT 대비)
+    private boolean scriptLoaded;
+
+    // 전송 대기 중인 이벤트 (마이크로 배치)
+    private final Queue<ProgressEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // 대기열 → 전송 중 → 재시도 배치 이동과 조회 시 미전송 이벤트 수집을 묶는 잠금 (Redis 왕복 동안은 잡지 않음)
+    private final Object handoff = new Object();
+    // 전송 중인 배치 (flush 가 Redis 에 보내는 동안 조회에 포함)
+    private List<ProgressEvent> sendingBatch = List.of();
+    // 전송 실패한 배치 (다음 flush 에서 먼저 재시도)
+    private List<ProgressEvent> retryBatch = List.of();
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong resequencedCount = new AtomicLong();
+
+    // 마지막 정리 이후 이 노드가 기록한 사용자 (사용자 인덱스 정리 대상)
+    private final Set<String> touchedUsers = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "progress-redis-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RedisEventStore(RedisTemplate<String, Object> redisTemplate, ObjectMapper objectMapper,
+                           int batchSize, long flushIntervalMillis, int maxPending, long ttlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.ttlSeconds = TimeUnit.MILLISECONDS.toSeconds(ttlMillis);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== 쓰기 ====================
+
+    /**
+     * 임시 순번 부여 후 대기열에 적재 (Redis 는 flush 에서만 호출)
+     */
+    @Override
+    public ProgressEvent append(ProgressEvent event) {
+        ProgressEvent stored = event.withSequence(nextSequences(event.taskId(), 1));
+        pending.add(stored);
+        int count = pendingCount.incrementAndGet();
+        if (count > maxPending && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+            countDropped(1);
+        } else if (count >= batchSize) {
+            requestFlush();
+        }
+        return stored;
+    }
+
+    /**
+     * 일괄 저장: 작업별 임시 순번을 한 번에 부여 (Redis 왕복 없음)
+     */
+    @Override
+    public List<ProgressEvent> appendAll(List<ProgressEvent> events) {
+        if (events.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (ProgressEvent event : events) {
+            counts.merge(event.taskId(), 1, Integer::sum);
+        }
+
+        // taskId -> 다음에 부여할 순번
+        Map<String, Long> next = new HashMap<>();
+        counts.forEach((taskId, count) -> next.put(taskId, nextSequences(taskId, count)));
+
+        List<ProgressEvent> stored = new ArrayList<>(events.size());
+        for (ProgressEvent event : events) {
+            stored.add(event.withSequence(next.merge(event.taskId(), 1L, Long::sum) - 1));
+        }
+        pending.addAll(stored);
+        int count = pendingCount.addAndGet(stored.size());
+        int dropped = 0;
+        while (count - dropped > maxPending && pending.poll() != null) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            pendingCount.addAndGet(-dropped);
+            countDropped(dropped);
+        } else if (count >= batchSize) {
+            requestFlush();
+        }
+        return stored;
+    }
+
+    /**
+     * 작업 임시 순번 count 개 부여
+     *
+     * @return 부여한 첫 순번
+     */
+    private long nextSequences(String taskId, int count) {
+        long now = System.currentTimeMillis();
+        long[] first = new long[1];
+        localSequences.compute(taskId, (id, sequence) -> {
+            LocalSequence target = (sequence == null) ? new LocalSequence() : sequence;
+            first[0] = target.last + 1;
+            target.last += count;
+            target.touchedMillis = now;
+            return target;
+        });
+        return first[0];
+    }
+
+    /**
+     * 확정 순번이 임시 순번보다 앞서 있으면 로컬 카운터를 확정 순번에 맞춤 (이후 임시 순번 = 확정 순번)
+     */
+    private void advanceSequence(String taskId, long confirmedLast) {
+        localSequences.computeIfPresent(taskId, (id, sequence) -> {
+            sequence.last = Math.max(sequence.last, confirmedLast);
+            return sequence;
+        });
+    }
+
+    /**
+     * 배치가 찼으면 주기를 기다리지 않고 flusher 에 전송 요청 (호출 스레드는 대기하지 않음)
+     */
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException ignored) {
+            // 종료 중 → close 에서 전송
+        }
+    }
+
+    private void countDropped(int dropped) {
+        long before = droppedCount.getAndAdd(dropped);
+        if (before / 1000 != (before + dropped) / 1000 || before == 0) {
+            log.error("[RedisEventStore] 대기열 초과로 이벤트 버림 (누적 {}건), Redis 상태 확인 필요", before + dropped);
+        }
+    }
+
+    /**
+     * 대기 중인 이벤트를 하나의 파이프라인으로 전송
+     *
+     * 실패 시 해당 배치를 보관하고 중단 (다음 flush 에서 먼저 재시도, 호출자에게 예외를 던지지 않음)
+     */
+    public synchronized void flush() {
+        if (!retryBatch.isEmpty()) {
+            if (!send(retryBatch)) {
+                return;
+            }
+            synchronized (handoff) {
+                retryBatch = List.of();
+            }
+        }
+        if (pendingCount.get() == 0) {
+            return;
+        }
+
+        List<ProgressEvent> batch = new ArrayList<>();
+        synchronized (handoff) {
+            ProgressEvent event;
+            while ((event = pending.poll()) != null) {
+                batch.add(event);
+            }
+            sendingBatch = batch;
+        }
+        pendingCount.addAndGet(-batch.size());
+        boolean sent = batch.isEmpty() || send(batch);
+        synchronized (handoff) {
+            if (!sent) {
+                retryBatch = batch;
+            }
+            sendingBatch = List.of();
+        }
+    }
+
+    /**
+     * 작업별 스크립트(순번 확정 + XADD) 와 사용자 인덱스 갱신을 하나의 파이프라인으로 전송
+     */
+    private boolean send(List<ProgressEvent> batch) {
+        Map<String, List<ProgressEvent>> byTask = new LinkedHashMap<>();
+        for (ProgressEvent e : batch) {
+            byTask.computeIfAbsent(e.taskId(), id -> new ArrayList<>()).add(e);
+        }
+        try {
+            if (!scriptLoaded) {
+                redisTemplate.execute((RedisCallback<String>) connection ->
+                        connection.scriptingCommands().scriptLoad(bytes(APPEND_SCRIPT)));
+                scriptLoaded = true;
+            }
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                // 스크립트 응답이 앞쪽에 작업 순서대로 오도록 먼저 호출
+                byTask.forEach((taskId, events) -> appendScript(connection, taskId, events));
+                Set<String> users = new HashSet<>();
+                for (ProgressEvent e : batch) {
+                    connection.zSetCommands().zAdd(userKey(e.userId()), e.timestamp().toEpochMilli(), bytes(e.taskId()));
+                    users.add(e.userId());
+                }
+                for (String userId : users) {
+                    connection.keyCommands().expire(userKey(userId), ttlSeconds);
+                }
+                touchedUsers.addAll(users);
+                return null;
+            }, null);
+            confirmSequences(byTask, results);
+            sentCount.addAndGet(batch.size());
+            log.debug("[RedisEventStore] 파이프라인 전송: {}건", batch.size());
+            return true;
+        } catch (Exception e) {
+            scriptLoaded = false;
+            failedFlushCount.incrementAndGet();
+            log.error("[RedisEventStore] 배치 전송 실패: {}건, 다음 flush 에서 재시도", batch.size(), e);
+            return false;
+        }
+    }
+
+    private void appendScript(RedisConnection connection, String taskId, List<ProgressEvent> events) {
+        byte[][] keysAndArgs = new byte[3 + events.size() * 2][];
+        keysAndArgs[0] = seqKey(taskId);
+        keysAndArgs[1] = taskKey(taskId);
+        keysAndArgs[2] = bytes(String.valueOf(ttlSeconds));
+        for (int i = 0; i < events.size(); i++) {
+            ProgressEvent event = events.get(i);
+            keysAndArgs[3 + i * 2] = bytes(origin(event));
+            keysAndArgs[4 + i * 2] = serialize(event);
+        }
+        connection.scriptingCommands().evalSha(APPEND_SCRIPT_SHA, ReturnType.INTEGER, 2, keysAndArgs);
+    }
+
+    /**
+     * 확정 순번이 임시 순번과 다른 작업은 로컬 카운터를 맞추고 집계
+     */
+    private void confirmSequences(Map<String, List<ProgressEvent>> byTask, List<Object> results) {
+        int i = 0;
+        for (Map.Entry<String, List<ProgressEvent>> entry : byTask.entrySet()) {
+            Object result = results.get(i++);
+            List<ProgressEvent> events = entry.getValue();
+            long provisional = events.get(0).sequence();
+            if (!(result instanceof Long first) || first == provisional) {
+                continue;
+            }
+            resequencedCount.addAndGet(events.size());
+            advanceSequence(entry.getKey(), first + events.size() - 1);
+            log.warn("[RedisEventStore] 다른 노드가 기록한 작업 → 순번 재할당: taskId={}, 임시={}, 확정={}",
+                    entry.getKey(), provisional, first);
+        }
+    }
+
+    private String origin(ProgressEvent event) {
+        return nodeId + ':' + event.sequence();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("[RedisEventStore] 배치 전송 실패", e);
+        }
+    }
+
+    // ==================== 조회 ====================
+
+    /**
+     * 미전송 이벤트를 먼저 수집한 뒤 XRANGE (그 사이 전송 완료된 이벤트는 스트림에 있고, 중복은 sequence 로 제거)
+     */
+    @Override
+    public List<ProgressEvent> getEventsByTaskId(String taskId) {
+        List<ProgressEvent> unsent = unsent(event -> event.taskId().equals(taskId));
+        List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRange(taskKey(taskId), Range.unbounded()));
+        return toEvents(records, unsent);
+    }
+
+    @Override
+    public List<ProgressEvent> getEventsByUserId(String userId) {
+        Map<String, List<ProgressEvent>> unsentByTask = new LinkedHashMap<>();
+        for (ProgressEvent event : unsent(event -> event.userId().equals(userId))) {
+            unsentByTask.computeIfAbsent(event.taskId(), id -> new ArrayList<>()).add(event);
+        }
+
+        Set<byte[]> indexed = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRange(userKey(userId), 0, -1));
+        Set<String> taskIds = new LinkedHashSet<>();
+        if (indexed != null) {
+            for (byte[] taskId : indexed) {
+                taskIds.add(new String(taskId, StandardCharsets.UTF_8));
+            }
+        }
+        taskIds.addAll(unsentByTask.keySet());
+        if (taskIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 작업별 XRANGE 를 한 번의 파이프라인으로
+        List<String> ordered = new ArrayList<>(taskIds);
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String taskId : ordered) {
+                connection.streamCommands().xRange(taskKey(taskId), Range.unbounded());
+            }
+            return null;
+        }, null);
+
+        List<ProgressEvent> events = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            events.addAll(toEvents(castRecords(results.get(i)),
+                    unsentByTask.getOrDefault(ordered.get(i), Collections.emptyList())));
+        }
+        events.sort(Comparator.comparing(ProgressEvent::timestamp));
+        return events;
+    }
+
+    /**
+     * 아직 Redis 에 반영되지 않은 이벤트 (재시도 배치 + 전송 중 배치 + 대기열)
+     */
+    private List<ProgressEvent> unsent(Predicate<ProgressEvent> filter) {
+        List<ProgressEvent> events = new ArrayList<>();
+        synchronized (handoff) {
+            for (List<ProgressEvent> batch : List.of(retryBatch, sendingBatch)) {
+                for (ProgressEvent event : batch) {
+                    if (filter.test(event)) {
+                        events.add(event);
+                    }
+                }
+            }
+            for (ProgressEvent event : pending) {
+                if (filter.test(event)) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * 가장 높은 sequence 의 이벤트 (스트림 마지막 레코드는 다른 노드가 늦게 전송한 이전 순번일 수 있음)
+     */
+    @Override
+    public Optional<ProgressEvent> getLatestEvent(String taskId) {
+        List<ProgressEvent> events = getEventsByTaskId(taskId);
+        return events.isEmpty() ? Optional.empty() : Optional.of(events.get(events.size() - 1));
+    }
+
+    /**
+     * 중복 제거 + sequence 정렬된 이벤트로 스냅샷 구성 (XRANGE 1회 왕복)
+     *
+     * 이벤트 수도 중복 제거 후 개수 (XLEN 은 재전송 중복을 포함)
+     */
+    @Override
+    public Optional<ProgressSnapshot> getSnapshot(String taskId) {
+        return Optional.ofNullable(ProgressSnapshot.fromEvents(getEventsByTaskId(taskId)));
+    }
+
+    // ==================== 정리 ====================
+
+    /**
+     * 작업 스트림은 EXPIRE 로 만료되므로 사용자 인덱스의 오래된 taskId 만 제거
+     */
+    @Override
+    public void cleanup(long ttlMillis) {
+        long cutoff = Instant.now().toEpochMilli() - ttlMillis;
+        for (String taskId : localSequences.keySet()) {
+            localSequences.computeIfPresent(taskId, (id, sequence) -> sequence.touchedMillis < cutoff ? null : sequence);
+        }
+
+        List<String> users = new ArrayList<>(touchedUsers);
+        touchedUsers.removeAll(users);
+        if (users.isEmpty()) {
+            return;
+        }
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String userId : users) {
+                connection.zSetCommands().zRemRangeByScore(userKey(userId), Double.NEGATIVE_INFINITY, cutoff);
+            }
+            return null;
+        });
+        log.info("[RedisEventStore] 사용자 인덱스 정리: {}명", users.size());
+    }
+
+    /**
+     * 전송 통계 (모니터링용)
+     */
+    public RedisStoreStats getStats() {
+        int unsent;
+        synchronized (handoff) {
+            unsent = retryBatch.size() + sendingBatch.size();
+        }
+        return new RedisStoreStats(
+                pendingCount.get() + unsent,
+                sentCount.get(),
+                failedFlushCount.get(),
+                droppedCount.get(),
+                resequencedCount.get()
+        );
+    }
+
+    /**
+     * @param resequenced 다른 노드의 기록으로 임시 순번과 다른 순번이 확정된 이벤트 수
+     */
+    public record RedisStoreStats(
+            int pendingEvents,
+            long sent,
+            long failedFlushes,
+            long dropped,
+            long resequenced
+    ) {}
+
+    /**
+     * 작업별 로컬 임시 순번 (localSequences.compute 안에서만 접근)
+     */
+    private static final class LocalSequence {
+        long last;
+        long touchedMillis;
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        flushQuietly();
+    }
+
+    // ==================== 직렬화 ====================
+
+    private byte[] serialize(ProgressEvent event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("이벤트 직렬화 실패: eventId=" + event.eventId(), e);
+        }
+    }
+
+    /**
+     * 한 작업 스트림의 레코드 + 같은 작업의 미전송 이벤트 → sequence 순 이벤트
+     */
+    private List<ProgressEvent> toEvents(List<ByteRecord> records, List<ProgressEvent> unsent) {
+        if ((records == null || records.isEmpty()) && unsent.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ProgressEvent> events = new ArrayList<>((records == null ? 0 : records.size()) + unsent.size());
+        // 재전송으로 중복 기록된 이벤트(먼저 기록된 것 유지)와 수집 후 전송 완료된 미전송 이벤트 제거
+        Set<String> seen = new HashSet<>();
+        if (records != null) {
+            for (ByteRecord record : records) {
+                byte[] json = null;
+                byte[] sequence = null;
+                byte[] origin = null;
+                for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+                    if (Arrays.equals(field.getKey(), EVENT_FIELD)) {
+                        json = field.getValue();
+                    } else if (Arrays.equals(field.getKey(), SEQUENCE_FIELD)) {
+                        sequence = field.getValue();
+                    } else if (Arrays.equals(field.getKey(), ORIGIN_FIELD)) {
+                        origin = field.getValue();
+                    }
+                }
+                if (json == null || sequence == null || origin == null) {
+                    log.warn("[RedisEventStore] 필드가 누락된 레코드 무시: recordId={}", record.getId());
+                    continue;
+                }
+                if (seen.add(new String(origin, StandardCharsets.UTF_8))) {
+                    events.add(confirmed(deserialize(record.getId(), json),
+                            Long.parseLong(new String(sequence, StandardCharsets.UTF_8))));
+                }
+            }
+        }
+        for (ProgressEvent event : unsent) {
+            if (seen.add(origin(event))) {
+                events.add(event);
+            }
+        }
+        events.sort(Comparator.comparingLong(ProgressEvent::sequence));
+        return events;
+    }
+
+    /**
+     * JSON 의 임시 순번을 확정 순번으로 교체 (같으면 그대로, 이벤트 ID 도 확정 순번 기준)
+     */
+    private static ProgressEvent confirmed(ProgressEvent event, long sequence) {
+        if (event.sequence() == sequence) {
+            return event;
+        }
+        return new ProgressEvent(ProgressEvent.eventIdOf(event.taskId(), sequence), event.taskId(), event.userId(),
+                event.currentStep(), event.totalSteps(), event.percentage(), event.stepName(), event.eventType(),
+                event.timestamp(), sequence);
+    }
+
+    private ProgressEvent deserialize(RecordId id, byte[] json) {
+        try {
+            return objectMapper.readValue(json, ProgressEvent.class);
+        } catch (java.io.IOException e) {
+            throw new IllegalStateException("이벤트 역직렬화 실패: recordId=" + id, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ByteRecord> castRecords(Object result) {
+        return (List<ByteRecord>) result;
+    }
+
+    private static byte[] taskKey(String taskId) {
+        return bytes(TASK_KEY_PREFIX + taskId + TASK_KEY_SUFFIX);
+    }
+
+    private static byte[] seqKey(String taskId) {
+        return bytes(TASK_KEY_PREFIX + taskId + SEQ_KEY_SUFFIX);
+    }
+
+    private static byte[] userKey(String userId) {
+        return bytes(USER_KEY_PREFIX + userId + USER_KEY_SUFFIX);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
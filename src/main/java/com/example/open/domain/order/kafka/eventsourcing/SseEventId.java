@@ -0,0 +1,47 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+/**
+ * SSE 이벤트 ID (id: 필드, 재접속 시 Last-Event-ID 로 되돌아옴)
+ *
+ * 형식: {taskId}:{sequence}
+ * - taskId 에 ':' 가 있어도 마지막 ':' 기준으로 분리
+ *
+ * @param taskId   작업 ID
+ * @param sequence 작업 내 순번
+ */
+public record SseEventId(
+        String taskId,
+        long sequence
+) {
+    private static final char SEPARATOR = ':';
+
+    public static SseEventId of(ProgressEvent event) {
+        return new SseEventId(event.taskId(), event.sequence());
+    }
+
+    /**
+     * 순번이 부여되지 않은 이벤트(복구용 합성 이벤트 등)는 id 없이 전송
+     */
+    public static String format(ProgressEvent event) {
+        return event.sequence() > 0 ? event.taskId() + SEPARATOR + event.sequence() : null;
+    }
+
+    /**
+     * @return 형식이 맞지 않으면 null (처음 접속한 것으로 처리)
+     */
+    public static SseEventId parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int separator = value.lastIndexOf(SEPARATOR);
+        if (separator <= 0 || separator == value.length() - 1) {
+            return null;
+        }
+        try {
+            long sequence = Long.parseLong(value.substring(separator + 1));
+            return sequence > 0 ? new SseEventId(value.substring(0, separator), sequence) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
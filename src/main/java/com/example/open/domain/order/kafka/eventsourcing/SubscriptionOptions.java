@@ -0,0 +1,23 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+/**
+ * 구독 옵션
+ *
+ * @param overflowPolicy 큐가 가득 찼을 때의 처리 (null 이면 브로드캐스터 기본값)
+ * @param onEvicted      브로드캐스터가 구독을 강제로 해제했을 때 호출 (DISCONNECT, 전달 실패)
+ *                       → SSE 연결 종료 등 구독자 쪽 정리용
+ */
+public record SubscriptionOptions(
+        OverflowPolicy overflowPolicy,
+        Runnable onEvicted
+) {
+    private static final SubscriptionOptions DEFAULTS = new SubscriptionOptions(null, null);
+
+    public static SubscriptionOptions defaults() {
+        return DEFAULTS;
+    }
+
+    public static SubscriptionOptions of(OverflowPolicy overflowPolicy, Runnable onEvicted) {
+        return new SubscriptionOptions(overflowPolicy, onEvicted);
+    }
+}
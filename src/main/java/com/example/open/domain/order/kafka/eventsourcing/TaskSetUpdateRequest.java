@@ -0,0 +1,22 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import java.util.Set;
+
+/**
+ * 다중 작업 SSE 연결의 작업 목록 변경 요청
+ *
+ * @param add    추가할 작업 ID (없으면 null)
+ * @param remove 제거할 작업 ID (없으면 null)
+ */
+public record TaskSetUpdateRequest(
+        Set<String> add,
+        Set<String> remove
+) {
+    public Set<String> addOrEmpty() {
+        return add == null ? Set.of() : add;
+    }
+
+    public Set<String> removeOrEmpty() {
+        return remove == null ? Set.of() : remove;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 사용자 이벤트 조회 결과 페이지
+ *
+ * @param events         시간순 이벤트
+ * @param previousCursor 첫 이벤트 커서 (이전 페이지: before=previousCursor)
+ * @param nextCursor     마지막 이벤트 커서 (다음 페이지: after=nextCursor)
+ * @param hasMore        조회 방향으로 더 남은 이벤트가 있는지
+ */
+public record UserEventPage(
+        List<ProgressEvent> events,
+        String previousCursor,
+        String nextCursor,
+        boolean hasMore
+) {
+    /**
+     * 페이지 크기 제한 없음
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public static UserEventPage of(List<ProgressEvent> events, boolean hasMore) {
+        if (events.isEmpty()) {
+            return new UserEventPage(Collections.emptyList(), null, null, hasMore);
+        }
+        return new UserEventPage(
+                events,
+                EventCursor.of(events.get(0)).encode(),
+                EventCursor.of(events.get(events.size() - 1)).encode(),
+                hasMore
+        );
+    }
+
+    /**
+     * 이미 정렬 가능한 전체 목록에서 페이지 추출 (k-way 병합을 지원하지 않는 구현체용)
+     *
+     * before 만 지정하면 커서 직전의 마지막 limit 건, 그 외에는 커서 직후의 처음 limit 건
+     */
+    public static UserEventPage slice(List<ProgressEvent> events, int limit, EventCursor before, EventCursor after) {
+        List<ProgressEvent> sorted = new ArrayList<>(events);
+        sorted.sort(EventCursor.ORDER);
+
+        int from = (after == null) ? 0 : indexAfter(sorted, after);
+        int to = (before == null) ? sorted.size() : indexBefore(sorted, before);
+        if (from >= to) {
+            return of(Collections.emptyList(), false);
+        }
+
+        if (before != null && after == null) {
+            int start = Math.max(from, to - limit);
+            return of(List.copyOf(sorted.subList(start, to)), start > from);
+        }
+        int end = (int) Math.min(to, (long) from + limit);
+        return of(List.copyOf(sorted.subList(from, end)), end < to);
+    }
+
+    /**
+     * 커서 이벤트 바로 다음 인덱스
+     */
+    private static int indexAfter(List<ProgressEvent> sorted, EventCursor cursor) {
+        for (int i = 0; i < sorted.size(); i++) {
+            ProgressEvent event = sorted.get(i);
+            if (event.eventId().equals(cursor.eventId())) {
+                return i + 1;
+            }
+            if (cursor.compareTo(event) < 0) {
+                return i;
+            }
+        }
+        return sorted.size();
+    }
+
+    /**
+     * 커서 이벤트의 인덱스 (그 앞까지가 before 범위)
+     */
+    private static int indexBefore(List<ProgressEvent> sorted, EventCursor cursor) {
+        for (int i = 0; i < sorted.size(); i++) {
+            ProgressEvent event = sorted.get(i);
+            if (event.eventId().equals(cursor.eventId()) || cursor.compareTo(event) < 0) {
+                return i;
+            }
+        }
+        return sorted.size();
+    }
+}
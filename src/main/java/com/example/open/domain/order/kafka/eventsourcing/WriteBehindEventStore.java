@@ -0,0 +1,324 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InMemoryEventStore + DB 쓰기 지연(write-behind) 영속화
+ *
+ * 조회는 전부 InMemoryEventStore 가 담당 (DB 조회 없음)
+ *
+ * 쓰기:
+ * - append 는 메모리에 저장 후 전송 대기열에 넣고 즉시 반환 (호출 스레드에서 DB 왕복 없음)
+ * - flusher 스레드가 flushIntervalMillis 주기 또는 batchSize 도달 시 그룹 커밋
+ *   → batchSize 건을 다중 행 INSERT 하나로 전송
+ * - 전송 실패한 배치는 다음 주기에 먼저 재시도 (PK 로 중복 무시)
+ * - 데이터 오류(길이 초과 등)로 배치가 거부되면 행 단위로 다시 넣고 거부된 행만 제외 (rejected 로 집계)
+ * - 대기열이 maxPending 을 넘으면 가장 오래된 이벤트부터 버림 (DB 장애 시 메모리 보호, dropped 로 집계)
+ *
+ * 재시작:
+ * - 생성 시 rehydrateWindowMillis 안에 활동한 작업의 이벤트를 DB 에서 읽어 메모리에 복원
+ *   (순번/이벤트 ID 유지 → 재접속 클라이언트의 Last-Event-ID 가 그대로 유효)
+ *
+ * 종료 시(close) 남은 대기열을 모두 전송
+ */
+public class WriteBehindEventStore implements EventStore, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindEventStore.class);
+    private static final long DB_CLEANUP_INTERVAL_MILLIS = 60_000L;
+
+    private final InMemoryEventStore delegate;
+    private final JdbcProgressEventRepository repository;
+    private final int batchSize;
+    private final int maxPending;
+
+    // 전송 대기 중인 이벤트
+    private final Queue<ProgressEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    // 전송 실패한 배치 (flush 안에서만 변경, 다음 flush 에서 먼저 재시도)
+    // getStats 가 다른 스레드에서 크기를 읽으므로 volatile (할당 후 배치 내용은 바뀌지 않음)
+    private volatile List<ProgressEvent> retryBatch = List.of();
+    private long lastDbCleanupMillis;
+
+    private final AtomicLong persistedCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final long rehydratedCount;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "progress-jdbc-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindEventStore(InMemoryEventStore delegate, JdbcProgressEventRepository repository,
+                                 int batchSize, long flushIntervalMillis, int maxPending, long rehydrateWindowMillis) {
+        this.delegate = delegate;
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.rehydratedCount = rehydrate(rehydrateWindowMillis);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 최근 활동한 작업 복원 (기동 시 1회)
+     */
+    private long rehydrate(long windowMillis) {
+        long since = System.currentTimeMillis() - windowMillis;
+        long[] restored = {0};
+        repository.forEachHotTaskEvent(since, event -> {
+            delegate.restore(event);
+            restored[0]++;
+        });
+        log.info("[WriteBehindEventStore] DB 에서 {}건 복원 (최근 {}ms 활동 작업)", restored[0], windowMillis);
+        return restored[0];
+    }
+
+    // ==================== 쓰기 ====================
+
+    @Override
+    public ProgressEvent append(ProgressEvent event) {
+        ProgressEvent stored = delegate.append(event);
+
+        pending.add(stored);
+        int count = pendingCount.incrementAndGet();
+        if (count > maxPending && pending.poll() != null) {
+            pendingCount.decrementAndGet();
+            countDropped(1);
+        } else if (count % batchSize == 0) {
+            requestFlush();
+        }
+        return stored;
+    }
+
+    /**
+     * 일괄 저장: 대기열 적재/카운터 갱신을 배치당 1회
+     */
+    @Override
+    public List<ProgressEvent> appendAll(List<ProgressEvent> events) {
+        List<ProgressEvent> stored = delegate.appendAll(events);
+        if (stored.isEmpty()) {
+            return stored;
+        }
+
+        pending.addAll(stored);
+        int count = pendingCount.addAndGet(stored.size());
+        int dropped = 0;
+        while (count - dropped > maxPending && pending.poll() != null) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            pendingCount.addAndGet(-dropped);
+            countDropped(dropped);
+        } else if (count / batchSize > (count - stored.size()) / batchSize) {
+            requestFlush();
+        }
+        return stored;
+    }
+
+    /**
+     * 배치가 찼으면 주기를 기다리지 않고 flusher 에 전송 요청 (호출 스레드는 대기하지 않음)
+     */
+    private void requestFlush() {
+        try {
+            flusher.execute(this::flushQuietly);
+        } catch (RejectedExecutionException ignored) {
+            // 종료 중 → close 에서 전송
+        }
+    }
+
+    private void countDropped(int dropped) {
+        long before = droppedCount.getAndAdd(dropped);
+        if (before / 1000 != (before + dropped) / 1000 || before == 0) {
+            log.error("[WriteBehindEventStore] 대기열 초과로 이벤트 버림 (누적 {}건), DB 상태 확인 필요", before + dropped);
+        }
+    }
+
+    /**
+     * 대기열을 batchSize 단위 다중 행 INSERT 로 전송
+     *
+     * 실패 시 해당 배치를 보관하고 중단 (다음 주기에 먼저 재시도)
+     */
+    public synchronized void flush() {
+        if (!retryBatch.isEmpty()) {
+            if (!insert(retryBatch)) {
+                return;
+            }
+            retryBatch = List.of();
+        }
+
+        while (pendingCount.get() > 0) {
+            List<ProgressEvent> batch = new ArrayList<>(Math.min(batchSize, pendingCount.get()));
+            ProgressEvent event;
+            while (batch.size() < batchSize && (event = pending.poll()) != null) {
+                batch.add(event);
+            }
+            pendingCount.addAndGet(-batch.size());
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!insert(batch)) {
+                retryBatch = batch;
+                return;
+            }
+        }
+    }
+
+    private boolean insert(List<ProgressEvent> batch) {
+        try {
+            repository.insertAll(batch);
+            persistedCount.addAndGet(batch.size());
+            log.debug("[WriteBehindEventStore] 그룹 커밋: {}건", batch.size());
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // 재시도해도 같은 오류 → 배치 전체를 붙잡고 있지 않도록 문제 행만 걸러냄
+            return insertEach(batch);
+        } catch (Exception e) {
+            failedFlushCount.incrementAndGet();
+            log.error("[WriteBehindEventStore] 그룹 커밋 실패 ({}건), 다음 주기에 재시도", batch.size(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 행 단위 INSERT, 데이터 오류 행은 버리고 집계 (그 외 오류는 배치 재시도, 이미 넣은 행은 PK 로 무시됨)
+     */
+    private boolean insertEach(List<ProgressEvent> batch) {
+        try {
+            for (ProgressEvent event : batch) {
+                try {
+                    repository.insertAll(List.of(event));
+                    persistedCount.incrementAndGet();
+                } catch (DataIntegrityViolationException e) {
+                    rejectedCount.incrementAndGet();
+                    log.error("[WriteBehindEventStore] 저장 거부된 이벤트 제외: taskId={}, seq={}, cause={}",
+                            event.taskId(), event.sequence(), e.getMostSpecificCause().getMessage());
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            failedFlushCount.incrementAndGet();
+            log.error("[WriteBehindEventStore] 행 단위 저장 실패 ({}건), 다음 주기에 재시도", batch.size(), e);
+            return false;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("[WriteBehindEventStore] 전송 실패", e);
+        }
+    }
+
+    // ==================== 조회 (메모리) ====================
+
+    @Override
+    public List<ProgressEvent> getEventsByTaskId(String taskId) {
+        return delegate.getEventsByTaskId(taskId);
+    }
+
+    @Override
+    public List<ProgressEvent> getEventsAfter(String taskId, long sequence) {
+        return delegate.getEventsAfter(taskId, sequence);
+    }
+
+    @Override
+    public List<ProgressEvent> getEventsByUserId(String userId) {
+        return delegate.getEventsByUserId(userId);
+    }
+
+    @Override
+    public UserEventPage getEventsByUserId(String userId, int limit, EventCursor before, EventCursor after) {
+        return delegate.getEventsByUserId(userId, limit, before, after);
+    }
+
+    @Override
+    public Optional<ProgressEvent> getLatestEvent(String taskId) {
+        return delegate.getLatestEvent(taskId);
+    }
+
+    @Override
+    public Optional<ProgressSnapshot> getSnapshot(String taskId) {
+        return delegate.getSnapshot(taskId);
+    }
+
+    // ==================== 정리 ====================
+
+    /**
+     * 메모리는 매번, DB 는 DB_CLEANUP_INTERVAL_MILLIS 마다 한 번 정리
+     */
+    @Override
+    public void cleanup(long ttlMillis) {
+        delegate.cleanup(ttlMillis);
+
+        long now = System.currentTimeMillis();
+        if (now - lastDbCleanupMillis < DB_CLEANUP_INTERVAL_MILLIS) {
+            return;
+        }
+        lastDbCleanupMillis = now;
+        int deleted = repository.deleteExpiredTasks(now - ttlMillis);
+        if (deleted > 0) {
+            log.info("[WriteBehindEventStore] DB 정리 완료: {}건 삭제", deleted);
+        }
+    }
+
+    /**
+     * 영속화 통계 (모니터링용)
+     */
+    public WriteBehindStats getStats() {
+        return new WriteBehindStats(
+                pendingCount.get() + retryBatch.size(),
+                persistedCount.get(),
+                failedFlushCount.get(),
+                droppedCount.get(),
+                rejectedCount.get(),
+                rehydratedCount
+        );
+    }
+
+    /**
+     * 메모리 저장소 크기 통계 (모니터링용)
+     */
+    public InMemoryEventStore.StoreStats getStoreStats() {
+        return delegate.getStats();
+    }
+
+    public record WriteBehindStats(
+            int pendingEvents,
+            long persisted,
+            long failedFlushes,
+            long dropped,
+            long rejected,
+            long rehydrated
+    ) {}
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        log.info("[WriteBehindEventStore] 종료: 전송 {}건, 미전송 {}건", persistedCount.get(), getStats().pendingEvents());
+    }
+}
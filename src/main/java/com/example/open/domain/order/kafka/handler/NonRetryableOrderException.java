@@ -0,0 +1,20 @@
+package com.example.open.domain.order.kafka.handler;
+
+/**
+ * 재시도해도 같은 결과인 주문 처리 실패 (파싱 실패, 유효하지 않은 주문 등)
+ *
+ * RetryTopicRouter 가 재시도 토픽을 거치지 않고 바로 DLT + 알람으로 보냄
+ *
+ * 동작 변경: 주문 컨슈머의 JSON 파싱 실패 / 유효하지 않은 수량은 이전에 RuntimeException 이라 재시도 대상이었음
+ * (제자리 백오프 후 DLT). 이 예외로 바뀐 뒤에는 재시도 없이 바로 DLT + 알람
+ */
+public class NonRetryableOrderException extends RuntimeException {
+
+    public NonRetryableOrderException(String message) {
+        super(message);
+    }
+
+    public NonRetryableOrderException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
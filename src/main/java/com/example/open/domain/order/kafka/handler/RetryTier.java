@@ -0,0 +1,46 @@
+package com.example.open.domain.order.kafka.handler;
+
+/**
+ * 재시도 토픽 단계 (원본토픽-단계 접미사)
+ *
+ * 예: order-events → order-events-retry-1s → order-events-retry-10s → order-events-retry-1m → order-events-dlt
+ *
+ * 단계별 토픽은 해당 지연이 지난 레코드만 처리 (같은 단계 토픽은 지연이 같아 파티션 안에서 처리 가능 시각 순)
+ */
+public enum RetryTier {
+
+    RETRY_1S("retry-1s", 1_000),
+    RETRY_10S("retry-10s", 10_000),
+    RETRY_1M("retry-1m", 60_000);
+
+    private final String suffix;
+    private final long delayMillis;
+
+    RetryTier(String suffix, long delayMillis) {
+        this.suffix = suffix;
+        this.delayMillis = delayMillis;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public String topicFor(String originalTopic) {
+        return originalTopic + "-" + suffix;
+    }
+
+    /**
+     * 이미 재시도한 횟수 다음 단계
+     *
+     * @param attempts 지금까지 재시도 횟수 (원본 토픽 레코드는 0)
+     * @return 다음 단계, 모든 단계를 거쳤으면 null
+     */
+    public static RetryTier next(int attempts) {
+        RetryTier[] tiers = values();
+        return (attempts >= 0 && attempts < tiers.length) ? tiers[attempts] : null;
+    }
+}
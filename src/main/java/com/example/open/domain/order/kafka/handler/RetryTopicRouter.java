@@ -0,0 +1,327 @@
+package com.example.open.domain.order.kafka.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 실패 레코드 재시도 토픽 라우팅 (비차단 재시도)
+ *
+ * 원본 파티션에서 제자리 재시도(백오프 대기)하지 않고 실패 즉시 다음 단계 재시도 토픽으로 전송
+ * → 뒤의 정상 주문이 막히지 않음
+ *
+ * - order.retry.topics 의 토픽: retry-1s → retry-10s → retry-1m → DLT + 알람
+ * - 그 외 토픽: 바로 DLT + 알람
+ * - 재시도해도 같은 결과인 예외 (NonRetryableOrderException, 파싱/역직렬화/변환 실패): 바로 DLT + 알람
+ *   동작 변경: 이전에는 주문 파싱 실패/유효하지 않은 수량도 RuntimeException 으로 재시도(백오프 후 DLT)했으나
+ *   이제 주문 컨슈머가 NonRetryableOrderException 을 던지므로 재시도 토픽을 거치지 않고 바로 DLT
+ *
+ * 전송:
+ * - route: 전송 전용 스레드(order-retry-publisher)에서 수행하고 future 로 결과 전달 (파이프라인 워커를 막지 않음)
+ * - recover: 호출 스레드에서 전송 완료까지 대기 (리스너 스레드 / DefaultErrorHandler 용)
+ * - 재시도 토픽 전송이 실패하면 DLT + 알람으로 대신 처리, DLT 전송까지 실패하면 실패로 알림
+ *   → 호출자는 원본 오프셋을 커밋하지 않고 다시 전달받아야 함 (유실 방지)
+ *
+ * 헤더 (문자열 값):
+ * - order-retry-attempt        : 재시도 횟수 (retry-1s 레코드 = 1)
+ * - order-retry-original-topic : 원본 토픽 (DLT 토픽 결정에 사용)
+ * - order-retry-due-at         : 처리 가능 시각 (epoch millis)
+ * - order-retry-exception      : 직전 실패 예외
+ *
+ * 메트릭: order.retry.forwarded (tag tier) / order.retry.exhausted (tag topic, order.retry.topics 외에는 other)
+ */
+@Component
+public class RetryTopicRouter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryTopicRouter.class);
+
+    public static final String HEADER_ATTEMPT = "order-retry-attempt";
+    public static final String HEADER_ORIGINAL_TOPIC = "order-retry-original-topic";
+    public static final String HEADER_DUE_AT = "order-retry-due-at";
+    public static final String HEADER_EXCEPTION = "order-retry-exception";
+
+    // order.retry.topics 에 없는 토픽의 exhausted 태그 (태그 값 종류를 제한)
+    private static final String OTHER_TOPIC_TAG = "other";
+
+    // 원인 체인에 있으면 재시도하지 않는 예외 (DefaultErrorHandler 기본 재시도 불가 예외 + 주문 검증 실패)
+    private static final List<Class<? extends Throwable>> NOT_RETRYABLE = List.of(
+            NonRetryableOrderException.class,
+            JsonProcessingException.class,
+            DeserializationException.class,
+            MessageConversionException.class,
+            ClassCastException.class,
+            NoSuchMethodException.class
+    );
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final KafkaFailureAlertService alertService;
+    private final Set<String> retryTopics;
+    private final long sendTimeoutMillis;
+    private final ExecutorService publisher;
+
+    private final Map<RetryTier, Counter> forwardedByTier = new EnumMap<>(RetryTier.class);
+    private final Map<String, Counter> exhaustedByTopic = new HashMap<>();
+    private final Counter exhaustedOther;
+
+    // 종료 시 지연 대기 중인 재시도 컨슈머를 깨움
+    private final Object dueMonitor = new Object();
+    private volatile boolean closing = false;
+
+    public RetryTopicRouter(
+            KafkaTemplate<String, String> kafkaTemplate,
+            DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+            KafkaFailureAlertService alertService,
+            MeterRegistry meterRegistry,
+            @Value("${order.retry.topics:order-events,order-events-v2}") List<String> retryTopics,
+            @Value("${order.retry.send-timeout-millis:10000}") long sendTimeoutMillis,
+            @Value("${order.retry.publisher-threads:4}") int publisherThreads
+    ) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.alertService = alertService;
+        this.retryTopics = new HashSet<>(retryTopics);
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.publisher = Executors.newFixedThreadPool(publisherThreads, r -> {
+            Thread thread = new Thread(r, "order-retry-publisher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (RetryTier tier : RetryTier.values()) {
+            forwardedByTier.put(tier, Counter.builder("order.retry.forwarded")
+                    .description("재시도 토픽으로 보낸 실패 레코드 수")
+                    .tag("tier", tier.getSuffix())
+                    .register(meterRegistry));
+        }
+        for (String topic : this.retryTopics) {
+            exhaustedByTopic.put(topic, exhaustedCounter(meterRegistry, topic));
+        }
+        this.exhaustedOther = exhaustedCounter(meterRegistry, OTHER_TOPIC_TAG);
+    }
+
+    private static Counter exhaustedCounter(MeterRegistry meterRegistry, String topic) {
+        return Counter.builder("order.retry.exhausted")
+                .description("DLT 로 보낸 최종 실패 레코드 수")
+                .tag("topic", topic)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 실패 레코드 라우팅을 전송 전용 스레드에서 수행 (파이프라인 워커 등 막히면 안 되는 스레드용)
+     *
+     * @return 재시도 토픽으로 보냈으면 true, DLT 로 보냈으면 false
+     *         DLT 전송까지 실패하면 예외로 완료 → 원본 오프셋을 커밋하지 말 것
+     */
+    public CompletableFuture<Boolean> route(ConsumerRecord<?, ?> record, Exception exception) {
+        try {
+            return CompletableFuture.supplyAsync(() -> recover(record, exception), publisher);
+        } catch (RejectedExecutionException e) {
+            // 종료 중
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 실패 레코드를 다음 재시도 단계로 전송, 단계가 없으면 DLT + 알람 (호출 스레드에서 전송 완료까지 대기)
+     *
+     * 재시도 토픽 전송이 실패하면 DLT + 알람으로 대신 처리
+     * DLT 전송까지 실패하면 예외 (알람은 전송됨) → 호출자는 원본 오프셋을 커밋하지 않고 다시 전달받아야 함
+     * (DefaultErrorHandler 는 recoverer 예외 시 같은 레코드로 다시 seek)
+     *
+     * @return 재시도 토픽으로 보냈으면 true, DLT 로 보냈으면 false
+     */
+    public boolean recover(ConsumerRecord<?, ?> record, Exception exception) {
+        String originalTopic = originalTopic(record);
+        int attempts = attempts(record);
+        if (!isRetryable(exception)) {
+            log.warn("[Retry] 재시도 불가 예외 → DLT 로 전송: topic={}, offset={}, error={}",
+                    record.topic(), record.offset(), exception.getMessage());
+            deadLetter(record, exception, originalTopic, attempts);
+            return false;
+        }
+        RetryTier tier = retryTopics.contains(originalTopic) ? RetryTier.next(attempts) : null;
+        if (tier == null) {
+            deadLetter(record, exception, originalTopic, attempts);
+            return false;
+        }
+
+        String retryTopic = tier.topicFor(originalTopic);
+        ProducerRecord<String, String> retryRecord = new ProducerRecord<>(retryTopic,
+                Objects.toString(record.key(), null), Objects.toString(record.value(), null));
+        copyHeaders(record.headers(), retryRecord.headers());
+        retryRecord.headers()
+                .add(HEADER_ATTEMPT, bytes(String.valueOf(attempts + 1)))
+                .add(HEADER_ORIGINAL_TOPIC, bytes(originalTopic))
+                .add(HEADER_DUE_AT, bytes(String.valueOf(System.currentTimeMillis() + tier.getDelayMillis())))
+                .add(HEADER_EXCEPTION, bytes(exception.getClass().getSimpleName() + ": " + exception.getMessage()));
+
+        try {
+            kafkaTemplate.send(retryRecord).get(sendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("[Retry] 재시도 토픽 전송 중 인터럽트 → DLT 로 전송: topic={}", retryTopic);
+            deadLetter(record, exception, originalTopic, attempts);
+            return false;
+        } catch (Exception e) {
+            log.error("[Retry] 재시도 토픽 전송 실패 → DLT 로 전송: topic={}", retryTopic, e);
+            deadLetter(record, exception, originalTopic, attempts);
+            return false;
+        }
+
+        forwardedByTier.get(tier).increment();
+        log.warn("[Retry] 재시도 #{} 예약: topic={}, partition={}, offset={} → {} ({}ms 후), error={}",
+                attempts + 1, record.topic(), record.partition(), record.offset(),
+                retryTopic, tier.getDelayMillis(), exception.getMessage());
+        return true;
+    }
+
+    /**
+     * 재시도 가능 여부 (원인 체인 전체 검사)
+     */
+    public static boolean isRetryable(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : NOT_RETRYABLE) {
+                if (type.isInstance(cause)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 최종 실패: DLT 전송 + 알람
+     */
+    private void deadLetter(ConsumerRecord<?, ?> record, Exception exception, String originalTopic, int attempts) {
+        log.error("[Retry] 재시도 {}회 후 최종 실패 (DLT): topic={}, partition={}, offset={}, key={}, error={}",
+                attempts, record.topic(), record.partition(), record.offset(), record.key(), exception.getMessage());
+        exhaustedByTopic.getOrDefault(originalTopic, exhaustedOther).increment();
+        try {
+            deadLetterPublishingRecoverer.accept(record, exception);
+        } finally {
+            alertService.sendAlert(record, exception);
+        }
+    }
+
+    /**
+     * 재시도 토픽 레코드의 처리 가능 시각까지 대기 (재시도 컨슈머 스레드)
+     *
+     * 단계 토픽은 지연이 같아 파티션 안에서 처리 가능 시각 순 → 앞 레코드를 기다리는 동안 뒤 레코드가 늦어지지 않음
+     * 재시도 단계별로 컨테이너가 따로라 원본 토픽 처리는 영향 없음
+     *
+     * @return 처리해도 되면 true, 종료 중이면 false (처리/완료 표시 없이 건너뜀 → 다음 기동 시 다시 전달)
+     */
+    public boolean awaitDue(ConsumerRecord<?, ?> record) {
+        String dueAt = header(record.headers(), HEADER_DUE_AT);
+        long due = (dueAt != null) ? Long.parseLong(dueAt) : record.timestamp();
+        synchronized (dueMonitor) {
+            long remaining;
+            while (!closing && (remaining = due - System.currentTimeMillis()) > 0) {
+                try {
+                    dueMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return !closing;
+    }
+
+    /**
+     * 컨텍스트 종료 시작 (리스너 컨테이너 정지 전): 지연 대기 중인 재시도 컨슈머 해제
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        synchronized (dueMonitor) {
+            closing = true;
+            dueMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * 전송 전용 스레드 종료 (주문 컨슈머 종료 후 호출됨 → 진행 중인 라우팅은 끝까지 수행)
+     */
+    @Override
+    public void close() {
+        publisher.shutdown();
+        try {
+            if (!publisher.awaitTermination(sendTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("[Retry] 라우팅 대기 시간 초과, 남은 작업 중단");
+                publisher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publisher.shutdownNow();
+        }
+    }
+
+    /**
+     * 원본 토픽 (재시도 토픽 레코드는 헤더, 그 외는 레코드 토픽)
+     */
+    public static String originalTopic(ConsumerRecord<?, ?> record) {
+        String originalTopic = header(record.headers(), HEADER_ORIGINAL_TOPIC);
+        return (originalTopic != null) ? originalTopic : record.topic();
+    }
+
+    /**
+     * 지금까지 재시도 횟수 (원본 토픽 레코드는 0)
+     */
+    public static int attempts(ConsumerRecord<?, ?> record) {
+        String attempt = header(record.headers(), HEADER_ATTEMPT);
+        return (attempt != null) ? Integer.parseInt(attempt) : 0;
+    }
+
+    private static void copyHeaders(Headers source, Headers target) {
+        for (Header header : source) {
+            switch (header.key()) {
+                case HEADER_ATTEMPT, HEADER_ORIGINAL_TOPIC, HEADER_DUE_AT, HEADER_EXCEPTION -> {
+                    // 새 값으로 다시 추가
+                }
+                default -> target.add(header);
+            }
+        }
+    }
+
+    private static String header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return (header != null && header.value() != null)
+                ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
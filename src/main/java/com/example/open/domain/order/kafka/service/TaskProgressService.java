@@ -1,5 +1,6 @@
 package com.example.open.domain.order.kafka.service;
 
+import com.example.open.common.sse.SseHeartbeatScheduler;
 import com.example.open.domain.order.kafka.dto.TaskProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,36 +17,60 @@ public class TaskProgressService {
     private static final Logger log = LoggerFactory.getLogger(TaskProgressService.class);
     private static final long SSE_TIMEOUT = 60 * 60 * 1000L; // 1시간
 
-    // userId -> SseEmitter 매핑
-    private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+    private final SseHeartbeatScheduler heartbeatScheduler;
+
+    // userId -> SSE 연결 매핑
+    private final Map<String, UserEmitter> emitters = new ConcurrentHashMap<>();
+
+    public TaskProgressService(SseHeartbeatScheduler heartbeatScheduler) {
+        this.heartbeatScheduler = heartbeatScheduler;
+    }
 
     /**
      * SSE 연결 생성
      */
     public SseEmitter createEmitter(String userId) {
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
+        // 전송이 없는 동안 하트비트, 전송 실패 시 즉시 정리
+        SseHeartbeatScheduler.Connection heartbeat =
+                heartbeatScheduler.register(userId, emitter,
+                        () -> emitters.computeIfPresent(userId, (key, current) -> current.emitter() == emitter ? null : current));
+        UserEmitter entry = new UserEmitter(emitter, heartbeat);
 
         emitter.onCompletion(() -> {
             log.info("[SSE] 연결 종료: userId={}", userId);
-            emitters.remove(userId);
+            remove(userId, entry);
         });
 
         emitter.onTimeout(() -> {
             log.info("[SSE] 타임아웃: userId={}", userId);
-            emitters.remove(userId);
+            remove(userId, entry);
         });
 
         emitter.onError(e -> {
             log.error("[SSE] 에러 발생: userId={}", userId, e);
-            emitters.remove(userId);
+            remove(userId, entry);
         });
 
-        emitters.put(userId, emitter);
+        UserEmitter previous = emitters.put(userId, entry);
+        if (previous != null) {
+            // 교체된 이전 연결은 더 이상 전송 대상이 아니므로 닫음 (타임아웃까지 열어두지 않음)
+            previous.heartbeat().cancel();
+            previous.emitter().complete();
+        }
         log.info("[SSE] 연결 생성: userId={}", userId);
 
         return emitter;
     }
 
+    /**
+     * 연결 제거 (같은 사용자의 새 연결이 이미 등록된 경우 유지)
+     */
+    private void remove(String userId, UserEmitter entry) {
+        entry.heartbeat().cancel();
+        emitters.remove(userId, entry);
+    }
+
     /**
      * 진행률 업데이트 및 SSE 전송
      */
@@ -71,21 +96,24 @@ public class TaskProgressService {
     }
 
     private void sendToUser(String userId, TaskProgress progress) {
-        SseEmitter emitter = emitters.get(userId);
-        if (emitter == null) {
+        UserEmitter entry = emitters.get(userId);
+        if (entry == null) {
             log.warn("[SSE] 연결 없음: userId={}", userId);
             return;
         }
 
         try {
-            emitter.send(SseEmitter.event()
+            entry.emitter().send(SseEmitter.event()
                     .name("progress")
                     .data(progress));
+            entry.heartbeat().touch();
             log.info("[SSE] 전송 완료: userId={}, taskId={}, {}% ({})",
                     userId, progress.taskId(), progress.percentage(), progress.stepName());
         } catch (IOException e) {
             log.error("[SSE] 전송 실패: userId={}", userId, e);
-            emitters.remove(userId);
+            remove(userId, entry);
         }
     }
+
+    private record UserEmitter(SseEmitter emitter, SseHeartbeatScheduler.Connection heartbeat) {}
 }
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS progress_events
+(
+    task_id      VARCHAR(64)  NOT NULL,
+    sequence     BIGINT       NOT NULL,
+    event_id     VARCHAR(64)  NOT NULL,
+    user_id      VARCHAR(64)  NOT NULL,
+    event_type   VARCHAR(16)  NOT NULL,
+    current_step INT          NOT NULL,
+    total_steps  INT          NOT NULL,
+    percentage   INT          NOT NULL,
+    step_name    VARCHAR(512),
+    occurred_at  BIGINT       NOT NULL,
+    PRIMARY KEY (task_id, sequence),
+    INDEX idx_progress_events_occurred_at (occurred_at)
+);
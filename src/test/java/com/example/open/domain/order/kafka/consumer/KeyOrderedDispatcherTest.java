@@ -0,0 +1,72 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedDispatcherTest {
+
+    private final ExecutorService stageThreads = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        stageThreads.shutdownNow();
+    }
+
+    @Test
+    void runsTasksOfSameKeyInSubmissionOrder() throws Exception {
+        KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher("test", 4, 1000);
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+
+        for (int i = 0; i < 500; i++) {
+            String key = "user-" + (i % 5);
+            int order = i;
+            // 단계가 다른 스레드에서 끝나는 비동기 작업 (OrderConsumer 의 단계 워커와 같은 형태)
+            dispatcher.dispatch(key, () -> CompletableFuture.runAsync(() ->
+                    seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(order),
+                    stageThreads));
+        }
+        dispatcher.close();
+
+        assertThat(seen).hasSize(5);
+        seen.values().forEach(orders -> assertThat(orders).hasSize(100).isSorted());
+        assertThat(dispatcher.getStats().inFlight()).isZero();
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() throws Exception {
+        KeyOrderedDispatcher dispatcher = new KeyOrderedDispatcher("test", 2, 10);
+        CompletableFuture<Void> blocked = new CompletableFuture<>();
+        CountDownLatch otherKeyDone = new CountDownLatch(1);
+        CountDownLatch sameKeyDone = new CountDownLatch(1);
+
+        dispatcher.dispatch("user-1", () -> blocked);
+        dispatcher.dispatch("user-1", () -> {
+            sameKeyDone.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+        dispatcher.dispatch("user-2", () -> {
+            otherKeyDone.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertThat(otherKeyDone.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sameKeyDone.getCount()).isEqualTo(1);
+
+        blocked.complete(null);
+        assertThat(sameKeyDone.await(5, TimeUnit.SECONDS)).isTrue();
+        dispatcher.close();
+    }
+}
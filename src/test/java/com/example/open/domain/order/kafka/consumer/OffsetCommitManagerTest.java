@@ -0,0 +1,139 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetCommitManagerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("order-events", 0);
+
+    private MockConsumer<String, String> consumer;
+    private OffsetCommitManager manager;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        // 완료 1건마다 커밋 주기 도래
+        manager = new OffsetCommitManager(1, 0, 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void commitsOnlyContiguousCompletedPrefix() {
+        OffsetCommitManager.Ticket t10 = manager.register(record(10)).orElseThrow();
+        OffsetCommitManager.Ticket t11 = manager.register(record(11)).orElseThrow();
+        OffsetCommitManager.Ticket t12 = manager.register(record(12)).orElseThrow();
+
+        t12.complete();
+        t10.complete();
+        manager.maybeCommit(consumer);
+        assertThat(committedOffset()).isEqualTo(11);
+
+        t11.complete();
+        manager.maybeCommit(consumer);
+        assertThat(committedOffset()).isEqualTo(13);
+    }
+
+    @Test
+    void doesNotCommitWhileFirstRecordIsInFlight() {
+        manager.register(record(0));
+        manager.register(record(1)).orElseThrow().complete();
+
+        manager.maybeCommit(consumer);
+
+        assertThat(committedOffset()).isEqualTo(-1);
+        assertThat(manager.getInFlightByPartition()).containsEntry(PARTITION.toString(), 2);
+    }
+
+    @Test
+    void recordStillInFlightIsNotHandedOutAgain() {
+        OffsetCommitManager.Ticket first = manager.register(record(5)).orElseThrow();
+        assertThat(manager.register(record(5))).isEmpty();
+
+        first.complete();
+        assertThat(manager.register(record(5))).isEmpty();
+        manager.maybeCommit(consumer);
+        assertThat(committedOffset()).isEqualTo(6);
+
+        // 커밋 구간을 지난 오프셋도 다시 처리하지 않음
+        assertThat(manager.register(record(5))).isEmpty();
+    }
+
+    @Test
+    void redeliveredRecordIsNotCommittedAndIsSoughtBack() {
+        manager.register(record(0)).orElseThrow().complete();
+        OffsetCommitManager.Ticket failed = manager.register(record(1)).orElseThrow();
+        manager.register(record(2)).orElseThrow().complete();
+
+        // 처리도 실패 라우팅도 못 함 → 그 앞까지만 커밋하고 같은 오프셋으로 seek
+        failed.redeliver();
+        failed.complete();
+        manager.maybeCommit(consumer);
+
+        assertThat(committedOffset()).isEqualTo(1);
+        assertThat(consumer.position(PARTITION)).isEqualTo(1);
+
+        // 다시 전달된 레코드는 같은 티켓으로 처리 결과 반영, 함께 다시 poll 된 완료 레코드는 건너뜀
+        OffsetCommitManager.Ticket redelivered = manager.register(record(1)).orElseThrow();
+        assertThat(redelivered).isSameAs(failed);
+        assertThat(manager.register(record(2))).isEmpty();
+        redelivered.complete();
+        manager.maybeCommit(consumer);
+
+        assertThat(committedOffset()).isEqualTo(3);
+    }
+
+    @Test
+    void seekBackSkipsRecordsStillInFlight() {
+        OffsetCommitManager.Ticket failed = manager.register(record(0)).orElseThrow();
+        OffsetCommitManager.Ticket slow = manager.register(record(1)).orElseThrow();
+
+        failed.redeliver();
+        manager.maybeCommit(consumer);
+        assertThat(consumer.position(PARTITION)).isEqualTo(0);
+
+        // 0 만 다시 처리, 아직 처리 중인 1 은 두 번째로 실행하지 않음
+        assertThat(manager.register(record(0))).containsSame(failed);
+        assertThat(manager.register(record(1))).isEmpty();
+        // 이미 다시 처리 대기로 돌아간 티켓은 중복 poll 되어도 다시 내주지 않음
+        assertThat(manager.register(record(0))).isEmpty();
+
+        failed.complete();
+        slow.complete();
+        manager.maybeCommit(consumer);
+        assertThat(committedOffset()).isEqualTo(2);
+    }
+
+    @Test
+    void commitsCompletedRecordsSynchronouslyOnRevoke() {
+        manager.register(record(0)).orElseThrow().complete();
+        manager.register(record(1)).orElseThrow().complete();
+        manager.register(record(2)).orElseThrow();
+
+        // 2 는 끝나지 않음 → revoke-wait 후 완료 구간까지만 커밋
+        manager.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        assertThat(committedOffset()).isEqualTo(2);
+        assertThat(manager.getInFlightByPartition()).doesNotContainKey(PARTITION.toString());
+    }
+
+    private static ConsumerRecord<String, String> record(long offset) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "user-1", "{}");
+    }
+
+    private long committedOffset() {
+        OffsetAndMetadata committed = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+        return committed == null ? -1 : committed.offset();
+    }
+}
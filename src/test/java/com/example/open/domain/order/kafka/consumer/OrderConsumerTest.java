@@ -0,0 +1,152 @@
+package com.example.open.domain.order.kafka.consumer;
+
+import com.example.open.common.sse.SseHeartbeatScheduler;
+import com.example.open.domain.order.kafka.handler.KafkaFailureAlertService;
+import com.example.open.domain.order.kafka.handler.RetryTopicRouter;
+import com.example.open.domain.order.kafka.service.TaskProgressService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 실패 주문의 오프셋 처리: 재시도 토픽/DLT 전송이 끝난 뒤에만 커밋, 전송까지 실패하면 다시 전달
+ */
+class OrderConsumerTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("order-events", 0);
+    private static final String INVALID_ORDER =
+            "{\"taskId\":\"task-1\",\"userId\":\"user-1\",\"orderId\":\"ORDER-1\",\"productName\":\"상품\",\"quantity\":0}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TestProducer dltProducer;
+    private SseHeartbeatScheduler heartbeatScheduler;
+    private RetryTopicRouter router;
+    private OffsetCommitManager commitManager;
+    private OrderConsumer orderConsumer;
+    private MockConsumer<String, String> consumer;
+
+    @BeforeEach
+    void setUp() {
+        dltProducer = new TestProducer();
+        TestProducer retryProducer = new TestProducer();
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(template(dltProducer),
+                (record, exception) -> new TopicPartition(record.topic() + "-dlt", -1));
+        router = new RetryTopicRouter(template(retryProducer), recoverer, new KafkaFailureAlertService(), meterRegistry,
+                List.of(PARTITION.topic()), 5_000, 1);
+        commitManager = new OffsetCommitManager(1, 0, 100, meterRegistry);
+        heartbeatScheduler = new SseHeartbeatScheduler(15_000, 500, 2);
+        orderConsumer = new OrderConsumer(new TaskProgressService(heartbeatScheduler), new ObjectMapper(),
+                commitManager, router, meterRegistry, 2, 100, 1, 10, 1, 10, 1, 10);
+
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.assign(List.of(PARTITION));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderConsumer.close();
+        router.close();
+        heartbeatScheduler.close();
+    }
+
+    @Test
+    void commitsFailedOrderAfterDeadLettering() throws Exception {
+        orderConsumer.processOrder(record(5), consumer);
+
+        awaitTrue(() -> {
+            commitManager.maybeCommit(consumer);
+            return committedOffset() == 6;
+        });
+        assertThat(dltProducer.history()).hasSize(1);
+    }
+
+    @Test
+    void redeliversFailedOrderWhenDeadLetteringFails() throws Exception {
+        dltProducer.sendException = new KafkaException("DLT 브로커 없음");
+
+        orderConsumer.processOrder(record(5), consumer);
+
+        // 커밋하지 않고 같은 오프셋으로 seek (DefaultErrorHandler 의 recoverer 실패 시와 같은 동작)
+        awaitTrue(() -> {
+            commitManager.maybeCommit(consumer);
+            return consumer.position(PARTITION) == 5;
+        });
+        assertThat(committedOffset()).isEqualTo(-1);
+
+        // 브로커 복구 후 다시 전달되면 DLT 전송 후 커밋
+        dltProducer.sendException = null;
+        orderConsumer.processOrder(record(5), consumer);
+        awaitTrue(() -> {
+            commitManager.maybeCommit(consumer);
+            return committedOffset() == 6;
+        });
+    }
+
+    private static ConsumerRecord<String, String> record(long offset) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "user-1", INVALID_ORDER);
+    }
+
+    private long committedOffset() {
+        OffsetAndMetadata committed = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+        return committed == null ? -1 : committed.offset();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static KafkaTemplate<String, String> template(Producer<String, String> producer) {
+        return new KafkaTemplate<>(new ProducerFactory<>() {
+            @Override
+            public Producer<String, String> createProducer() {
+                return producer;
+            }
+
+            @Override
+            public Map<String, Object> getConfigurationProperties() {
+                return Map.of();
+            }
+        });
+    }
+
+    /**
+     * KafkaTemplate 은 전송마다 producer 를 닫으므로 닫기를 무시하는 MockProducer
+     */
+    private static final class TestProducer extends MockProducer<String, String> {
+
+        TestProducer() {
+            super(true, new StringSerializer(), new StringSerializer());
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}
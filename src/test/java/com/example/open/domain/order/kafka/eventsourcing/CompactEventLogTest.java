@@ -0,0 +1,104 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactEventLogTest {
+
+    private static final String TASK_ID = "task-1";
+    private static final String USER_ID = "user-1";
+    private static final Instant BASE = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @Test
+    void packedEventsRoundTrip() {
+        CompactEventLog log = new CompactEventLog(TASK_ID, USER_ID);
+        List<ProgressEvent> events = List.of(
+                event(UUID.randomUUID().toString(), 0, 4, "주문 접수", ProgressEvent.EventType.STARTED, 1),
+                event(UUID.randomUUID().toString(), 1, 4, "주문 검증", ProgressEvent.EventType.PROGRESS, 2),
+                event(ProgressEvent.eventIdOf(TASK_ID, 3), 2, 4, "재고 확인", ProgressEvent.EventType.PROGRESS, 3),
+                event(UUID.randomUUID().toString(), 4, 4, "완료", ProgressEvent.EventType.COMPLETED, 4)
+        );
+        events.forEach(log::add);
+
+        assertThat(log.size()).isEqualTo(4);
+        assertThat(log.view()).containsExactlyElementsOf(events);
+    }
+
+    @Test
+    void irregularEventsRoundTrip() {
+        CompactEventLog log = new CompactEventLog(TASK_ID, USER_ID);
+        List<ProgressEvent> events = List.of(
+                // UUID 형식이 아닌 / 대문자 eventId
+                event("evt-1", 1, 4, "주문 검증", ProgressEvent.EventType.PROGRESS, 1),
+                event(UUID.randomUUID().toString().toUpperCase(), 1, 4, "주문 검증", ProgressEvent.EventType.PROGRESS, 2),
+                // 20비트를 넘는 단계
+                event(UUID.randomUUID().toString(), 2_000_000, 3_000_000, "대량 처리", ProgressEvent.EventType.PROGRESS, 3),
+                // int 범위를 넘는 순번
+                event(UUID.randomUUID().toString(), 2, 4, "재고 확인", ProgressEvent.EventType.PROGRESS, Integer.MAX_VALUE + 1L),
+                // 이름 없음 / 사전 길이 제한 초과
+                event(UUID.randomUUID().toString(), 3, 4, null, ProgressEvent.EventType.PROGRESS, Integer.MAX_VALUE + 2L),
+                event(UUID.randomUUID().toString(), 3, 4, "x".repeat(100), ProgressEvent.EventType.PROGRESS, Integer.MAX_VALUE + 3L),
+                // 실패 사유
+                event(UUID.randomUUID().toString(), 0, 0, "결제 실패: 카드 한도 초과 (orderId=ORDER-1)",
+                        ProgressEvent.EventType.FAILED, Integer.MAX_VALUE + 4L)
+        );
+        events.forEach(log::add);
+
+        assertThat(log.view()).containsExactlyElementsOf(events);
+    }
+
+    @Test
+    void viewIsNotAffectedByLaterWrites() {
+        CompactEventLog log = new CompactEventLog(TASK_ID, USER_ID);
+        for (int i = 1; i <= 4; i++) {
+            log.add(progress(i));
+        }
+        CompactEventLog.View before = log.view();
+
+        // 용량(4) 초과 → 새 배열, 중간 삽입, 제거 모두 이전 View 에 영향 없음
+        log.add(progress(6));
+        log.insert(4, progress(5));
+        log.removeIf(index -> index == 0);
+
+        assertThat(before).extracting(ProgressEvent::sequence).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(log.view()).extracting(ProgressEvent::sequence).containsExactly(2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void removeIfKeepsIrregularEvents() {
+        CompactEventLog log = new CompactEventLog(TASK_ID, USER_ID);
+        List<ProgressEvent> expected = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            ProgressEvent event = (i % 3 == 0)
+                    ? event("evt-" + i, i, 10, "비정형", ProgressEvent.EventType.PROGRESS, i)
+                    : progress(i);
+            log.add(event);
+            if (i % 2 == 0) {
+                expected.add(event);
+            }
+        }
+
+        int removed = log.removeIf(index -> index % 2 == 0);
+
+        assertThat(removed).isEqualTo(5);
+        assertThat(log.view()).containsExactlyElementsOf(expected);
+    }
+
+    private static ProgressEvent progress(long sequence) {
+        return event(ProgressEvent.eventIdOf(TASK_ID, sequence), (int) sequence, 10, "단계 처리",
+                ProgressEvent.EventType.PROGRESS, sequence);
+    }
+
+    private static ProgressEvent event(String eventId, int step, int total, String stepName,
+                                       ProgressEvent.EventType type, long sequence) {
+        int percentage = total == 0 ? 0 : (int) ((long) step * 100 / total);
+        return new ProgressEvent(eventId, TASK_ID, USER_ID, step, total, percentage, stepName, type,
+                BASE.plusMillis(sequence % 1_000), sequence);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiryBucketsTest {
+
+    private static final long BUCKET_MILLIS = 1_000;
+
+    @Test
+    void expiresOnlyBucketsBeforeCutoff() {
+        ExpiryBuckets buckets = new ExpiryBuckets(BUCKET_MILLIS);
+        buckets.add("task-1", buckets.bucketOf(500));
+        buckets.add("task-2", buckets.bucketOf(1_500));
+        buckets.add("task-3", buckets.bucketOf(2_500));
+
+        Map<String, Long> expired = new HashMap<>();
+        // cutoff 가 속한 버킷(2)은 아직 끝나지 않았으므로 남김
+        int drained = buckets.expire(2_100, expired::put);
+
+        assertThat(drained).isEqualTo(2);
+        assertThat(expired).containsExactlyInAnyOrderEntriesOf(Map.of("task-1", 0L, "task-2", 1L));
+        assertThat(buckets.bucketCount()).isEqualTo(1);
+
+        assertThat(buckets.expire(2_100, expired::put)).isZero();
+    }
+
+    @Test
+    void movedKeyIsReportedWithItsOldBucket() {
+        ExpiryBuckets buckets = new ExpiryBuckets(BUCKET_MILLIS);
+        // 갱신으로 버킷이 바뀌면 새 버킷에 다시 등록 (이전 항목은 지연 삭제)
+        buckets.add("task-1", buckets.bucketOf(500));
+        buckets.add("task-1", buckets.bucketOf(3_500));
+
+        Map<String, Long> expired = new HashMap<>();
+        assertThat(buckets.expire(2_000, expired::put)).isEqualTo(1);
+
+        // 호출자는 버킷 번호로 현재 버킷과 비교해 지연 삭제 항목을 걸러냄
+        assertThat(expired).containsExactlyEntriesOf(Map.of("task-1", 0L));
+        assertThat(buckets.bucketCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keyAddedWhileBucketIsExpiredIsNotLost() throws InterruptedException {
+        ExpiryBuckets buckets = new ExpiryBuckets(BUCKET_MILLIS);
+        int keyCount = 20_000;
+        Set<String> expired = ConcurrentHashMap.newKeySet();
+
+        // 같은 버킷에 추가하는 동안 expire 가 계속 버킷을 꺼냄
+        Thread adder = new Thread(() -> {
+            for (int i = 0; i < keyCount; i++) {
+                buckets.add("task-" + i, 0);
+            }
+        });
+        adder.start();
+        while (adder.isAlive()) {
+            buckets.expire(BUCKET_MILLIS, (key, bucket) -> expired.add(key));
+        }
+        adder.join();
+        buckets.expire(BUCKET_MILLIS, (key, bucket) -> expired.add(key));
+
+        assertThat(expired).hasSize(keyCount);
+        assertThat(buckets.bucketCount()).isZero();
+    }
+
+    @Test
+    void bucketOfFloorsNegativeTimes() {
+        ExpiryBuckets buckets = new ExpiryBuckets(BUCKET_MILLIS);
+
+        assertThat(buckets.bucketOf(0)).isZero();
+        assertThat(buckets.bucketOf(999)).isZero();
+        assertThat(buckets.bucketOf(-1)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryEventBroadcasterTest {
+
+    private static final String USER_ID = "user-1";
+
+    private InMemoryEventBroadcaster broadcaster;
+    private final List<ProgressEvent> received = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch evicted = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        // 큐 2칸, 전달 스레드 1개
+        broadcaster = new InMemoryEventBroadcaster(new ObjectMapper().registerModule(new JavaTimeModule()),
+                2, 1, OverflowPolicy.CONFLATE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        broadcaster.close();
+    }
+
+    @Test
+    void conflateDropsProgressToKeepTerminalEvents() throws Exception {
+        subscribeSlowly();
+
+        broadcaster.publish(event("task-2", ProgressEvent.EventType.STARTED, 1));
+        broadcaster.publish(event("task-3", ProgressEvent.EventType.PROGRESS, 1));
+        // 큐 가득 참 → task-3 PROGRESS 를 버리고 COMPLETED 적재
+        broadcaster.publish(event("task-2", ProgressEvent.EventType.COMPLETED, 2));
+        release.countDown();
+
+        awaitReceived(3);
+        assertThat(received).extracting(e -> e.taskId() + ":" + e.eventType()).containsExactly(
+                "task-1:STARTED", "task-2:STARTED", "task-2:COMPLETED");
+        assertThat(broadcaster.getStats().dropped()).isEqualTo(1);
+        assertThat(evicted.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void conflateReplacesPendingProgressOfSameTask() throws Exception {
+        subscribeSlowly();
+
+        broadcaster.publish(event("task-1", ProgressEvent.EventType.PROGRESS, 2));
+        broadcaster.publish(event("task-1", ProgressEvent.EventType.PROGRESS, 3));
+        broadcaster.publish(event("task-1", ProgressEvent.EventType.PROGRESS, 4));
+        release.countDown();
+
+        awaitReceived(2);
+        assertThat(received).extracting(ProgressEvent::sequence).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void conflateDisconnectsWhenOnlyTerminalEventsAreQueued() throws Exception {
+        subscribeSlowly();
+
+        broadcaster.publish(event("task-2", ProgressEvent.EventType.STARTED, 1));
+        broadcaster.publish(event("task-2", ProgressEvent.EventType.COMPLETED, 2));
+        // 버릴 PROGRESS 가 없음 → 구독 해제 (Last-Event-ID 재접속으로 복구)
+        broadcaster.publish(event("task-3", ProgressEvent.EventType.PROGRESS, 1));
+
+        assertThat(evicted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(broadcaster.getSubscriptionCount()).isZero();
+    }
+
+    /**
+     * 첫 이벤트 전달 중에 멈추는 구독자 (이후 이벤트는 큐에 쌓임)
+     */
+    private void subscribeSlowly() throws InterruptedException {
+        broadcaster.subscribePayload(USER_ID, payload -> {
+            received.add(payload.event());
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, SubscriptionOptions.of(OverflowPolicy.CONFLATE, evicted::countDown));
+
+        broadcaster.publish(event("task-1", ProgressEvent.EventType.STARTED, 1));
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(received).hasSize(count);
+    }
+
+    private static ProgressEvent event(String taskId, ProgressEvent.EventType type, long sequence) {
+        return new ProgressEvent(ProgressEvent.eventIdOf(taskId, sequence), taskId, USER_ID, (int) sequence, 4,
+                (int) (sequence * 25), "단계 처리", type, Instant.now(), sequence);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * SSE 재접속(Last-Event-ID) 시 누락 구간 재전송 (ProgressSSEManager.replay 와 같은 조회 순서)
+ */
+class LastEventIdReplayTest {
+
+    private static final String USER_ID = "user-1";
+
+    private InMemoryEventBroadcaster broadcaster;
+    private ProgressEventService service;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new InMemoryEventBroadcaster(new ObjectMapper().registerModule(new JavaTimeModule()),
+                256, 1, OverflowPolicy.CONFLATE);
+        service = new ProgressEventService(new InMemoryEventStore(), broadcaster, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.close();
+    }
+
+    @Test
+    void formatAndParseRoundTrip() {
+        ProgressEvent event = ProgressEvent.progress("order:2024:1", USER_ID, 1, 4, "주문 검증").withSequence(7);
+
+        String id = SseEventId.format(event);
+
+        assertThat(id).isEqualTo("order:2024:1:7");
+        assertThat(SseEventId.parse(id)).isEqualTo(new SseEventId("order:2024:1", 7));
+    }
+
+    @Test
+    void malformedOrUnsequencedIdsAreIgnored() {
+        assertThat(SseEventId.format(ProgressEvent.started("task-1", USER_ID, 4))).isNull();
+
+        assertThat(SseEventId.parse(null)).isNull();
+        assertThat(SseEventId.parse("")).isNull();
+        assertThat(SseEventId.parse("task-1")).isNull();
+        assertThat(SseEventId.parse(":3")).isNull();
+        assertThat(SseEventId.parse("task-1:")).isNull();
+        assertThat(SseEventId.parse("task-1:abc")).isNull();
+        assertThat(SseEventId.parse("task-1:0")).isNull();
+        assertThat(SseEventId.parse("task-1:-2")).isNull();
+    }
+
+    @Test
+    void replaysTaskEventsMissedAfterLastEventId() {
+        service.publishStarted("task-1", USER_ID, 4);
+        service.publishProgress("task-1", USER_ID, 1, 4, "주문 검증");
+        List<ProgressEvent> history = service.getTaskHistory("task-1");
+        String lastEventId = SseEventId.format(history.get(history.size() - 1));
+
+        // 연결이 끊긴 동안 발행
+        service.publishProgress("task-1", USER_ID, 2, 4, "재고 확인");
+        service.publishProgress("task-1", USER_ID, 3, 4, "결제 처리");
+        service.publishCompleted("task-1", USER_ID, 4);
+
+        SseEventId parsed = SseEventId.parse(lastEventId);
+        List<ProgressEvent> missed = service.getTaskEventsAfter(parsed.taskId(), parsed.sequence() - 1);
+
+        // 첫 이벤트가 마지막 수신 이벤트여야 이어서 재전송 가능 (아니면 이미 정리된 구간)
+        assertThat(missed.get(0).sequence()).isEqualTo(parsed.sequence());
+        assertThat(missed.subList(1, missed.size()))
+                .extracting(ProgressEvent::eventType, ProgressEvent::currentStep)
+                .containsExactly(
+                        tuple(ProgressEvent.EventType.PROGRESS, 2),
+                        tuple(ProgressEvent.EventType.PROGRESS, 3),
+                        tuple(ProgressEvent.EventType.COMPLETED, 4));
+    }
+
+    @Test
+    void replaysUserEventsAcrossTasksPageByPage() {
+        for (int task = 1; task <= 3; task++) {
+            service.publishStarted("task-" + task, USER_ID, 3);
+        }
+        for (int step = 1; step <= 3; step++) {
+            for (int task = 1; task <= 3; task++) {
+                service.publishProgress("task-" + task, USER_ID, step, 3, "단계 " + step);
+            }
+        }
+        List<ProgressEvent> all = service.getUserEvents(USER_ID);
+        int lastReceived = 4;
+
+        List<ProgressEvent> replayed = new ArrayList<>();
+        EventCursor after = EventCursor.of(all.get(lastReceived));
+        UserEventPage page;
+        do {
+            page = service.getUserEvents(USER_ID, 2, null, after);
+            replayed.addAll(page.events());
+            if (!page.events().isEmpty()) {
+                after = EventCursor.of(page.events().get(page.events().size() - 1));
+            }
+        } while (page.hasMore());
+
+        assertThat(all).hasSize(12);
+        assertThat(replayed).containsExactlyElementsOf(all.subList(lastReceived + 1, all.size()));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedSegmentEventStoreTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+    private static final String TASK_ID = "task-1";
+    private static final String USER_ID = "user-1";
+    private static final long TTL_MILLIS = Duration.ofHours(1).toMillis();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversIndexAfterReopen() {
+        List<ProgressEvent> appended;
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            appended = List.of(
+                    store.append(ProgressEvent.started(TASK_ID, USER_ID, 2)),
+                    store.append(ProgressEvent.progress(TASK_ID, USER_ID, 1, 2, "주문 검증")),
+                    store.append(ProgressEvent.completed(TASK_ID, USER_ID, 2))
+            );
+        }
+
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            assertThat(store.getEventsByTaskId(TASK_ID)).containsExactlyElementsOf(appended);
+            assertThat(store.getEventsAfter(TASK_ID, 1)).containsExactlyElementsOf(appended.subList(1, 3));
+            assertThat(store.getSnapshot(TASK_ID)).hasValueSatisfying(snapshot -> {
+                assertThat(snapshot.eventCount()).isEqualTo(3);
+                assertThat(snapshot.status()).isEqualTo(ProgressEvent.EventType.COMPLETED);
+            });
+
+            // 순번은 복구된 마지막 순번 다음부터
+            ProgressEvent next = store.append(ProgressEvent.progress(TASK_ID, USER_ID, 2, 2, "후처리"));
+            assertThat(next.sequence()).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void corruptedRecordStopsRecoveryAndIsOverwritten() throws IOException {
+        ProgressEvent first;
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            first = store.append(ProgressEvent.started(TASK_ID, USER_ID, 2));
+            store.append(ProgressEvent.progress(TASK_ID, USER_ID, 1, 2, "주문 검증"));
+            store.append(ProgressEvent.progress(TASK_ID, USER_ID, 2, 2, "결제"));
+        }
+
+        // 두 번째 레코드의 페이로드 1바이트 변조 (쓰다 만 레코드와 동일하게 CRC 불일치)
+        Path segmentFile = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, 0);
+            int secondRecord = 8 + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7F}), secondRecord + 8 + 1);
+        }
+
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            // 손상 지점 이후(세 번째 레코드 포함)는 복구하지 않음
+            assertThat(store.getEventsByTaskId(TASK_ID)).containsExactly(first);
+
+            // 손상 지점부터 이어서 기록
+            ProgressEvent resumed = store.append(ProgressEvent.progress(TASK_ID, USER_ID, 1, 2, "주문 검증"));
+            assertThat(resumed.sequence()).isEqualTo(2);
+        }
+
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            assertThat(store.getEventsByTaskId(TASK_ID))
+                    .extracting(ProgressEvent::sequence)
+                    .containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void cleanupDeletesExpiredActiveSegment() throws IOException {
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            Instant expired = Instant.now().minus(Duration.ofHours(2));
+            store.append(at(ProgressEvent.started(TASK_ID, USER_ID, 2), expired));
+            store.append(at(ProgressEvent.completed(TASK_ID, USER_ID, 2), expired));
+
+            // 세그먼트가 가득 차지 않아도 TTL 이 지나면 삭제
+            store.cleanup(TTL_MILLIS);
+
+            assertThat(store.getEventsByTaskId(TASK_ID)).isEmpty();
+            assertThat(store.getSnapshot(TASK_ID)).isEmpty();
+            assertThat(store.getEventsByUserId(USER_ID)).isEmpty();
+            assertThat(segmentFiles()).isEmpty();
+
+            // 다음 append 는 새 세그먼트에 기록 (삭제된 번호는 재사용하지 않음)
+            ProgressEvent restarted = store.append(ProgressEvent.started(TASK_ID, USER_ID, 2));
+            assertThat(restarted.sequence()).isEqualTo(1);
+            assertThat(segmentFiles()).extracting(p -> p.getFileName().toString())
+                    .containsExactly(String.format("%020d.seg", 2));
+        }
+    }
+
+    @Test
+    void cleanupSealsActiveSegmentOnceItsOldestEventExpires() throws IOException {
+        try (MappedSegmentEventStore store = new MappedSegmentEventStore(directory, SEGMENT_SIZE)) {
+            store.append(at(ProgressEvent.started("old-task", USER_ID, 2), Instant.now().minus(Duration.ofHours(2))));
+            ProgressEvent recent = store.append(ProgressEvent.started(TASK_ID, USER_ID, 2));
+
+            // 최신 이벤트가 남아 있으므로 삭제는 하지 않고 봉인만
+            store.cleanup(TTL_MILLIS);
+            assertThat(store.getEventsByTaskId(TASK_ID)).containsExactly(recent);
+            assertThat(segmentFiles()).hasSize(1);
+
+            // 이후 기록은 새 세그먼트로
+            store.append(ProgressEvent.completed(TASK_ID, USER_ID, 2));
+            assertThat(segmentFiles()).hasSize(2);
+            assertThat(store.getEventsByTaskId(TASK_ID)).hasSize(2);
+        }
+    }
+
+    private static ProgressEvent at(ProgressEvent event, Instant timestamp) {
+        return new ProgressEvent(event.eventId(), event.taskId(), event.userId(), event.currentStep(),
+                event.totalSteps(), event.percentage(), event.stepName(), event.eventType(), timestamp, 0L);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}
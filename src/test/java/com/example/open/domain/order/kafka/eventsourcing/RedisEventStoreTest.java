@@ -0,0 +1,356 @@
+package com.example.open.domain.order.kafka.eventsourcing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.Invocation;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class RedisEventStoreTest {
+
+    private static final String TASK_ID = "task-1";
+    private static final String USER_ID = "user-1";
+    private static final Instant BASE = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+
+    // 가짜 Redis: 작업별 순번 카운터, 스크립트가 XADD 한 레코드, 조회 대상 스트림
+    private final Map<String, Long> redisCounters = new HashMap<>();
+    private final List<ByteRecord> written = new ArrayList<>();
+    private List<ByteRecord> stream = written;
+
+    // 성공한 파이프라인마다 전송된 이벤트의 임시 순번 / 스크립트 키
+    private final List<List<Long>> sentBatches = new ArrayList<>();
+    private final List<String> scriptKeys = new ArrayList<>();
+
+    // 연결 실패 (아무것도 반영 안 됨) / 스크립트 반영 후 응답 실패 (일부 반영)
+    private boolean redisDown;
+    private boolean failAfterWrite;
+
+    private RedisEventStore store;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // 주기/배치 크기 flush 가 끼어들지 않도록 크게 잡고 flush 는 테스트에서 직접 호출
+        store = new RedisEventStore(redisTemplate, objectMapper, 100, 60_000, 1_000, 3_600_000);
+        doAnswer(invocation -> stream).when(redisTemplate).execute(any(RedisCallback.class));
+        doAnswer(invocation -> {
+            if (redisDown) {
+                throw new RedisConnectionFailureException("Redis 연결 실패");
+            }
+            RedisConnection connection = mock(RedisConnection.class, RETURNS_DEEP_STUBS);
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            List<Object> results = new ArrayList<>();
+            List<Long> provisional = new ArrayList<>();
+            for (Invocation call : mockingDetails(connection.scriptingCommands()).getInvocations()) {
+                if (call.getMethod().getName().equals("evalSha")) {
+                    results.add(runAppendScript(call.getArguments(), provisional));
+                }
+            }
+            if (failAfterWrite) {
+                throw new RedisConnectionFailureException("응답 수신 실패");
+            }
+            sentBatches.add(provisional);
+            return results;
+        }).when(redisTemplate).executePipelined(any(RedisCallback.class), isNull());
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisDown = true;
+        store.close();
+    }
+
+    // ==================== 조회 ====================
+
+    @Test
+    void latestEventIsTheHighestSequenceNotTheLastStreamEntry() {
+        // 다른 노드가 순번 2 를 늦게 전송 → 스트림 마지막 레코드가 이전 순번
+        streamContains(event(1, ProgressEvent.EventType.STARTED), event(3, ProgressEvent.EventType.COMPLETED),
+                event(2, ProgressEvent.EventType.PROGRESS));
+
+        assertThat(store.getLatestEvent(TASK_ID))
+                .hasValueSatisfying(latest -> assertThat(latest.sequence()).isEqualTo(3));
+        assertThat(store.getEventsByTaskId(TASK_ID))
+                .extracting(ProgressEvent::sequence)
+                .containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void snapshotUsesHighestSequenceAndCountsRetriedDuplicatesOnce() {
+        // 재전송으로 순번 2 가 두 번 기록된 스트림 (같은 o)
+        streamContains(event(1, ProgressEvent.EventType.STARTED), event(2, ProgressEvent.EventType.PROGRESS),
+                event(3, ProgressEvent.EventType.COMPLETED), event(2, ProgressEvent.EventType.PROGRESS));
+
+        assertThat(store.getSnapshot(TASK_ID)).hasValueSatisfying(snapshot -> {
+            assertThat(snapshot.status()).isEqualTo(ProgressEvent.EventType.COMPLETED);
+            assertThat(snapshot.percentage()).isEqualTo(100);
+            assertThat(snapshot.eventCount()).isEqualTo(3);
+            assertThat(snapshot.startedAt()).isEqualTo(BASE.plusMillis(1));
+            assertThat(snapshot.updatedAt()).isEqualTo(BASE.plusMillis(3));
+        });
+    }
+
+    @Test
+    void emptyStreamHasNoLatestEventOrSnapshot() {
+        streamContains();
+
+        assertThat(store.getLatestEvent(TASK_ID)).isEmpty();
+        assertThat(store.getSnapshot(TASK_ID)).isEmpty();
+    }
+
+    // ==================== 쓰기 ====================
+
+    @Test
+    void appendDoesNotCallRedisOnTheCallerThread() {
+        store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+        store.appendAll(List.of(event(TASK_ID, ProgressEvent.EventType.PROGRESS),
+                event("task-2", ProgressEvent.EventType.STARTED)));
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    void appendAssignsLocalSequencesAndFlushConfirmsThemInOnePipeline() {
+        ProgressEvent first = store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+        ProgressEvent second = store.append(event(TASK_ID, ProgressEvent.EventType.PROGRESS));
+
+        assertThat(first.sequence()).isEqualTo(1);
+        assertThat(second.sequence()).isEqualTo(2);
+        assertThat(sentBatches).isEmpty();
+
+        store.flush();
+
+        assertThat(sentBatches).containsExactly(List.of(1L, 2L));
+        assertThat(store.getEventsByTaskId(TASK_ID))
+                .extracting(ProgressEvent::eventId)
+                .containsExactly(first.eventId(), second.eventId());
+        assertThat(store.getStats().pendingEvents()).isZero();
+        assertThat(store.getStats().sent()).isEqualTo(2);
+        assertThat(store.getStats().resequenced()).isZero();
+    }
+
+    @Test
+    void appendAllKeepsInputOrderAndSequencesEachTask() {
+        List<ProgressEvent> stored = store.appendAll(List.of(
+                event(TASK_ID, ProgressEvent.EventType.STARTED),
+                event("task-2", ProgressEvent.EventType.STARTED),
+                event(TASK_ID, ProgressEvent.EventType.PROGRESS)));
+
+        assertThat(stored).extracting(ProgressEvent::taskId).containsExactly(TASK_ID, "task-2", TASK_ID);
+        assertThat(stored).extracting(ProgressEvent::sequence).containsExactly(1L, 1L, 2L);
+
+        store.flush();
+
+        // 작업별 스크립트 1회씩, 하나의 파이프라인
+        assertThat(sentBatches).containsExactly(List.of(1L, 2L, 1L));
+    }
+
+    @Test
+    void scriptKeysShareTheTaskHashTag() {
+        store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+        store.flush();
+
+        // 클러스터에서 CROSSSLOT 이 나지 않도록 순번 키와 스트림 키가 같은 {taskId} 슬롯
+        assertThat(scriptKeys).containsExactly(
+                "progress:task:{" + TASK_ID + "}:seq progress:task:{" + TASK_ID + "}:events");
+    }
+
+    @Test
+    void failedBatchIsKeptAndResentBeforeNewEvents() {
+        store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+
+        redisDown = true;
+        store.flush();
+        assertThat(sentBatches).isEmpty();
+        assertThat(store.getStats().failedFlushes()).isEqualTo(1);
+        assertThat(store.getStats().pendingEvents()).isEqualTo(1);
+
+        store.append(event(TASK_ID, ProgressEvent.EventType.PROGRESS));
+        redisDown = false;
+        store.flush();
+
+        assertThat(sentBatches).containsExactly(List.of(1L), List.of(2L));
+        assertThat(store.getStats().pendingEvents()).isZero();
+    }
+
+    @Test
+    void partiallyAppliedBatchIsReadOnceAfterResend() {
+        store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+        failAfterWrite = true;
+        store.flush();
+
+        // 스트림에 이미 기록된 이벤트와 재시도 배치의 같은 이벤트는 한 번만
+        assertThat(store.getEventsByTaskId(TASK_ID)).hasSize(1);
+
+        failAfterWrite = false;
+        store.append(event(TASK_ID, ProgressEvent.EventType.COMPLETED));
+        store.flush();
+
+        assertThat(written).hasSize(3);
+        assertThat(store.getEventsByTaskId(TASK_ID))
+                .extracting(ProgressEvent::eventType)
+                .containsExactly(ProgressEvent.EventType.STARTED, ProgressEvent.EventType.COMPLETED);
+        assertThat(store.getSnapshot(TASK_ID))
+                .hasValueSatisfying(snapshot -> assertThat(snapshot.eventCount()).isEqualTo(2));
+    }
+
+    @Test
+    void taskWrittenByAnotherNodeIsResequencedAndLocalCounterCatchesUp() {
+        // 다른 노드가 이미 순번 5 까지 기록한 작업
+        redisCounters.put(TASK_ID, 5L);
+
+        assertThat(store.append(event(TASK_ID, ProgressEvent.EventType.PROGRESS)).sequence()).isEqualTo(1);
+        store.flush();
+        assertThat(store.getStats().resequenced()).isEqualTo(1);
+        assertThat(store.getEventsByTaskId(TASK_ID)).singleElement().satisfies(event -> {
+            assertThat(event.sequence()).isEqualTo(6);
+            assertThat(event.eventId()).isEqualTo(ProgressEvent.eventIdOf(TASK_ID, 6));
+        });
+
+        // 이후 임시 순번은 확정 순번과 같음
+        assertThat(store.append(event(TASK_ID, ProgressEvent.EventType.COMPLETED)).sequence()).isEqualTo(7);
+        store.flush();
+        assertThat(store.getStats().resequenced()).isEqualTo(1);
+        assertThat(store.getEventsByTaskId(TASK_ID))
+                .extracting(ProgressEvent::sequence)
+                .containsExactly(6L, 7L);
+    }
+
+    @Test
+    void pendingBeyondMaxPendingDropsOldestEvents() {
+        store.close();
+        store = new RedisEventStore(redisTemplate, objectMapper, 100, 60_000, 2, 3_600_000);
+
+        store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+        store.append(event(TASK_ID, ProgressEvent.EventType.PROGRESS));
+        store.append(event(TASK_ID, ProgressEvent.EventType.PROGRESS));
+
+        assertThat(store.getStats().dropped()).isEqualTo(1);
+        store.flush();
+        assertThat(sentBatches).containsExactly(List.of(2L, 3L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readsMergeUnsentEventsWithoutFlushing() {
+        store.append(event(TASK_ID, ProgressEvent.EventType.STARTED));
+        redisDown = true;
+        store.flush();
+        store.append(event(TASK_ID, ProgressEvent.EventType.PROGRESS));
+
+        // 재시도 배치(1)와 대기열(2)은 아직 스트림에 없음
+        assertThat(store.getEventsByTaskId(TASK_ID))
+                .extracting(ProgressEvent::sequence)
+                .containsExactly(1L, 2L);
+        assertThat(store.getSnapshot(TASK_ID))
+                .hasValueSatisfying(snapshot -> assertThat(snapshot.eventCount()).isEqualTo(2));
+
+        // 조회 중에는 전송 파이프라인을 다시 호출하지 않음 (실패한 flush 1회만)
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class), isNull());
+        assertThat(sentBatches).isEmpty();
+    }
+
+    // ==================== 가짜 Redis ====================
+
+    /**
+     * APPEND_SCRIPT 동작 재현 (args = sha, returnType, numKeys, 순번 키, 스트림 키, TTL, (o, JSON)...)
+     */
+    private long runAppendScript(Object[] args, List<Long> provisional) {
+        String seqKey = string(args[3]);
+        String streamKey = string(args[4]);
+        scriptKeys.add(seqKey + " " + streamKey);
+
+        String taskId = streamKey.substring(streamKey.indexOf('{') + 1, streamKey.indexOf('}'));
+        int count = (args.length - 6) / 2;
+        long first = redisCounters.merge(taskId, (long) count, Long::sum) - count + 1;
+        for (int i = 0; i < count; i++) {
+            byte[] origin = (byte[]) args[6 + i * 2];
+            byte[] json = (byte[]) args[7 + i * 2];
+            provisional.add(read(json).sequence());
+            written.add(record(written.size(), json, first + i, origin));
+        }
+        return first;
+    }
+
+    private void streamContains(ProgressEvent... events) {
+        List<ByteRecord> records = new ArrayList<>();
+        for (int i = 0; i < events.length; i++) {
+            records.add(record(i, json(events[i]), events[i].sequence(),
+                    ("other-node:" + events[i].sequence()).getBytes(StandardCharsets.UTF_8)));
+        }
+        stream = records;
+    }
+
+    private static ByteRecord record(int index, byte[] json, long sequence, byte[] origin) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        fields.put("e".getBytes(StandardCharsets.UTF_8), json);
+        fields.put("s".getBytes(StandardCharsets.UTF_8), String.valueOf(sequence).getBytes(StandardCharsets.UTF_8));
+        fields.put("o".getBytes(StandardCharsets.UTF_8), origin);
+        return StreamRecords.newRecord()
+                .in(("progress:task:{" + TASK_ID + "}:events").getBytes(StandardCharsets.UTF_8))
+                .withId(RecordId.of(BASE.toEpochMilli(), index))
+                .ofBytes(fields);
+    }
+
+    private byte[] json(ProgressEvent event) {
+        try {
+            return objectMapper.writeValueAsBytes(event);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ProgressEvent read(byte[] json) {
+        try {
+            return objectMapper.readValue(json, ProgressEvent.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String string(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ProgressEvent event(String taskId, ProgressEvent.EventType type) {
+        return new ProgressEvent(null, taskId, USER_ID, 0, 2, 0, "단계 0", type, BASE, 0);
+    }
+
+    private static ProgressEvent event(long sequence, ProgressEvent.EventType type) {
+        int step = (int) sequence - 1;
+        return new ProgressEvent("evt-" + sequence, TASK_ID, USER_ID, step, 2, step * 50,
+                "단계 " + step, type, BASE.plusMillis(sequence), sequence);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.open.domain.order.kafka.handler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryTopicRouterTest {
+
+    private static final String TOPIC = "order-events";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ConsumerRecord<?, ?>> alerts = new ArrayList<>();
+    private TestProducer retryProducer;
+    private TestProducer dltProducer;
+    private RetryTopicRouter router;
+
+    @BeforeEach
+    void setUp() {
+        retryProducer = new TestProducer();
+        dltProducer = new TestProducer();
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(template(dltProducer),
+                (record, exception) -> new TopicPartition(RetryTopicRouter.originalTopic(record) + "-dlt", -1));
+        KafkaFailureAlertService alertService = new KafkaFailureAlertService() {
+            @Override
+            public void sendAlert(ConsumerRecord<?, ?> record, Exception exception) {
+                alerts.add(record);
+            }
+        };
+        router = new RetryTopicRouter(template(retryProducer), recoverer, alertService, meterRegistry,
+                List.of(TOPIC), 5_000, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.close();
+    }
+
+    @Test
+    void forwardsFirstFailureToFirstTierWithHeaders() throws Exception {
+        long before = System.currentTimeMillis();
+
+        boolean forwarded = router.route(record(TOPIC, 7), new IllegalStateException("재고 서비스 응답 없음"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(forwarded).isTrue();
+        ProducerRecord<String, String> sent = single(retryProducer);
+        assertThat(sent.topic()).isEqualTo("order-events-retry-1s");
+        assertThat(sent.key()).isEqualTo("user-1");
+        assertThat(header(sent, RetryTopicRouter.HEADER_ATTEMPT)).isEqualTo("1");
+        assertThat(header(sent, RetryTopicRouter.HEADER_ORIGINAL_TOPIC)).isEqualTo(TOPIC);
+        assertThat(header(sent, RetryTopicRouter.HEADER_EXCEPTION)).contains("재고 서비스 응답 없음");
+        assertThat(Long.parseLong(header(sent, RetryTopicRouter.HEADER_DUE_AT)))
+                .isBetween(before + 1_000, System.currentTimeMillis() + 1_000);
+        assertThat(dltProducer.history()).isEmpty();
+        assertThat(meterRegistry.get("order.retry.forwarded").tag("tier", "retry-1s").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nextTierCarriesAttemptAndOriginalTopic() {
+        ConsumerRecord<String, String> retried = record("order-events-retry-1s", 3);
+        retried.headers()
+                .add(RetryTopicRouter.HEADER_ATTEMPT, bytes("1"))
+                .add(RetryTopicRouter.HEADER_ORIGINAL_TOPIC, bytes(TOPIC))
+                .add("trace-id", bytes("abc"));
+
+        assertThat(router.recover(retried, new IllegalStateException("실패"))).isTrue();
+
+        ProducerRecord<String, String> sent = single(retryProducer);
+        assertThat(sent.topic()).isEqualTo("order-events-retry-10s");
+        assertThat(header(sent, RetryTopicRouter.HEADER_ATTEMPT)).isEqualTo("2");
+        assertThat(header(sent, RetryTopicRouter.HEADER_ORIGINAL_TOPIC)).isEqualTo(TOPIC);
+        // 재시도 헤더는 새 값 하나만, 그 외 헤더는 그대로 전달
+        assertThat(sent.headers().headers(RetryTopicRouter.HEADER_ATTEMPT)).hasSize(1);
+        assertThat(header(sent, "trace-id")).isEqualTo("abc");
+    }
+
+    @Test
+    void exhaustedRetriesGoToDltWithAlert() {
+        ConsumerRecord<String, String> retried = record("order-events-retry-1m", 0);
+        retried.headers()
+                .add(RetryTopicRouter.HEADER_ATTEMPT, bytes("3"))
+                .add(RetryTopicRouter.HEADER_ORIGINAL_TOPIC, bytes(TOPIC));
+
+        assertThat(router.recover(retried, new IllegalStateException("실패"))).isFalse();
+
+        assertThat(retryProducer.history()).isEmpty();
+        assertThat(single(dltProducer).topic()).isEqualTo("order-events-dlt");
+        assertThat(alerts).containsExactly(retried);
+        assertThat(meterRegistry.get("order.retry.exhausted").tag("topic", TOPIC).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void nonRetryableFailureSkipsRetryTopics() {
+        assertThat(router.recover(record(TOPIC, 1), new NonRetryableOrderException("유효하지 않은 수량: 0"))).isFalse();
+
+        assertThat(retryProducer.history()).isEmpty();
+        assertThat(single(dltProducer).topic()).isEqualTo("order-events-dlt");
+    }
+
+    @Test
+    void unknownTopicGoesToDltUnderOtherTag() {
+        assertThat(router.recover(record("ordering-demo", 1), new IllegalStateException("실패"))).isFalse();
+
+        assertThat(single(dltProducer).topic()).isEqualTo("ordering-demo-dlt");
+        assertThat(meterRegistry.get("order.retry.exhausted").tag("topic", "other").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void retryTopicSendFailureFallsBackToDlt() throws Exception {
+        retryProducer.sendException = new KafkaException("retry 토픽 브로커 없음");
+
+        boolean forwarded = router.route(record(TOPIC, 1), new IllegalStateException("실패")).get(5, TimeUnit.SECONDS);
+
+        assertThat(forwarded).isFalse();
+        assertThat(single(dltProducer).topic()).isEqualTo("order-events-dlt");
+        assertThat(alerts).hasSize(1);
+    }
+
+    @Test
+    void dltSendFailureFailsRouting() {
+        retryProducer.sendException = new KafkaException("retry 토픽 브로커 없음");
+        dltProducer.sendException = new KafkaException("DLT 브로커 없음");
+        ConsumerRecord<String, String> record = record(TOPIC, 1);
+
+        // 호출자가 오프셋을 커밋하지 않도록 실패로 알림 (알람은 전송)
+        CompletableFuture<Boolean> routed = router.route(record, new IllegalStateException("실패"));
+        assertThatThrownBy(() -> routed.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThatThrownBy(() -> router.recover(record, new IllegalStateException("실패")))
+                .hasMessageContaining("Dead-letter publication to order-events-dlt failed");
+        assertThat(alerts).hasSize(2);
+    }
+
+    @Test
+    void routeAfterCloseFails() {
+        router.close();
+
+        assertThat(router.route(record(TOPIC, 1), new IllegalStateException("실패"))).isCompletedExceptionally();
+    }
+
+    @Test
+    void awaitDueWaitsUntilDueAt() {
+        ConsumerRecord<String, String> record = record("order-events-retry-1s", 1);
+        long due = System.currentTimeMillis() + 300;
+        record.headers().add(RetryTopicRouter.HEADER_DUE_AT, bytes(String.valueOf(due)));
+
+        assertThat(router.awaitDue(record)).isTrue();
+        assertThat(System.currentTimeMillis()).isGreaterThanOrEqualTo(due);
+    }
+
+    @Test
+    void awaitDueReturnsImmediatelyWhenPastDue() {
+        ConsumerRecord<String, String> record = record("order-events-retry-1s", 1);
+        record.headers().add(RetryTopicRouter.HEADER_DUE_AT, bytes(String.valueOf(System.currentTimeMillis() - 1)));
+
+        long start = System.nanoTime();
+        assertThat(router.awaitDue(record)).isTrue();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+    }
+
+    @Test
+    void awaitDueReleasedOnShutdown() throws Exception {
+        ConsumerRecord<String, String> record = record("order-events-retry-1m", 1);
+        record.headers().add(RetryTopicRouter.HEADER_DUE_AT, bytes(String.valueOf(System.currentTimeMillis() + 60_000)));
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> router.awaitDue(record));
+        Thread.sleep(100);
+        router.onContextClosed();
+
+        // 종료 중이면 처리하지 않음 (커밋되지 않아 다음 기동 시 다시 전달)
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isFalse();
+    }
+
+    private static ConsumerRecord<String, String> record(String topic, long offset) {
+        return new ConsumerRecord<>(topic, 0, offset, "user-1", "{\"orderId\":\"ORDER-1\"}");
+    }
+
+    private static ProducerRecord<String, String> single(MockProducer<String, String> producer) {
+        assertThat(producer.history()).hasSize(1);
+        return producer.history().get(0);
+    }
+
+    private static String header(ProducerRecord<?, ?> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static KafkaTemplate<String, String> template(Producer<String, String> producer) {
+        return new KafkaTemplate<>(new ProducerFactory<>() {
+            @Override
+            public Producer<String, String> createProducer() {
+                return producer;
+            }
+
+            @Override
+            public Map<String, Object> getConfigurationProperties() {
+                return Map.of();
+            }
+        });
+    }
+
+    /**
+     * KafkaTemplate 은 전송마다 producer 를 닫으므로 닫기를 무시하는 MockProducer
+     */
+    private static final class TestProducer extends MockProducer<String, String> {
+
+        TestProducer() {
+            super(true, new StringSerializer(), new StringSerializer());
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+    }
+}